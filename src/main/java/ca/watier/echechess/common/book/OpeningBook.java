@@ -0,0 +1,171 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.book;
+
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.OpeningBookEntry;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A read only opening book, memory mapped from a file built with the {@link OpeningBookBuilder}.
+ * <p>
+ * The file contains a header (magic, entry count) followed by the entries (hash, move, weight, count) sorted by hash;
+ * the moves of a position are found with a binary search. The lookups do not modify the buffer and can be done
+ * concurrently.
+ */
+public class OpeningBook implements Closeable {
+    public static final int MAGIC = 0x45434242;
+    public static final int HEADER_SIZE = 8;
+    public static final int ENTRY_SIZE = 20; //hash (8) + move (4) + weight (4) + count (4)
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+
+    public OpeningBook(@NotNull Path path) throws IOException {
+        assertThat(path).isNotNull();
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IllegalStateException("Invalid opening book " + path);
+        }
+
+        entryCount = buffer.getInt(4);
+
+        if (entryCount < 0 || channel.size() != HEADER_SIZE + (long) entryCount * ENTRY_SIZE) {
+            channel.close();
+            throw new IllegalStateException("Truncated opening book " + path);
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    private long getHash(int index) {
+        return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    private int getInt(int index, int field) {
+        return buffer.getInt(HEADER_SIZE + index * ENTRY_SIZE + 8 + field * 4);
+    }
+
+    /**
+     * @return The index of the first entry of the position, -1 if the position is not in the book
+     */
+    private int findFirst(long hash) {
+        int low = 0;
+        int high = entryCount - 1;
+        int found = -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Long.compare(getHash(middle), hash);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                if (comparison == 0) {
+                    found = middle;
+                }
+                high = middle - 1;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Find the moves of the position, without allocation
+     *
+     * @param hash    - The hash of the position
+     * @param moves   - The buffer receiving the moves
+     * @param weights - The buffer receiving the weights of the moves
+     * @return The number of moves found
+     */
+    public int findMoves(long hash, int[] moves, int[] weights) {
+        int count = 0;
+
+        for (int index = findFirst(hash); index >= 0 && index < entryCount && count < moves.length && getHash(index) == hash; index++) {
+            moves[count] = getInt(index, 0);
+            weights[count] = getInt(index, 1);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @param hash - The hash of the position
+     * @return The entries of the position, empty if the position is not in the book
+     */
+    public List<OpeningBookEntry> getEntries(long hash) {
+        List<OpeningBookEntry> values = new ArrayList<>();
+
+        for (int index = findFirst(hash); index >= 0 && index < entryCount && getHash(index) == hash; index++) {
+            values.add(new OpeningBookEntry(hash, getInt(index, 0), getInt(index, 1), getInt(index, 2)));
+        }
+
+        return values;
+    }
+
+    /**
+     * @param board - The current position
+     * @return The legal move with the highest weight (then the highest count), {@link BoardMoves#NO_MOVE} if the
+     * position is not in the book
+     */
+    public int getBestMove(@NotNull ChessBoard board) {
+        long hash = board.getHash();
+        int bestMove = BoardMoves.NO_MOVE;
+        long bestScore = Long.MIN_VALUE;
+
+        for (int index = findFirst(hash); index >= 0 && index < entryCount && getHash(index) == hash; index++) {
+            int move = getInt(index, 0);
+            long score = ((long) getInt(index, 1) << 32) | getInt(index, 2);
+
+            if (score > bestScore && board.isLegalMove(move)) { //The legality protects against the hash collisions
+                bestMove = move;
+                bestScore = score;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Close the file, the mapping is released when the book is garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
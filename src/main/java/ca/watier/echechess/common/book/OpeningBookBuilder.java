@@ -0,0 +1,171 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.book;
+
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pgn.SanReader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Build an {@link OpeningBook} file from the games of the PGN archives.
+ * <p>
+ * The first plies of each game are replayed (the SAN are resolved with the {@link SanReader}) and the moves are
+ * counted by position. The entries are then sorted by hash and move, and written to the file.
+ * This class is not thread safe.
+ */
+public class OpeningBookBuilder {
+    public static final int DEFAULT_MAX_PLY = 24;
+
+    private final int maxPly;
+    private final ChessBoard board = new ChessBoard();
+    private final SanReader sanReader = new SanReader();
+    private final Map<Long, Map<Integer, int[]>> positions = new HashMap<>(); //hash -> move -> {weight, count}
+    private long gameCount;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLY);
+    }
+
+    /**
+     * @param maxPly - The number of plies of each game added to the book
+     */
+    public OpeningBookBuilder(int maxPly) {
+        assertThat(maxPly).isPositive();
+
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Add the first plies of the game to the book, the game is ignored from the first illegal move
+     *
+     * @param moves  - The moves, in SAN, from the classic starting position
+     * @param result - The result of the game, used to weight the moves
+     * @return The number of plies added
+     */
+    public int addGame(@NotNull List<String> moves, @NotNull PgnEndGameToken result) {
+        assertThat(moves).isNotNull();
+        assertThat(result).isNotNull();
+
+        board.setupStandardPosition();
+        gameCount++;
+
+        int ply = 0;
+        for (int size = Math.min(moves.size(), maxPly); ply < size; ply++) {
+            int move;
+
+            try {
+                move = sanReader.resolve(board, moves.get(ply));
+            } catch (RuntimeException | AssertionError e) {
+                break;
+            }
+
+            int[] stats = positions.computeIfAbsent(board.getHash(), key -> new HashMap<>())
+                    .computeIfAbsent(move, key -> new int[2]);
+            stats[0] += getWeight(result, board.getSideToMove());
+            stats[1]++;
+
+            board.makeMove(move);
+        }
+
+        return ply;
+    }
+
+    private static int getWeight(PgnEndGameToken result, Side side) {
+        switch (result) {
+            case WHITE_WIN:
+                return Side.WHITE.equals(side) ? 2 : 0;
+            case BLACK_WIN:
+                return Side.BLACK.equals(side) ? 2 : 0;
+            default:
+                return 1;
+        }
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Write the sorted book
+     *
+     * @param path     - The file to create (or replace)
+     * @param minCount - The minimum number of games for a move to be kept
+     * @return The number of entries written
+     * @throws IOException
+     */
+    public int write(@NotNull Path path, int minCount) throws IOException {
+        assertThat(path).isNotNull();
+
+        List<long[]> entries = new ArrayList<>();
+
+        for (Map.Entry<Long, Map<Integer, int[]>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] stats = move.getValue();
+
+                if (stats[1] >= minCount) {
+                    entries.add(new long[]{position.getKey(), move.getKey(), stats[0], stats[1]});
+                }
+            }
+        }
+
+        entries.sort((first, second) -> {
+            int value = Long.compare(first[0], second[0]);
+            return value != 0 ? value : Long.compare(first[1], second[1]);
+        });
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(OpeningBook.ENTRY_SIZE * 4096);
+            buffer.putInt(OpeningBook.MAGIC).putInt(entries.size());
+
+            for (long[] entry : entries) {
+                if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+                    writeBuffer(channel, buffer);
+                }
+
+                buffer.putLong(entry[0]).putInt((int) entry[1]).putInt((int) entry[2]).putInt((int) entry[3]);
+            }
+
+            writeBuffer(channel, buffer);
+        }
+
+        return entries.size();
+    }
+
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
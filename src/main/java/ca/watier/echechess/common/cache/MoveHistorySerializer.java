@@ -0,0 +1,114 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.pojos.MoveHistory;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Store the {@link MoveHistory} in the off-heap and disk tiers; the enums are written as ordinal bytes (-1 when null),
+ * followed by the length and the UTF-8 bytes of the extra information (-1 when null).
+ */
+public class MoveHistorySerializer implements Serializer<MoveHistory> {
+    private static final CasePosition[] POSITIONS = CasePosition.values();
+    private static final Side[] SIDES = Side.values();
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+    private static final KingStatus[] KING_STATUSES = KingStatus.values();
+    private static final int HEADER_SIZE = 10;
+
+    public MoveHistorySerializer() {
+    }
+
+    /**
+     * Used by ehcache when the serializer is configured by class
+     */
+    public MoveHistorySerializer(ClassLoader classLoader) {
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    private static <T> T valueOf(T[] values, byte ordinal) {
+        if (ordinal == -1) {
+            return null;
+        } else if (ordinal < 0 || ordinal >= values.length) {
+            throw new SerializerException("Invalid ordinal: " + ordinal);
+        }
+
+        return values[ordinal];
+    }
+
+    @Override
+    public ByteBuffer serialize(MoveHistory history) throws SerializerException {
+        String extraInfo = history.getExtraInfo();
+        byte[] extraInfoBytes = extraInfo == null ? null : extraInfo.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (extraInfoBytes == null ? 0 : extraInfoBytes.length));
+        buffer.put(ordinal(history.getFrom()));
+        buffer.put(ordinal(history.getTo()));
+        buffer.put(ordinal(history.getPlayerSide()));
+        buffer.put(ordinal(history.getMoveType()));
+        buffer.put(ordinal(history.getCurrentKingStatus()));
+        buffer.put(ordinal(history.getOtherKingStatus()));
+        buffer.putInt(extraInfoBytes == null ? -1 : extraInfoBytes.length);
+
+        if (extraInfoBytes != null) {
+            buffer.put(extraInfoBytes);
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public MoveHistory read(ByteBuffer binary) throws SerializerException {
+        ByteBuffer buffer = binary.duplicate();
+
+        try {
+            MoveHistory history = new MoveHistory(valueOf(POSITIONS, buffer.get()), valueOf(POSITIONS, buffer.get()), valueOf(SIDES, buffer.get()));
+            history.setMoveType(valueOf(MOVE_TYPES, buffer.get()));
+            history.setCurrentKingStatus(valueOf(KING_STATUSES, buffer.get()));
+            history.setOtherKingStatus(valueOf(KING_STATUSES, buffer.get()));
+
+            int length = buffer.getInt();
+            if (length >= 0) {
+                byte[] extraInfo = new byte[length];
+                buffer.get(extraInfo);
+                history.setExtraInfo(new String(extraInfo, StandardCharsets.UTF_8));
+            }
+
+            return history;
+        } catch (BufferUnderflowException e) {
+            throw new SerializerException("Truncated move history", e);
+        }
+    }
+
+    @Override
+    public boolean equals(MoveHistory history, ByteBuffer binary) throws SerializerException {
+        return serialize(history).equals(binary);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.enums.ChessEventMessage;
+import ca.watier.echechess.common.interfaces.GameEventListener;
+import ca.watier.echechess.common.pojos.VersionedValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A local, size bounded (least recently used) cache of the values of the shared store, by game UUID.
+ * <p>
+ * The entries are stamped with an increasing version when loaded. The games are invalidated by the {@link #INVALIDATING_EVENTS}
+ * of the event stream; a load running during the invalidation of its game is returned but not cached (the invalidation
+ * versions are kept by stripes of games, a collision only skips the caching of a value).
+ *
+ * @param <V> The type of the values
+ */
+public class NearCache<V> implements GameEventListener {
+    public static final Set<ChessEventMessage> INVALIDATING_EVENTS = EnumSet.of(ChessEventMessage.MOVE,
+            ChessEventMessage.REFRESH_BOARD, ChessEventMessage.GAME_WON);
+    private static final int STRIPES = 1024;
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(NearCache.class);
+
+    private final Cache<UUID, VersionedValue<V>> entries;
+    private final Function<UUID, V> loader;
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param maximumSize - The maximum number of games
+     * @param loader      - Fetch the value of a game from the shared store, can return null when absent
+     */
+    public NearCache(long maximumSize, @NotNull Function<UUID, V> loader) {
+        assertThat(maximumSize).isPositive();
+        assertThat(loader).isNotNull();
+
+        this.loader = loader;
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    private static int stripeOf(UUID gameUuid) {
+        int hash = gameUuid.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * @return The value of the game, loaded from the shared store if not cached (null when absent from the store)
+     */
+    public V get(@NotNull UUID gameUuid) {
+        VersionedValue<V> entry = getEntry(gameUuid);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * @return The value and its version, loaded from the shared store if not cached (null when absent from the store)
+     */
+    public VersionedValue<V> getEntry(@NotNull UUID gameUuid) {
+        assertThat(gameUuid).isNotNull();
+
+        VersionedValue<V> entry = entries.getIfPresent(gameUuid);
+        if (entry != null) {
+            return entry;
+        }
+
+        long version = versions.incrementAndGet();
+        V value = loader.apply(gameUuid);
+
+        if (value == null) {
+            return null;
+        }
+
+        entry = new VersionedValue<>(value, version);
+        cache(gameUuid, entry);
+
+        return entry;
+    }
+
+    /**
+     * Cache a value written to the shared store by this node
+     *
+     * @return The version of the value
+     */
+    public long put(@NotNull UUID gameUuid, @NotNull V value) {
+        assertThat(gameUuid).isNotNull();
+        assertThat(value).isNotNull();
+
+        long version = versions.incrementAndGet();
+        cache(gameUuid, new VersionedValue<>(value, version));
+
+        return version;
+    }
+
+    /**
+     * @return The version of the cached value, -1 if not cached
+     */
+    public long getVersion(@NotNull UUID gameUuid) {
+        VersionedValue<V> entry = entries.getIfPresent(gameUuid);
+        return entry == null ? -1 : entry.getVersion();
+    }
+
+    public void invalidate(@NotNull UUID gameUuid) {
+        assertThat(gameUuid).isNotNull();
+
+        invalidations.accumulateAndGet(stripeOf(gameUuid), versions.incrementAndGet(), Math::max);
+        entries.invalidate(gameUuid);
+        invalidationCount.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        long version = versions.incrementAndGet();
+
+        for (int i = 0; i < STRIPES; i++) {
+            invalidations.accumulateAndGet(i, version, Math::max);
+        }
+
+        entries.invalidateAll();
+        invalidationCount.incrementAndGet();
+    }
+
+    @Override
+    public void onGameEvent(String gameUuid, ChessEventMessage message) {
+        if (gameUuid == null || !INVALIDATING_EVENTS.contains(message)) {
+            return;
+        }
+
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(gameUuid);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Ignoring the {} event of the invalid game id {}", message, gameUuid);
+            return;
+        }
+
+        invalidate(uuid);
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The hits, misses and evictions of the cache
+     */
+    public CacheStats getStats() {
+        return entries.stats();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Cache the entry unless the game was invalidated after the version of the entry; checked again after the put, in
+     * case of an invalidation between the check and the put
+     */
+    private void cache(UUID gameUuid, VersionedValue<V> entry) {
+        int stripe = stripeOf(gameUuid);
+
+        if (invalidations.get(stripe) > entry.getVersion()) {
+            return;
+        }
+
+        VersionedValue<V> current = entries.asMap().merge(gameUuid, entry,
+                (previous, next) -> previous.getVersion() > next.getVersion() ? previous : next);
+
+        if (current == entry && invalidations.get(stripe) > entry.getVersion()) {
+            entries.asMap().remove(gameUuid, entry);
+        }
+    }
+}
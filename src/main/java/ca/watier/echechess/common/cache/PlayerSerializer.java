@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.sessions.Player;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Store the {@link Player} in the off-heap and disk tiers with its compact binary form
+ */
+public class PlayerSerializer implements Serializer<Player> {
+
+    public PlayerSerializer() {
+    }
+
+    /**
+     * Used by ehcache when the serializer is configured by class
+     */
+    public PlayerSerializer(ClassLoader classLoader) {
+    }
+
+    @Override
+    public ByteBuffer serialize(Player player) throws SerializerException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            player.writeTo(out);
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    @Override
+    public Player read(ByteBuffer binary) throws SerializerException {
+        Player player = new Player();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(toBytes(binary)))) {
+            player.readFrom(in);
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+
+        return player;
+    }
+
+    @Override
+    public boolean equals(Player player, ByteBuffer binary) throws SerializerException {
+        return serialize(player).equals(binary);
+    }
+
+    private static byte[] toBytes(ByteBuffer binary) {
+        byte[] bytes = new byte[binary.remaining()];
+        binary.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import org.ehcache.core.spi.service.StatisticsService;
+
+/**
+ * Create the {@link StatisticsService} of the {@link TieredCacheBuilder}.
+ * <p>
+ * Ehcache exposes the {@link StatisticsService} interface but not an implementation or a builder to enable it; the only
+ * implementation is the internal {@code DefaultStatisticsService}. It's the only use of the ehcache internals, and it's
+ * loaded by name so a change of the internal class fails here, with a clear message, instead of when the builder is
+ * loaded.
+ */
+final class StatisticsServices {
+    private static final String DEFAULT_STATISTICS_SERVICE = "org.ehcache.core.internal.statistics.DefaultStatisticsService";
+
+    private StatisticsServices() {
+    }
+
+    /**
+     * @throws IllegalStateException when the implementation of ehcache is not available
+     */
+    static StatisticsService create() {
+        try {
+            return Class.forName(DEFAULT_STATISTICS_SERVICE, true, StatisticsService.class.getClassLoader())
+                    .asSubclass(StatisticsService.class)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("The statistics service of ehcache is not available", e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.sessions.Player;
+import ca.watier.echechess.common.utils.CacheConstants;
+import org.ehcache.CacheManager;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.expiry.Expiry;
+import org.ehcache.spi.serialization.Serializer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Build a cache manager with tiered caches: the most used entries on the heap, the others off-heap and (optionally) on
+ * the local disk, with a size and an expiry per cache.
+ * <pre>
+ * TieredCaches caches = new TieredCacheBuilder()
+ *         .withDiskDirectory(new File("/var/cache/echechess"))
+ *         .withUiSessionCache(10_000, 256, 2048)
+ *         .withCache("gameHistoryCache", UUID.class, MoveHistory.class, 1_000, 64, 0, expiry, new MoveHistorySerializer())
+ *         .withStatistics()
+ *         .build();
+ * </pre>
+ */
+public class TieredCacheBuilder {
+    private final Map<String, CacheConfiguration<?, ?>> configurations = new LinkedHashMap<>();
+    private File diskDirectory;
+    private boolean usesDisk;
+    private boolean statistics;
+
+    /**
+     * @param directory - The directory of the disk tier, required when a cache has a disk size
+     */
+    public TieredCacheBuilder withDiskDirectory(@NotNull File directory) {
+        assertThat(directory).isNotNull();
+
+        this.diskDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Collect the statistics of the caches, available with {@link TieredCaches#getStatistics(String)}; uses the internal
+     * implementation of ehcache (see {@link StatisticsServices})
+     */
+    public TieredCacheBuilder withStatistics() {
+        this.statistics = true;
+        return this;
+    }
+
+    /**
+     * @param name            - The name of the cache
+     * @param heapEntries     - The number of entries on the heap
+     * @param offHeapMb       - The size of the off-heap tier, 0 to disable it
+     * @param diskMb          - The size of the disk tier, 0 to disable it (the entries are not kept after a restart)
+     * @param expiry          - The expiry of the entries
+     * @param valueSerializer - The serializer of the values in the off-heap and disk tiers, null to use the Java
+     *                        serialization
+     */
+    public <K, V> TieredCacheBuilder withCache(@NotNull String name, @NotNull Class<K> keyType, @NotNull Class<V> valueType,
+                                               long heapEntries, long offHeapMb, long diskMb,
+                                               @NotNull Expiry<Object, Object> expiry, Serializer<V> valueSerializer) {
+        assertThat(name).isNotEmpty();
+        assertThat(keyType).isNotNull();
+        assertThat(valueType).isNotNull();
+        assertThat(heapEntries).isPositive();
+        assertThat(offHeapMb).isNotNegative();
+        assertThat(diskMb).isNotNegative();
+        assertThat(expiry).isNotNull();
+
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(heapEntries, EntryUnit.ENTRIES);
+
+        if (offHeapMb > 0) {
+            resourcePools = resourcePools.offheap(offHeapMb, MemoryUnit.MB);
+        }
+
+        if (diskMb > 0) {
+            resourcePools = resourcePools.disk(diskMb, MemoryUnit.MB, false);
+            usesDisk = true;
+        }
+
+        CacheConfigurationBuilder<K, V> configuration = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(keyType, valueType, resourcePools)
+                .withExpiry(expiry);
+
+        if (valueSerializer != null) {
+            configuration = configuration.withValueSerializer(valueSerializer);
+        }
+
+        configurations.put(name, configuration.build());
+        return this;
+    }
+
+    /**
+     * Add the {@link CacheConstants#CACHE_UI_SESSION_NAME} cache, with the players by session id and the
+     * {@link CacheConstants#CACHE_UI_SESSION_EXPIRY}
+     */
+    public TieredCacheBuilder withUiSessionCache(long heapEntries, long offHeapMb, long diskMb) {
+        return withCache(CacheConstants.CACHE_UI_SESSION_NAME, String.class, Player.class, heapEntries, offHeapMb, diskMb,
+                CacheConstants.CACHE_UI_SESSION_EXPIRY, new PlayerSerializer());
+    }
+
+    /**
+     * Create and initialize the cache manager
+     *
+     * @throws IllegalStateException when a cache has a disk tier without a disk directory
+     */
+    public TieredCaches build() {
+        if (usesDisk && diskDirectory == null) {
+            throw new IllegalStateException("A disk directory is required by the disk tier");
+        }
+
+        CacheManagerBuilder<? extends CacheManager> builder = diskDirectory == null ?
+                CacheManagerBuilder.newCacheManagerBuilder() :
+                CacheManagerBuilder.newCacheManagerBuilder().with(CacheManagerBuilder.persistence(diskDirectory));
+
+        for (Map.Entry<String, CacheConfiguration<?, ?>> entry : configurations.entrySet()) {
+            builder = builder.withCache(entry.getKey(), entry.getValue());
+        }
+
+        StatisticsService statisticsService = null;
+        if (statistics) {
+            statisticsService = StatisticsServices.create();
+            builder = builder.using(statisticsService);
+        }
+
+        return new TieredCaches(builder.build(true), statisticsService);
+    }
+}
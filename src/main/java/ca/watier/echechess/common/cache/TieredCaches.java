@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The caches created by a {@link TieredCacheBuilder}
+ */
+public class TieredCaches implements Closeable {
+    private final CacheManager cacheManager;
+    private final StatisticsService statisticsService;
+
+    TieredCaches(@NotNull CacheManager cacheManager, StatisticsService statisticsService) {
+        assertThat(cacheManager).isNotNull();
+
+        this.cacheManager = cacheManager;
+        this.statisticsService = statisticsService;
+    }
+
+    /**
+     * @return The cache, null if there is no cache with this name
+     */
+    public <K, V> Cache<K, V> getCache(@NotNull String name, @NotNull Class<K> keyType, @NotNull Class<V> valueType) {
+        return cacheManager.getCache(name, keyType, valueType);
+    }
+
+    /**
+     * @return The hits, misses, evictions and expirations of the cache
+     * @throws IllegalStateException when the statistics are not enabled
+     */
+    public CacheStatistics getStatistics(@NotNull String name) {
+        if (statisticsService == null) {
+            throw new IllegalStateException("The statistics are not enabled");
+        }
+
+        return statisticsService.getCacheStatistics(name);
+    }
+
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    @Override
+    public void close() {
+        cacheManager.close();
+    }
+}
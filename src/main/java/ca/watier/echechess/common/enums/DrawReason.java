@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.enums;
+
+/**
+ * The reasons ending a game with a {@link PgnEndGameToken#DRAWN}, based on the repetitions and the number of moves
+ * without capture or pawn move.
+ */
+public enum DrawReason {
+    NONE(PgnEndGameToken.STILL_IN_PROGRESS, false),
+    THREEFOLD_REPETITION(PgnEndGameToken.DRAWN, false),
+    FIFTY_MOVE_RULE(PgnEndGameToken.DRAWN, false),
+    FIVEFOLD_REPETITION(PgnEndGameToken.DRAWN, true),
+    SEVENTY_FIVE_MOVE_RULE(PgnEndGameToken.DRAWN, true);
+
+    private final PgnEndGameToken endGameToken;
+    private final boolean automatic;
+
+    DrawReason(PgnEndGameToken endGameToken, boolean automatic) {
+        this.endGameToken = endGameToken;
+        this.automatic = automatic;
+    }
+
+    public PgnEndGameToken getEndGameToken() {
+        return endGameToken;
+    }
+
+    /**
+     * @return True if the game ends without a claim from a player (fivefold repetition and seventy-five move rule)
+     */
+    public boolean isAutomatic() {
+        return automatic;
+    }
+}
@@ -19,27 +19,42 @@ package ca.watier.echechess.common.enums;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public enum PgnEndGameToken {
     WHITE_WIN("1-0"), BLACK_WIN("0-1"), DRAWN("1/2-1/2"), STILL_IN_PROGRESS("*"), UNKNOWN("\0");
 
+    private static final TokenHashTable<PgnEndGameToken> BY_ENDING;
+
+    static {
+        Map<String, PgnEndGameToken> endings = new LinkedHashMap<>();
+
+        for (PgnEndGameToken token : values()) {
+            if (token != UNKNOWN) {
+                endings.put(token.ending, token);
+            }
+        }
+
+        BY_ENDING = new TokenHashTable<>(endings);
+    }
+
     private final String ending;
 
     PgnEndGameToken(String ending) {
         this.ending = ending;
     }
 
+    /**
+     * Kept for the binary compatibility, see {@link #getEndGameTokenByAction(CharSequence)}
+     */
     public static PgnEndGameToken getEndGameTokenByAction(@NotNull String action) {
+        return getEndGameTokenByAction((CharSequence) action);
+    }
 
-        PgnEndGameToken token = UNKNOWN;
-
-        for (PgnEndGameToken pgnEndGameToken : values()) {
-            if (pgnEndGameToken.ending.equals(action)) {
-                token = pgnEndGameToken;
-                break;
-            }
-        }
-
-        return token;
+    public static PgnEndGameToken getEndGameTokenByAction(@NotNull CharSequence action) {
+        PgnEndGameToken token = BY_ENDING.get(action);
+        return token == null ? UNKNOWN : token;
     }
 
     public static boolean isGameEnded(PgnEndGameToken endGameToken) {
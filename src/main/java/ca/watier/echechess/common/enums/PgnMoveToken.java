@@ -21,7 +21,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static ca.watier.echechess.common.enums.CasePosition.*;
 
@@ -38,56 +40,110 @@ public enum PgnMoveToken {
     QUEENSIDE_CASTLING_CHECKMATE("O-O-O#"),
     NORMAL_MOVE("\0");
 
+    private static final PgnMoveToken[] VALUES = values();
+    private static final TokenHashTable<PgnMoveToken> CASTLING_TOKENS;
+
+    static {
+        Map<String, PgnMoveToken> castling = new LinkedHashMap<>();
+
+        for (PgnMoveToken token : new PgnMoveToken[]{QUEENSIDE_CASTLING, KINGSIDE_CASTLING, QUEENSIDE_CASTLING_CHECK,
+                KINGSIDE_CASTLING_CHECK, QUEENSIDE_CASTLING_CHECKMATE, KINGSIDE_CASTLING_CHECKMATE}) {
+            for (String current : token.chars) {
+                castling.put(current, token);
+            }
+        }
+
+        CASTLING_TOKENS = new TokenHashTable<>(castling);
+    }
+
     private List<String> chars = new ArrayList<>();
+    private final String[] charArray;
 
     PgnMoveToken(@NotNull String... chars) {
         if (chars.length > 0) {
             this.chars.addAll(Arrays.asList(chars));
         }
+
+        this.charArray = chars.clone();
     }
 
+    /**
+     * Kept for the binary compatibility, see {@link #getPieceMovesFromLetter(CharSequence)}
+     */
     public static List<PgnMoveToken> getPieceMovesFromLetter(@NotNull String action) {
+        return getPieceMovesFromLetter((CharSequence) action);
+    }
+
+    public static List<PgnMoveToken> getPieceMovesFromLetter(@NotNull CharSequence action) {
         List<PgnMoveToken> moves = new ArrayList<>();
+        PgnMoveToken castling = CASTLING_TOKENS.get(action);
+
+        if (castling != null) {
+            moves.add(castling);
+            return moves;
+        }
 
-        if (QUEENSIDE_CASTLING.getChars().contains(action)) {  //The Queen side casting token contains also the king side (O-O in O-O-O...)
-            moves.add(QUEENSIDE_CASTLING);
-        } else if (KINGSIDE_CASTLING.getChars().contains(action)) {
-            moves.add(KINGSIDE_CASTLING);
-        } else if (QUEENSIDE_CASTLING_CHECK.getChars().contains(action)) {
-            moves.add(QUEENSIDE_CASTLING_CHECK);
-        } else if (KINGSIDE_CASTLING_CHECK.getChars().contains(action)) {
-            moves.add(KINGSIDE_CASTLING_CHECK);
-        } else if (QUEENSIDE_CASTLING_CHECKMATE.getChars().contains(action)) {
-            moves.add(QUEENSIDE_CASTLING_CHECKMATE);
-        } else if (KINGSIDE_CASTLING_CHECKMATE.getChars().contains(action)) {
-            moves.add(KINGSIDE_CASTLING_CHECKMATE);
-        } else {
-            for (PgnMoveToken pgnMoveToken : values()) {
-                for (String current : pgnMoveToken.getChars()) {
-                    if (action.contains(current)) {
-                        switch (pgnMoveToken) { //The moves that contain a "normal move"
-                            case CAPTURE:
-                            case CHECK:
-                            case CHECKMATE:
-                            case PAWN_PROMOTION:
-                                if (!moves.contains(NORMAL_MOVE)) {
-                                    moves.add(NORMAL_MOVE);
-                                }
-                                break;
-                        }
-                        moves.add(pgnMoveToken);
+        //The ASCII characters of the action, as a 128 bits set
+        long lowChars = 0;
+        long highChars = 0;
+        for (int i = 0, length = action.length(); i < length; i++) {
+            char current = action.charAt(i);
+
+            if (current < 64) {
+                lowChars |= 1L << current;
+            } else if (current < 128) {
+                highChars |= 1L << (current - 64);
+            }
+        }
+
+        for (PgnMoveToken pgnMoveToken : VALUES) {
+            for (String current : pgnMoveToken.charArray) {
+                if (contains(action, current, lowChars, highChars)) {
+                    switch (pgnMoveToken) { //The moves that contain a "normal move"
+                        case CAPTURE:
+                        case CHECK:
+                        case CHECKMATE:
+                        case PAWN_PROMOTION:
+                            if (!moves.contains(NORMAL_MOVE)) {
+                                moves.add(NORMAL_MOVE);
+                            }
+                            break;
                     }
+                    moves.add(pgnMoveToken);
                 }
             }
+        }
 
-            if (moves.isEmpty()) {
-                moves.add(NORMAL_MOVE);
-            }
+        if (moves.isEmpty()) {
+            moves.add(NORMAL_MOVE);
         }
 
         return moves;
     }
 
+    private static boolean contains(CharSequence action, String token, long lowChars, long highChars) {
+        char first = token.charAt(0);
+        boolean hasFirst = first < 64 ? (lowChars & (1L << first)) != 0 : first < 128 && (highChars & (1L << (first - 64))) != 0;
+
+        if (!hasFirst || token.length() == 1) {
+            return hasFirst;
+        }
+
+        for (int start = 0, last = action.length() - token.length(); start <= last; start++) {
+            int i = 0;
+
+            while (i < token.length() && action.charAt(start + i) == token.charAt(i)) {
+                i++;
+            }
+
+            if (i == token.length()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public List<String> getChars() {
         return chars;
     }
@@ -30,6 +30,25 @@ public enum PgnPieceFound {
     KNIGHT('N', Pieces.B_KNIGHT, Pieces.W_KNIGHT),
     PAWN('\0', Pieces.B_PAWN, Pieces.W_PAWN);
 
+    private static final PgnPieceFound[] BY_LETTER = new PgnPieceFound[128];
+    private static final Pieces[][] PIECES_BY_SIDE = new Pieces[values().length][Side.values().length];
+
+    static {
+        for (PgnPieceFound pgnPieceFound : values()) {
+            if (pgnPieceFound != PAWN) {
+                BY_LETTER[pgnPieceFound.letter] = pgnPieceFound;
+            }
+
+            for (Pieces piece : pgnPieceFound.pieces) {
+                Pieces[] bySide = PIECES_BY_SIDE[pgnPieceFound.ordinal()];
+
+                if (bySide[piece.getSide().ordinal()] == null) {
+                    bySide[piece.getSide().ordinal()] = piece;
+                }
+            }
+        }
+    }
+
     private char letter;
     private List<Pieces> pieces = new ArrayList<>();
 
@@ -41,29 +60,34 @@ public enum PgnPieceFound {
         }
     }
 
+    /**
+     * Kept for the binary compatibility, see {@link #getPieceFromAction(CharSequence)}
+     */
     public static PgnPieceFound getPieceFromAction(@NotNull String action) {
-        PgnPieceFound pgnPieceFoundFromLetter = PAWN;
+        return getPieceFromAction((CharSequence) action);
+    }
 
-        for (byte b : action.getBytes()) {
-            PgnPieceFound currentPgnPieceFound = getPieceFromLetter((char) b);
+    /**
+     * @return The piece of the first piece letter of the action, {@link #PAWN} if there is none
+     */
+    public static PgnPieceFound getPieceFromAction(@NotNull CharSequence action) {
+        for (int i = 0, length = action.length(); i < length; i++) {
+            char letter = action.charAt(i);
 
-            if (!PAWN.equals(currentPgnPieceFound)) {
-                pgnPieceFoundFromLetter = currentPgnPieceFound;
-                break;
+            if (letter < BY_LETTER.length && BY_LETTER[letter] != null) {
+                return BY_LETTER[letter];
             }
         }
 
-        return pgnPieceFoundFromLetter;
+        return PAWN;
     }
 
-    private static PgnPieceFound getPieceFromLetter(char letter) {
-        for (PgnPieceFound pgnPieceFound : PgnPieceFound.values()) {
-            if (pgnPieceFound.getLetter() == letter) {
-                return pgnPieceFound;
-            }
-        }
-
-        return PgnPieceFound.PAWN;
+    /**
+     * @return The piece of the letter, {@link #PAWN} if not a piece letter
+     */
+    public static PgnPieceFound getPieceFromLetter(char letter) {
+        PgnPieceFound pgnPieceFound = letter < BY_LETTER.length ? BY_LETTER[letter] : null;
+        return pgnPieceFound == null ? PAWN : pgnPieceFound;
     }
 
     public char getLetter() {
@@ -71,14 +95,7 @@ public enum PgnPieceFound {
     }
 
     public Pieces getPieceBySide(Side side) {
-        Pieces value = null;
-        for (Pieces piece : pieces) {
-            if (piece.getSide() == side) {
-                value = piece;
-                break;
-            }
-        }
-        return value;
+        return side == null ? null : PIECES_BY_SIDE[ordinal()][side.ordinal()];
     }
 
     public List<Pieces> getPieces() {
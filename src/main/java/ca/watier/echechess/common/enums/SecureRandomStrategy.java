@@ -0,0 +1,52 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.enums;
+
+/**
+ * The source of the random numbers of the keystores; each thread uses its own instance.
+ */
+public enum SecureRandomStrategy {
+    /**
+     * The DRBG of the JDK (NIST SP 800-90Ar1), seeded once per thread
+     */
+    DRBG("DRBG"),
+    /**
+     * Read from the non-blocking source of the OS (/dev/urandom), not available on all the platforms
+     */
+    NATIVE_NON_BLOCKING("NativePRNGNonBlocking"),
+    /**
+     * The legacy SHA1PRNG
+     */
+    SHA1PRNG("SHA1PRNG"),
+    /**
+     * The default SecureRandom of the JVM
+     */
+    DEFAULT(null);
+
+    private final String algorithm;
+
+    SecureRandomStrategy(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @return The algorithm name of the SecureRandom, null for the default
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+}
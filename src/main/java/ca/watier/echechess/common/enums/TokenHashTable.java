@@ -0,0 +1,104 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.enums;
+
+import java.util.Map;
+
+/**
+ * An immutable perfect hash table of the tokens: the seed of the hash is chosen when the table is built so each token
+ * has its own bucket, a lookup is one hash and one comparison, without allocation.
+ *
+ * @param <E> The type of the values
+ */
+final class TokenHashTable<E> {
+    private static final int MAX_SEED = 1 << 16;
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int seed;
+
+    TokenHashTable(Map<String, E> entries) {
+        int size = Integer.highestOneBit(Math.max(entries.size(), 1)) << 1;
+
+        while (true) {
+            for (int currentSeed = 1; currentSeed < MAX_SEED; currentSeed++) {
+                String[] currentKeys = new String[size];
+
+                if (fill(entries, currentKeys, size - 1, currentSeed)) {
+                    this.keys = currentKeys;
+                    this.values = new Object[size];
+                    this.mask = size - 1;
+                    this.seed = currentSeed;
+
+                    for (Map.Entry<String, E> entry : entries.entrySet()) {
+                        values[hash(entry.getKey(), seed) & mask] = entry.getValue();
+                    }
+
+                    return;
+                }
+            }
+
+            size <<= 1;
+        }
+    }
+
+    private static boolean fill(Map<String, ?> entries, String[] keys, int mask, int seed) {
+        for (String key : entries.keySet()) {
+            int bucket = hash(key, seed) & mask;
+
+            if (keys[bucket] != null) {
+                return false;
+            }
+
+            keys[bucket] = key;
+        }
+
+        return true;
+    }
+
+    private static int hash(CharSequence value, int seed) {
+        int hash = seed * 0x9E3779B9;
+
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 15);
+    }
+
+    /**
+     * @return The value of the token, null if not a token of the table
+     */
+    @SuppressWarnings("unchecked")
+    E get(CharSequence value) {
+        int bucket = hash(value, seed) & mask;
+        String key = keys[bucket];
+
+        if (key == null || key.length() != value.length()) {
+            return null;
+        }
+
+        for (int i = 0, length = key.length(); i < length; i++) {
+            if (key.charAt(i) != value.charAt(i)) {
+                return null;
+            }
+        }
+
+        return (E) values[bucket];
+    }
+}
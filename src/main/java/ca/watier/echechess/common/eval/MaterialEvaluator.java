@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.eval;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.Evaluator;
+
+/**
+ * Evaluate the material only, with the {@link Pieces#getPoint()} of the pieces
+ */
+public class MaterialEvaluator implements Evaluator {
+    public static final int PAWN_VALUE = 100;
+
+    @Override
+    public int evaluate(ChessBoard board) {
+        int score = (board.getWhiteMaterial() - board.getBlackMaterial()) * PAWN_VALUE;
+        return Side.WHITE.equals(board.getSideToMove()) ? score : -score;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.eval;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Ranks;
+import ca.watier.echechess.common.enums.Side;
+import org.jetbrains.annotations.NotNull;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Immutable middlegame and endgame piece-square tables, with the values of the pieces included.
+ * <p>
+ * The tables are given by piece type (the {@link Pieces} ordinal % 6: king, queen, rook, bishop, knight, pawn) for the
+ * white side, indexed by {@link CasePosition} ordinal; the black values are mirrored with the {@link Ranks} seen by
+ * black and negated, so a score is always positive for white. The {@link ca.watier.echechess.common.game.ChessBoard}
+ * keeps the sums up to date on each move.
+ */
+public final class PieceSquareTables {
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] MIDDLE_GAME_VALUES = {0, 900, 500, 330, 320, 100};
+    private static final int[] END_GAME_VALUES = {0, 900, 520, 320, 300, 120};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 2, 1, 1, 0};
+
+    private static final int[] KING_MIDDLE_GAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[] KING_END_GAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] PAWN_MIDDLE_GAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] PAWN_END_GAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final PieceSquareTables DEFAULT = new PieceSquareTables(MIDDLE_GAME_VALUES, END_GAME_VALUES,
+            new int[][]{KING_MIDDLE_GAME, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_MIDDLE_GAME},
+            new int[][]{KING_END_GAME, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_END_GAME},
+            PHASE_WEIGHTS);
+
+    private final int[][] middleGame = new int[Pieces.values().length][64];
+    private final int[][] endGame = new int[Pieces.values().length][64];
+    private final int[] phases = new int[Pieces.values().length];
+
+    /**
+     * @param middleGameValues - The middlegame values, by piece type
+     * @param endGameValues    - The endgame values, by piece type
+     * @param middleGameTables - The middlegame tables of the white pieces, by piece type
+     * @param endGameTables    - The endgame tables of the white pieces, by piece type
+     * @param phaseWeights     - The weight of each piece type in the game phase ({@link #MAX_PHASE} for all the pieces
+     *                         of the classic starting position)
+     */
+    public PieceSquareTables(@NotNull int[] middleGameValues, @NotNull int[] endGameValues, @NotNull int[][] middleGameTables,
+                             @NotNull int[][] endGameTables, @NotNull int[] phaseWeights) {
+        assertThat(middleGameValues).hasSize(6);
+        assertThat(endGameValues).hasSize(6);
+        assertThat(middleGameTables).hasSize(6);
+        assertThat(endGameTables).hasSize(6);
+        assertThat(phaseWeights).hasSize(6);
+
+        for (Pieces piece : Pieces.values()) {
+            int type = piece.ordinal() % 6;
+            boolean isWhite = Side.WHITE.equals(piece.getSide());
+            int sign = isWhite ? 1 : -1;
+            phases[piece.ordinal()] = phaseWeights[type];
+
+            for (CasePosition position : CasePosition.values()) {
+                int square = isWhite ? position.ordinal() : mirror(position);
+
+                middleGame[piece.ordinal()][position.ordinal()] = sign * (middleGameValues[type] + middleGameTables[type][square]);
+                endGame[piece.ordinal()][position.ordinal()] = sign * (endGameValues[type] + endGameTables[type][square]);
+            }
+        }
+    }
+
+    /**
+     * @return The tables with the default values
+     */
+    public static PieceSquareTables getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return The square of the white table matching a black piece on the position
+     */
+    private static int mirror(CasePosition position) {
+        Ranks rank = Ranks.getRank(position, Side.BLACK);
+        return (7 - rank.ordinal()) * 8 + position.getColPos() - 1;
+    }
+
+    /**
+     * @return The middlegame value of the piece on the square, positive for white
+     */
+    public int getMiddleGame(Pieces piece, int square) {
+        return middleGame[piece.ordinal()][square];
+    }
+
+    /**
+     * @return The endgame value of the piece on the square, positive for white
+     */
+    public int getEndGame(Pieces piece, int square) {
+        return endGame[piece.ordinal()][square];
+    }
+
+    public int getPhase(Pieces piece) {
+        return phases[piece.ordinal()];
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.eval;
+
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.Evaluator;
+import org.jetbrains.annotations.NotNull;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Blend the middlegame and endgame scores of the {@link PieceSquareTables} with the game phase. The scores are updated
+ * by the board on each move, so the evaluation is a few operations.
+ */
+public class TaperedEvaluator implements Evaluator {
+    private final PieceSquareTables tables;
+
+    public TaperedEvaluator() {
+        this(PieceSquareTables.getDefault());
+    }
+
+    public TaperedEvaluator(@NotNull PieceSquareTables tables) {
+        assertThat(tables).isNotNull();
+
+        this.tables = tables;
+    }
+
+    @Override
+    public void prepare(ChessBoard board) {
+        if (board.getPieceSquareTables() != tables) {
+            board.setPieceSquareTables(tables);
+        }
+    }
+
+    @Override
+    public int evaluate(ChessBoard board) {
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (board.getMiddleGameScore() * phase + board.getEndGameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+
+        return Side.WHITE.equals(board.getSideToMove()) ? score : -score;
+    }
+
+    public PieceSquareTables getTables() {
+        return tables;
+    }
+}
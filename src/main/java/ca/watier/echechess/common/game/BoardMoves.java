@@ -0,0 +1,93 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+
+/**
+ * Helpers to pack a move into a single int, so the {@link ChessBoard} and the move lists never allocate.
+ * <p>
+ * Layout: bits 0-5 = from square, bits 6-11 = to square, bits 12-15 = promotion piece (ordinal + 1, 0 = none),
+ * bits 16-19 = {@link MoveType} ordinal. The squares are the {@link CasePosition} ordinals (A8 = 0, H1 = 63).
+ */
+public final class BoardMoves {
+    public static final int NO_MOVE = 0;
+
+    private static final Pieces[] PIECES = Pieces.values();
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+    private static final CasePosition[] POSITIONS = CasePosition.values();
+
+    private BoardMoves() {
+    }
+
+    public static int of(int from, int to, MoveType moveType) {
+        return from | (to << 6) | (moveType.ordinal() << 16);
+    }
+
+    public static int of(CasePosition from, CasePosition to, MoveType moveType) {
+        return of(from.ordinal(), to.ordinal(), moveType);
+    }
+
+    public static int ofPromotion(int from, int to, Pieces promotion) {
+        return of(from, to, MoveType.PAWN_PROMOTION) | ((promotion.ordinal() + 1) << 12);
+    }
+
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static CasePosition getFromPosition(int move) {
+        return POSITIONS[getFrom(move)];
+    }
+
+    public static CasePosition getToPosition(int move) {
+        return POSITIONS[getTo(move)];
+    }
+
+    public static MoveType getMoveType(int move) {
+        return MOVE_TYPES[(move >>> 16) & 0xF];
+    }
+
+    /**
+     * @param move - The encoded move
+     * @return The piece chosen for the promotion, null if the move is not a promotion
+     */
+    public static Pieces getPromotion(int move) {
+        int value = (move >>> 12) & 0xF;
+        return value == 0 ? null : PIECES[value - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> 12) & 0xF) != 0;
+    }
+
+    public static String toString(int move) {
+        if (move == NO_MOVE) {
+            return "-";
+        }
+
+        Pieces promotion = getPromotion(move);
+        return getFromPosition(move).name().toLowerCase() + getToPosition(move).name().toLowerCase() +
+                (promotion != null ? "=" + promotion.name() : "");
+    }
+}
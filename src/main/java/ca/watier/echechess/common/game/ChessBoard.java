@@ -0,0 +1,1196 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.eval.PieceSquareTables;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A mutable board, the moves are played with {@link #makeMove(int)} and reverted with {@link #unmakeMove()}.
+ * <p>
+ * The state needed to revert a move (captured piece, castling rights, en passant square, hash, material, piece-square
+ * scores) is kept in a preallocated undo stack, trying a move does not allocate. This class is not thread safe, use one
+ * board per thread.
+ * <p>
+ * The squares are the {@link CasePosition} ordinals (A8 = 0, H1 = 63) and the moves are encoded with {@link BoardMoves}.
+ */
+public class ChessBoard {
+    public static final int NO_SQUARE = -1;
+    public static final int WHITE_KING_SIDE_CASTLING = 1;
+    public static final int WHITE_QUEEN_SIDE_CASTLING = 2;
+    public static final int BLACK_KING_SIDE_CASTLING = 4;
+    public static final int BLACK_QUEEN_SIDE_CASTLING = 8;
+    public static final int ALL_CASTLING = 15;
+    public static final int MAX_MOVES = 256;
+    public static final int DEFAULT_STACK_SIZE = 1024;
+
+    private static final int BLACK_INDEX = Side.BLACK.ordinal();
+    private static final int WHITE_INDEX = Side.WHITE.ordinal();
+
+    //Piece types, from the Pieces ordinal (ordinal % 6)
+    private static final int KING = 0;
+    private static final int QUEEN = 1;
+    private static final int ROOK = 2;
+    private static final int BISHOP = 3;
+    private static final int KNIGHT = 4;
+    private static final int PAWN = 5;
+
+    private static final int A8 = CasePosition.A8.ordinal();
+    private static final int C8 = CasePosition.C8.ordinal();
+    private static final int D8 = CasePosition.D8.ordinal();
+    private static final int E8 = CasePosition.E8.ordinal();
+    private static final int F8 = CasePosition.F8.ordinal();
+    private static final int G8 = CasePosition.G8.ordinal();
+    private static final int H8 = CasePosition.H8.ordinal();
+    private static final int A1 = CasePosition.A1.ordinal();
+    private static final int C1 = CasePosition.C1.ordinal();
+    private static final int D1 = CasePosition.D1.ordinal();
+    private static final int E1 = CasePosition.E1.ordinal();
+    private static final int F1 = CasePosition.F1.ordinal();
+    private static final int G1 = CasePosition.G1.ordinal();
+    private static final int H1 = CasePosition.H1.ordinal();
+
+    //N, S, E, W (rook) then NE, NW, SE, SW (bishop)
+    private static final int[] DIRECTION_FILE = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] DIRECTION_RANK = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[][] KNIGHT_TARGETS = new int[64][];
+    private static final int[][] KING_TARGETS = new int[64][];
+    private static final int[][][] RAYS = new int[64][8][];
+    private static final int[][][] PAWN_ATTACKS = new int[2][64][]; //[side][square] = squares attacked by a pawn of the side
+    private static final int[] CASTLING_MASKS = new int[64];
+    private static final Pieces[] WHITE_PROMOTIONS = {Pieces.W_QUEEN, Pieces.W_KNIGHT, Pieces.W_ROOK, Pieces.W_BISHOP};
+    private static final Pieces[] BLACK_PROMOTIONS = {Pieces.B_QUEEN, Pieces.B_KNIGHT, Pieces.B_ROOK, Pieces.B_BISHOP};
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+
+        for (int square = 0; square < 64; square++) {
+            int file = getFile(square);
+            int rank = getRank(square);
+
+            KNIGHT_TARGETS[square] = getSteps(file, rank, knightSteps);
+
+            int[][] kingSteps = new int[8][];
+            for (int direction = 0; direction < 8; direction++) {
+                kingSteps[direction] = new int[]{DIRECTION_FILE[direction], DIRECTION_RANK[direction]};
+
+                int length = 0;
+                int[] ray = new int[7];
+                for (int f = file + DIRECTION_FILE[direction], r = rank + DIRECTION_RANK[direction];
+                     isOnBoard(f, r); f += DIRECTION_FILE[direction], r += DIRECTION_RANK[direction]) {
+                    ray[length++] = toSquare(f, r);
+                }
+                RAYS[square][direction] = Arrays.copyOf(ray, length);
+            }
+            KING_TARGETS[square] = getSteps(file, rank, kingSteps);
+
+            PAWN_ATTACKS[WHITE_INDEX][square] = getSteps(file, rank, new int[][]{{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[BLACK_INDEX][square] = getSteps(file, rank, new int[][]{{-1, -1}, {1, -1}});
+            CASTLING_MASKS[square] = ALL_CASTLING;
+        }
+
+        CASTLING_MASKS[E1] &= ~(WHITE_KING_SIDE_CASTLING | WHITE_QUEEN_SIDE_CASTLING);
+        CASTLING_MASKS[H1] &= ~WHITE_KING_SIDE_CASTLING;
+        CASTLING_MASKS[A1] &= ~WHITE_QUEEN_SIDE_CASTLING;
+        CASTLING_MASKS[E8] &= ~(BLACK_KING_SIDE_CASTLING | BLACK_QUEEN_SIDE_CASTLING);
+        CASTLING_MASKS[H8] &= ~BLACK_KING_SIDE_CASTLING;
+        CASTLING_MASKS[A8] &= ~BLACK_QUEEN_SIDE_CASTLING;
+    }
+
+    private final Pieces[] squares = new Pieces[64];
+    private final int[] kingSquares = {NO_SQUARE, NO_SQUARE};
+    private final int[] material = new int[2];
+    private final int[] scratchMoves = new int[MAX_MOVES];
+    private Side sideToMove = Side.WHITE;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfMoveClock;
+    private int fullMoveNumber = 1;
+    private long hash;
+    private PieceSquareTables pieceSquareTables;
+    private int middleGameScore;
+    private int endGameScore;
+    private int phase;
+
+    //Undo stack
+    private int ply;
+    private int[] undoMoves;
+    private Pieces[] undoCaptured;
+    private int[] undoCastlingRights;
+    private int[] undoEnPassantSquares;
+    private int[] undoHalfMoveClocks;
+    private long[] undoHashes;
+    private int[] undoWhiteMaterials;
+    private int[] undoBlackMaterials;
+    private int[] undoMiddleGameScores;
+    private int[] undoEndGameScores;
+    private int[] undoPhases;
+
+    public ChessBoard() {
+        this(DEFAULT_STACK_SIZE);
+    }
+
+    /**
+     * @param stackSize - The number of moves that can be undone before the stack needs to grow
+     */
+    public ChessBoard(int stackSize) {
+        assertThat(stackSize).isPositive();
+
+        undoMoves = new int[stackSize];
+        undoCaptured = new Pieces[stackSize];
+        undoCastlingRights = new int[stackSize];
+        undoEnPassantSquares = new int[stackSize];
+        undoHalfMoveClocks = new int[stackSize];
+        undoHashes = new long[stackSize];
+        undoWhiteMaterials = new int[stackSize];
+        undoBlackMaterials = new int[stackSize];
+        undoMiddleGameScores = new int[stackSize];
+        undoEndGameScores = new int[stackSize];
+        undoPhases = new int[stackSize];
+        clear();
+    }
+
+    private static int[] getSteps(int file, int rank, int[][] steps) {
+        int length = 0;
+        int[] values = new int[steps.length];
+
+        for (int[] step : steps) {
+            int f = file + step[0];
+            int r = rank + step[1];
+
+            if (isOnBoard(f, r)) {
+                values[length++] = toSquare(f, r);
+            }
+        }
+
+        return Arrays.copyOf(values, length);
+    }
+
+    private static boolean isOnBoard(int file, int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8;
+    }
+
+    /**
+     * @param file - The column, from 0 (a) to 7 (h)
+     * @param rank - The row, from 0 (1) to 7 (8)
+     * @return The square (ordinal of the {@link CasePosition})
+     */
+    public static int toSquare(int file, int rank) {
+        return ((7 - rank) << 3) | file;
+    }
+
+    /**
+     * @return The column of the square, from 0 (a) to 7 (h)
+     */
+    public static int getFile(int square) {
+        return square & 7;
+    }
+
+    /**
+     * @return The row of the square, from 0 (1) to 7 (8)
+     */
+    public static int getRank(int square) {
+        return 7 - (square >> 3);
+    }
+
+    private static int getType(Pieces piece) {
+        return piece.ordinal() % 6;
+    }
+
+    private static int getPoint(Pieces piece) {
+        return getType(piece) == KING ? 0 : piece.getPoint();
+    }
+
+    /**
+     * Remove all the pieces and reset the state of the board (white to move, no castling, no undo history)
+     */
+    public void clear() {
+        Arrays.fill(squares, null);
+        Arrays.fill(undoCaptured, null);
+        kingSquares[BLACK_INDEX] = NO_SQUARE;
+        kingSquares[WHITE_INDEX] = NO_SQUARE;
+        material[BLACK_INDEX] = 0;
+        material[WHITE_INDEX] = 0;
+        middleGameScore = 0;
+        endGameScore = 0;
+        phase = 0;
+        sideToMove = Side.WHITE;
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        hash = 0;
+        ply = 0;
+    }
+
+    /**
+     * Reset the board to the initial position of a classic game
+     */
+    public void setupStandardPosition() {
+        clear();
+
+        Pieces[] whiteRow = {Pieces.W_ROOK, Pieces.W_KNIGHT, Pieces.W_BISHOP, Pieces.W_QUEEN, Pieces.W_KING, Pieces.W_BISHOP, Pieces.W_KNIGHT, Pieces.W_ROOK};
+        Pieces[] blackRow = {Pieces.B_ROOK, Pieces.B_KNIGHT, Pieces.B_BISHOP, Pieces.B_QUEEN, Pieces.B_KING, Pieces.B_BISHOP, Pieces.B_KNIGHT, Pieces.B_ROOK};
+
+        for (int file = 0; file < 8; file++) {
+            setPiece(toSquare(file, 0), whiteRow[file]);
+            setPiece(toSquare(file, 1), Pieces.W_PAWN);
+            setPiece(toSquare(file, 6), Pieces.B_PAWN);
+            setPiece(toSquare(file, 7), blackRow[file]);
+        }
+
+        setCastlingRights(ALL_CASTLING);
+    }
+
+    /**
+     * Copy the position of another board, the undo history is not copied. Used to reuse a board without allocating.
+     *
+     * @param other
+     */
+    public void copyFrom(ChessBoard other) {
+        assertThat(other).isNotNull();
+
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        kingSquares[BLACK_INDEX] = other.kingSquares[BLACK_INDEX];
+        kingSquares[WHITE_INDEX] = other.kingSquares[WHITE_INDEX];
+        material[BLACK_INDEX] = other.material[BLACK_INDEX];
+        material[WHITE_INDEX] = other.material[WHITE_INDEX];
+        pieceSquareTables = other.pieceSquareTables;
+        middleGameScore = other.middleGameScore;
+        endGameScore = other.endGameScore;
+        phase = other.phase;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfMoveClock = other.halfMoveClock;
+        fullMoveNumber = other.fullMoveNumber;
+        hash = other.hash;
+        ply = 0;
+    }
+
+    public Pieces getPiece(int square) {
+        return squares[square];
+    }
+
+    public Pieces getPiece(CasePosition position) {
+        return squares[position.ordinal()];
+    }
+
+    public void setPiece(CasePosition position, Pieces piece) {
+        assertThat(position).isNotNull();
+        setPiece(position.ordinal(), piece);
+    }
+
+    /**
+     * Put a piece on the square (replacing the current one), or remove it when the piece is null.
+     * Used to setup a position, the undo history is not affected.
+     *
+     * @param square
+     * @param piece
+     */
+    public void setPiece(int square, Pieces piece) {
+        if (squares[square] != null) {
+            removePiece(square);
+        }
+
+        if (piece != null) {
+            putPiece(square, piece);
+        }
+    }
+
+    private void putPiece(int square, Pieces piece) {
+        int sideIndex = piece.getSide().ordinal();
+
+        squares[square] = piece;
+        hash ^= ZobristHashing.getPieceKey(piece, square);
+        material[sideIndex] += getPoint(piece);
+
+        if (pieceSquareTables != null) {
+            middleGameScore += pieceSquareTables.getMiddleGame(piece, square);
+            endGameScore += pieceSquareTables.getEndGame(piece, square);
+            phase += pieceSquareTables.getPhase(piece);
+        }
+
+        if (getType(piece) == KING) {
+            kingSquares[sideIndex] = square;
+        }
+    }
+
+    private Pieces removePiece(int square) {
+        Pieces piece = squares[square];
+        int sideIndex = piece.getSide().ordinal();
+
+        squares[square] = null;
+        hash ^= ZobristHashing.getPieceKey(piece, square);
+        material[sideIndex] -= getPoint(piece);
+
+        if (pieceSquareTables != null) {
+            middleGameScore -= pieceSquareTables.getMiddleGame(piece, square);
+            endGameScore -= pieceSquareTables.getEndGame(piece, square);
+            phase -= pieceSquareTables.getPhase(piece);
+        }
+
+        if (getType(piece) == KING && kingSquares[sideIndex] == square) {
+            kingSquares[sideIndex] = NO_SQUARE;
+        }
+
+        return piece;
+    }
+
+    private void movePiece(int from, int to) {
+        Pieces piece = squares[from];
+
+        squares[from] = null;
+        squares[to] = piece;
+        hash ^= ZobristHashing.getPieceKey(piece, from) ^ ZobristHashing.getPieceKey(piece, to);
+
+        if (pieceSquareTables != null) {
+            middleGameScore += pieceSquareTables.getMiddleGame(piece, to) - pieceSquareTables.getMiddleGame(piece, from);
+            endGameScore += pieceSquareTables.getEndGame(piece, to) - pieceSquareTables.getEndGame(piece, from);
+        }
+
+        if (getType(piece) == KING) {
+            kingSquares[piece.getSide().ordinal()] = to;
+        }
+    }
+
+    public Side getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(Side side) {
+        assertThat(side).isNotNull().isNotEqualTo(Side.OBSERVER);
+
+        if (side != sideToMove) {
+            sideToMove = side;
+            hash ^= ZobristHashing.getSideKey();
+        }
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @param castlingRights - A combination of the *_CASTLING flags
+     */
+    public void setCastlingRights(int castlingRights) {
+        hash ^= ZobristHashing.getCastlingKey(this.castlingRights) ^ ZobristHashing.getCastlingKey(castlingRights & ALL_CASTLING);
+        this.castlingRights = castlingRights & ALL_CASTLING;
+    }
+
+    /**
+     * @return The square behind the pawn that just hopped, {@link #NO_SQUARE} if none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        if (this.enPassantSquare != NO_SQUARE) {
+            hash ^= ZobristHashing.getEnPassantKey(this.enPassantSquare);
+        }
+
+        this.enPassantSquare = enPassantSquare;
+
+        if (enPassantSquare != NO_SQUARE) {
+            hash ^= ZobristHashing.getEnPassantKey(enPassantSquare);
+        }
+    }
+
+    /**
+     * @return The number of half moves since the last capture or pawn move
+     */
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public void setHalfMoveClock(int halfMoveClock) {
+        this.halfMoveClock = halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public void setFullMoveNumber(int fullMoveNumber) {
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return The sum of {@link Pieces#getPoint()} of the white pieces, without the king
+     */
+    public int getWhiteMaterial() {
+        return material[WHITE_INDEX];
+    }
+
+    /**
+     * @return The sum of {@link Pieces#getPoint()} of the black pieces, without the king
+     */
+    public int getBlackMaterial() {
+        return material[BLACK_INDEX];
+    }
+
+    public PieceSquareTables getPieceSquareTables() {
+        return pieceSquareTables;
+    }
+
+    /**
+     * Set the tables used to update the piece-square scores on each move, and compute the scores of the current
+     * position. The moves of the undo history are reverted and replayed, so the scores saved for them are also
+     * computed with the tables.
+     *
+     * @param pieceSquareTables - The tables, null to stop updating the scores
+     */
+    public void setPieceSquareTables(PieceSquareTables pieceSquareTables) {
+        int[] played = ply == 0 ? null : Arrays.copyOf(undoMoves, ply);
+
+        while (ply > 0) {
+            unmakeMove();
+        }
+
+        this.pieceSquareTables = pieceSquareTables;
+        middleGameScore = 0;
+        endGameScore = 0;
+        phase = 0;
+
+        if (pieceSquareTables != null) {
+            for (int square = 0; square < 64; square++) {
+                Pieces piece = squares[square];
+
+                if (piece != null) {
+                    middleGameScore += pieceSquareTables.getMiddleGame(piece, square);
+                    endGameScore += pieceSquareTables.getEndGame(piece, square);
+                    phase += pieceSquareTables.getPhase(piece);
+                }
+            }
+        }
+
+        if (played != null) {
+            for (int move : played) {
+                makeMove(move);
+            }
+        }
+    }
+
+    /**
+     * @return The middlegame score of the {@link PieceSquareTables} (material included), positive for white
+     */
+    public int getMiddleGameScore() {
+        return middleGameScore;
+    }
+
+    /**
+     * @return The endgame score of the {@link PieceSquareTables} (material included), positive for white
+     */
+    public int getEndGameScore() {
+        return endGameScore;
+    }
+
+    /**
+     * @return The game phase of the {@link PieceSquareTables}, from the pieces on the board (can exceed
+     * {@link PieceSquareTables#MAX_PHASE} after promotions)
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return The king square of the side, {@link #NO_SQUARE} if the king is not on the board
+     */
+    public int getKingSquare(Side side) {
+        return kingSquares[side.ordinal()];
+    }
+
+    /**
+     * @return The number of moves that can be undone
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @param pliesAgo - 0 for the last move played
+     * @return The move played, {@link BoardMoves#NO_MOVE} if the history is shorter
+     */
+    public int getPlayedMove(int pliesAgo) {
+        int index = ply - 1 - pliesAgo;
+        return index >= 0 ? undoMoves[index] : BoardMoves.NO_MOVE;
+    }
+
+    /**
+     * @return True if the current position was already reached since the last capture or pawn move (only the
+     * positions of the undo history are checked)
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(0, ply - halfMoveClock);
+
+        for (int index = ply - 2; index >= limit; index -= 2) {
+            if (undoHashes[index] == hash) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The piece captured by the last move, null if none
+     */
+    public Pieces getLastCapturedPiece() {
+        return ply > 0 ? undoCaptured[ply - 1] : null;
+    }
+
+    /**
+     * Rebuild the hash from scratch, only useful to validate the incremental hash
+     *
+     * @return
+     */
+    public long computeHash() {
+        long value = ZobristHashing.getCastlingKey(castlingRights);
+
+        for (int square = 0; square < 64; square++) {
+            Pieces piece = squares[square];
+
+            if (piece != null) {
+                value ^= ZobristHashing.getPieceKey(piece, square);
+            }
+        }
+
+        if (enPassantSquare != NO_SQUARE) {
+            value ^= ZobristHashing.getEnPassantKey(enPassantSquare);
+        }
+
+        if (sideToMove == Side.BLACK) {
+            value ^= ZobristHashing.getSideKey();
+        }
+
+        return value;
+    }
+
+    /**
+     * Play the move, without checking if the move is legal
+     *
+     * @param move - The move, encoded with {@link BoardMoves}
+     */
+    public void makeMove(int move) {
+        if (ply == undoMoves.length) {
+            growStack();
+        }
+
+        int from = BoardMoves.getFrom(move);
+        int to = BoardMoves.getTo(move);
+        MoveType moveType = BoardMoves.getMoveType(move);
+        Pieces moving = squares[from];
+        boolean isWhite = sideToMove == Side.WHITE;
+        int capturedSquare = (moveType == MoveType.EN_PASSANT) ? (isWhite ? to + 8 : to - 8) : to;
+        Pieces captured = squares[capturedSquare];
+
+        undoMoves[ply] = move;
+        undoCaptured[ply] = captured;
+        undoCastlingRights[ply] = castlingRights;
+        undoEnPassantSquares[ply] = enPassantSquare;
+        undoHalfMoveClocks[ply] = halfMoveClock;
+        undoHashes[ply] = hash;
+        undoWhiteMaterials[ply] = material[WHITE_INDEX];
+        undoBlackMaterials[ply] = material[BLACK_INDEX];
+        undoMiddleGameScores[ply] = middleGameScore;
+        undoEndGameScores[ply] = endGameScore;
+        undoPhases[ply] = phase;
+        ply++;
+
+        if (enPassantSquare != NO_SQUARE) {
+            hash ^= ZobristHashing.getEnPassantKey(enPassantSquare);
+            enPassantSquare = NO_SQUARE;
+        }
+
+        if (captured != null) {
+            removePiece(capturedSquare);
+        }
+
+        movePiece(from, to);
+
+        if (moveType == MoveType.PAWN_PROMOTION) {
+            removePiece(to);
+            putPiece(to, BoardMoves.getPromotion(move));
+        } else if (moveType == MoveType.CASTLING) {
+            if (to == G1) {
+                movePiece(H1, F1);
+            } else if (to == C1) {
+                movePiece(A1, D1);
+            } else if (to == G8) {
+                movePiece(H8, F8);
+            } else if (to == C8) {
+                movePiece(A8, D8);
+            }
+        } else if (moveType == MoveType.PAWN_HOP) {
+            int behind = isWhite ? from - 8 : from + 8;
+
+            //Only keep the en passant square when it can be taken, otherwise the same positions would hash differently
+            if (isEnPassantPossible(to, isWhite ? Pieces.B_PAWN : Pieces.W_PAWN)) {
+                enPassantSquare = behind;
+                hash ^= ZobristHashing.getEnPassantKey(enPassantSquare);
+            }
+        }
+
+        int newCastlingRights = castlingRights & CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        if (newCastlingRights != castlingRights) {
+            hash ^= ZobristHashing.getCastlingKey(castlingRights) ^ ZobristHashing.getCastlingKey(newCastlingRights);
+            castlingRights = newCastlingRights;
+        }
+
+        if (captured != null || getType(moving) == PAWN) {
+            halfMoveClock = 0;
+        } else {
+            halfMoveClock++;
+        }
+
+        if (!isWhite) {
+            fullMoveNumber++;
+        }
+
+        sideToMove = isWhite ? Side.BLACK : Side.WHITE;
+        hash ^= ZobristHashing.getSideKey();
+    }
+
+    private boolean isEnPassantPossible(int hopSquare, Pieces enemyPawn) {
+        int file = getFile(hopSquare);
+        return (file > 0 && squares[hopSquare - 1] == enemyPawn) || (file < 7 && squares[hopSquare + 1] == enemyPawn);
+    }
+
+    private void growStack() {
+        int size = undoMoves.length * 2;
+
+        undoMoves = Arrays.copyOf(undoMoves, size);
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+        undoCastlingRights = Arrays.copyOf(undoCastlingRights, size);
+        undoEnPassantSquares = Arrays.copyOf(undoEnPassantSquares, size);
+        undoHalfMoveClocks = Arrays.copyOf(undoHalfMoveClocks, size);
+        undoHashes = Arrays.copyOf(undoHashes, size);
+        undoWhiteMaterials = Arrays.copyOf(undoWhiteMaterials, size);
+        undoBlackMaterials = Arrays.copyOf(undoBlackMaterials, size);
+        undoMiddleGameScores = Arrays.copyOf(undoMiddleGameScores, size);
+        undoEndGameScores = Arrays.copyOf(undoEndGameScores, size);
+        undoPhases = Arrays.copyOf(undoPhases, size);
+    }
+
+    /**
+     * Revert the last move played with {@link #makeMove(int)}
+     */
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("There is no move to undo!");
+        }
+
+        ply--;
+        int move = undoMoves[ply];
+        int from = BoardMoves.getFrom(move);
+        int to = BoardMoves.getTo(move);
+        MoveType moveType = BoardMoves.getMoveType(move);
+        Pieces captured = undoCaptured[ply];
+        boolean isWhite = sideToMove == Side.BLACK; //The side that played the move
+
+        if (moveType == MoveType.PAWN_PROMOTION) {
+            squares[to] = isWhite ? Pieces.W_PAWN : Pieces.B_PAWN;
+        } else if (moveType == MoveType.CASTLING) {
+            if (to == G1) {
+                movePiece(F1, H1);
+            } else if (to == C1) {
+                movePiece(D1, A1);
+            } else if (to == G8) {
+                movePiece(F8, H8);
+            } else if (to == C8) {
+                movePiece(D8, A8);
+            }
+        }
+
+        movePiece(to, from);
+
+        if (captured != null) {
+            squares[(moveType == MoveType.EN_PASSANT) ? (isWhite ? to + 8 : to - 8) : to] = captured;
+
+            if (getType(captured) == KING) {
+                kingSquares[captured.getSide().ordinal()] = to;
+            }
+
+            undoCaptured[ply] = null;
+        }
+
+        if (!isWhite) {
+            fullMoveNumber--;
+        }
+
+        sideToMove = isWhite ? Side.WHITE : Side.BLACK;
+        castlingRights = undoCastlingRights[ply];
+        enPassantSquare = undoEnPassantSquares[ply];
+        halfMoveClock = undoHalfMoveClocks[ply];
+        hash = undoHashes[ply];
+        material[WHITE_INDEX] = undoWhiteMaterials[ply];
+        material[BLACK_INDEX] = undoBlackMaterials[ply];
+        middleGameScore = undoMiddleGameScores[ply];
+        endGameScore = undoEndGameScores[ply];
+        phase = undoPhases[ply];
+    }
+
+    /**
+     * @param square - The square to check
+     * @param side   - The attacking side
+     * @return True if a piece of the side attacks the square
+     */
+    public boolean isSquareAttacked(int square, Side side) {
+        boolean isWhite = side == Side.WHITE;
+        Pieces pawn = isWhite ? Pieces.W_PAWN : Pieces.B_PAWN;
+        Pieces knight = isWhite ? Pieces.W_KNIGHT : Pieces.B_KNIGHT;
+        Pieces king = isWhite ? Pieces.W_KING : Pieces.B_KING;
+        Pieces queen = isWhite ? Pieces.W_QUEEN : Pieces.B_QUEEN;
+        Pieces rook = isWhite ? Pieces.W_ROOK : Pieces.B_ROOK;
+        Pieces bishop = isWhite ? Pieces.W_BISHOP : Pieces.B_BISHOP;
+
+        //The squares where a pawn of the side attacks the square are the squares attacked by an enemy pawn on it
+        for (int target : PAWN_ATTACKS[isWhite ? BLACK_INDEX : WHITE_INDEX][square]) {
+            if (squares[target] == pawn) {
+                return true;
+            }
+        }
+
+        for (int target : KNIGHT_TARGETS[square]) {
+            if (squares[target] == knight) {
+                return true;
+            }
+        }
+
+        for (int target : KING_TARGETS[square]) {
+            if (squares[target] == king) {
+                return true;
+            }
+        }
+
+        int[][] rays = RAYS[square];
+        for (int direction = 0; direction < 8; direction++) {
+            Pieces slider = direction < 4 ? rook : bishop;
+
+            for (int target : rays[direction]) {
+                Pieces piece = squares[target];
+
+                if (piece != null) {
+                    if (piece == slider || piece == queen) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the pieces that attack the square, using the attack tables. For the pawns, only the captures are considered.
+     *
+     * @param square  - The target square
+     * @param piece   - The attacking piece
+     * @param sources - The buffer receiving the squares of the attackers (at least 10 long)
+     * @return The number of attackers found
+     */
+    public int getAttackers(int square, Pieces piece, int[] sources) {
+        int count = 0;
+
+        switch (getType(piece)) {
+            case PAWN:
+                count = collectAttackers(PAWN_ATTACKS[piece.getSide() == Side.WHITE ? BLACK_INDEX : WHITE_INDEX][square], piece, sources, count);
+                break;
+            case KNIGHT:
+                count = collectAttackers(KNIGHT_TARGETS[square], piece, sources, count);
+                break;
+            case KING:
+                count = collectAttackers(KING_TARGETS[square], piece, sources, count);
+                break;
+            default:
+                int type = getType(piece);
+                int firstDirection = (type == BISHOP) ? 4 : 0;
+                int lastDirection = (type == ROOK) ? 4 : 8;
+
+                for (int direction = firstDirection; direction < lastDirection; direction++) {
+                    for (int target : RAYS[square][direction]) {
+                        Pieces current = squares[target];
+
+                        if (current != null) {
+                            if (current == piece) {
+                                sources[count++] = target;
+                            }
+                            break;
+                        }
+                    }
+                }
+                break;
+        }
+
+        return count;
+    }
+
+    private int collectAttackers(int[] targets, Pieces piece, int[] sources, int count) {
+        for (int target : targets) {
+            if (squares[target] == piece) {
+                sources[count++] = target;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Check if the king of the side is attacked, same result as a {@link ca.watier.echechess.common.enums.MoveMode#IS_KING_CHECK_MODE}
+     * evaluation, but without copying the board.
+     *
+     * @param side
+     * @return
+     */
+    public boolean isKingCheck(Side side) {
+        int kingSquare = kingSquares[side.ordinal()];
+        return kingSquare != NO_SQUARE && isSquareAttacked(kingSquare, Side.getOtherPlayerSide(side));
+    }
+
+    /**
+     * @return The status of the king of the player to move
+     */
+    public KingStatus getKingStatus() {
+        boolean isCheck = isKingCheck(sideToMove);
+        boolean hasLegalMove = hasLegalMove();
+
+        if (!hasLegalMove) {
+            return isCheck ? KingStatus.CHECKMATE : KingStatus.STALEMATE;
+        }
+
+        return isCheck ? KingStatus.CHECK : KingStatus.OK;
+    }
+
+    /**
+     * @return True if the player to move has at least one legal move
+     */
+    public boolean hasLegalMove() {
+        int count = generatePseudoLegalMoves(scratchMoves, 0);
+
+        for (int i = 0; i < count; i++) {
+            if (isLegalPseudoMove(scratchMoves[i])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param move - A move generated by {@link #generatePseudoLegalMoves(int[], int)}
+     * @return True if the move does not leave the king of the player in check
+     */
+    public boolean isLegalPseudoMove(int move) {
+        Side side = sideToMove;
+        makeMove(move);
+        boolean isLegal = !isKingCheck(side);
+        unmakeMove();
+        return isLegal;
+    }
+
+    /**
+     * @param move - The move to validate
+     * @return True if the move is a legal move for the player to move
+     */
+    public boolean isLegalMove(int move) {
+        int count = generatePseudoLegalMoves(scratchMoves, 0);
+
+        for (int i = 0; i < count; i++) {
+            if (scratchMoves[i] == move) {
+                return isLegalPseudoMove(move);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the legal move of the player to move matching the positions. The castling can also be given as the king
+     * moving to the position of its rook.
+     *
+     * @param from      - The position of the moved piece
+     * @param to        - The destination
+     * @param promotion - The piece chosen for a promotion, null for a queen
+     * @return The move, {@link BoardMoves#NO_MOVE} if the move is not legal
+     */
+    public int findLegalMove(CasePosition from, CasePosition to, Pieces promotion) {
+        assertThat(from).isNotNull();
+        assertThat(to).isNotNull();
+
+        int fromSquare = from.ordinal();
+        int toSquare = to.ordinal();
+        Pieces moving = squares[fromSquare];
+        Pieces target = squares[toSquare];
+
+        if (moving == null || moving.getSide() != sideToMove) {
+            return BoardMoves.NO_MOVE;
+        }
+
+        //King on its own rook = castling
+        if (getType(moving) == KING && target != null && getType(target) == ROOK && target.getSide() == sideToMove) {
+            toSquare = toSquare > fromSquare ? fromSquare + 2 : fromSquare - 2;
+        }
+
+        int count = generatePseudoLegalMoves(scratchMoves, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = scratchMoves[i];
+
+            if (BoardMoves.getFrom(move) != fromSquare || BoardMoves.getTo(move) != toSquare) {
+                continue;
+            }
+
+            Pieces movePromotion = BoardMoves.getPromotion(move);
+            if (movePromotion != null && movePromotion != promotion && (promotion != null || getType(movePromotion) != QUEEN)) {
+                continue;
+            }
+
+            if (isLegalPseudoMove(move)) {
+                return move;
+            }
+        }
+
+        return BoardMoves.NO_MOVE;
+    }
+
+    /**
+     * Fill the array with the legal moves of the player to move
+     *
+     * @param moves - The buffer, at least {@link #MAX_MOVES} long
+     * @return The number of moves
+     */
+    public int generateLegalMoves(int[] moves) {
+        int count = generatePseudoLegalMoves(moves, 0);
+        int legalCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+
+            if (isLegalPseudoMove(move)) {
+                moves[legalCount++] = move;
+            }
+        }
+
+        return legalCount;
+    }
+
+    /**
+     * Fill the array with the moves of the player to move, the moves leaving the king in check are included
+     *
+     * @param moves  - The buffer
+     * @param offset - The first index to write
+     * @return The index following the last move written
+     */
+    public int generatePseudoLegalMoves(int[] moves, int offset) {
+        int count = offset;
+        Side side = sideToMove;
+
+        for (int square = 0; square < 64; square++) {
+            Pieces piece = squares[square];
+
+            if (piece == null || piece.getSide() != side) {
+                continue;
+            }
+
+            switch (getType(piece)) {
+                case PAWN:
+                    count = generatePawnMoves(square, side == Side.WHITE, moves, count);
+                    break;
+                case KNIGHT:
+                    count = generateStepMoves(square, KNIGHT_TARGETS[square], side, moves, count);
+                    break;
+                case KING:
+                    count = generateStepMoves(square, KING_TARGETS[square], side, moves, count);
+                    count = generateCastlingMoves(square, side, moves, count);
+                    break;
+                case BISHOP:
+                    count = generateSlidingMoves(square, 4, 8, side, moves, count);
+                    break;
+                case ROOK:
+                    count = generateSlidingMoves(square, 0, 4, side, moves, count);
+                    break;
+                case QUEEN:
+                    count = generateSlidingMoves(square, 0, 8, side, moves, count);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return count;
+    }
+
+    private int generateStepMoves(int from, int[] targets, Side side, int[] moves, int count) {
+        for (int to : targets) {
+            Pieces target = squares[to];
+
+            if (target == null) {
+                moves[count++] = BoardMoves.of(from, to, MoveType.NORMAL_MOVE);
+            } else if (target.getSide() != side) {
+                moves[count++] = BoardMoves.of(from, to, MoveType.CAPTURE);
+            }
+        }
+
+        return count;
+    }
+
+    private int generateSlidingMoves(int from, int firstDirection, int lastDirection, Side side, int[] moves, int count) {
+        int[][] rays = RAYS[from];
+
+        for (int direction = firstDirection; direction < lastDirection; direction++) {
+            for (int to : rays[direction]) {
+                Pieces target = squares[to];
+
+                if (target == null) {
+                    moves[count++] = BoardMoves.of(from, to, MoveType.NORMAL_MOVE);
+                } else {
+                    if (target.getSide() != side) {
+                        moves[count++] = BoardMoves.of(from, to, MoveType.CAPTURE);
+                    }
+                    break;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private int generatePawnMoves(int from, boolean isWhite, int[] moves, int count) {
+        int forward = isWhite ? -8 : 8;
+        int rank = getRank(from);
+        int startRank = isWhite ? 1 : 6;
+        int lastRank = isWhite ? 6 : 1; //The pawn promote on the next move
+        int oneStep = from + forward;
+        Side enemySide = isWhite ? Side.BLACK : Side.WHITE;
+
+        if (squares[oneStep] == null) {
+            if (rank == lastRank) {
+                count = addPromotions(from, oneStep, isWhite, moves, count);
+            } else {
+                moves[count++] = BoardMoves.of(from, oneStep, MoveType.NORMAL_MOVE);
+
+                int twoSteps = oneStep + forward;
+                if (rank == startRank && squares[twoSteps] == null) {
+                    moves[count++] = BoardMoves.of(from, twoSteps, MoveType.PAWN_HOP);
+                }
+            }
+        }
+
+        for (int to : PAWN_ATTACKS[isWhite ? WHITE_INDEX : BLACK_INDEX][from]) {
+            Pieces target = squares[to];
+
+            if (target != null && target.getSide() == enemySide) {
+                if (rank == lastRank) {
+                    count = addPromotions(from, to, isWhite, moves, count);
+                } else {
+                    moves[count++] = BoardMoves.of(from, to, MoveType.CAPTURE);
+                }
+            } else if (to == enPassantSquare) {
+                moves[count++] = BoardMoves.of(from, to, MoveType.EN_PASSANT);
+            }
+        }
+
+        return count;
+    }
+
+    private int addPromotions(int from, int to, boolean isWhite, int[] moves, int count) {
+        for (Pieces promotion : isWhite ? WHITE_PROMOTIONS : BLACK_PROMOTIONS) {
+            moves[count++] = BoardMoves.ofPromotion(from, to, promotion);
+        }
+
+        return count;
+    }
+
+    private int generateCastlingMoves(int from, Side side, int[] moves, int count) {
+        boolean isWhite = side == Side.WHITE;
+        int kingSide = isWhite ? WHITE_KING_SIDE_CASTLING : BLACK_KING_SIDE_CASTLING;
+        int queenSide = isWhite ? WHITE_QUEEN_SIDE_CASTLING : BLACK_QUEEN_SIDE_CASTLING;
+
+        if ((castlingRights & (kingSide | queenSide)) == 0 || from != (isWhite ? E1 : E8)) {
+            return count;
+        }
+
+        Side enemySide = Side.getOtherPlayerSide(side);
+        Pieces rook = isWhite ? Pieces.W_ROOK : Pieces.B_ROOK;
+
+        if (isSquareAttacked(from, enemySide)) {
+            return count;
+        }
+
+        if ((castlingRights & kingSide) != 0 && squares[from + 3] == rook &&
+                squares[from + 1] == null && squares[from + 2] == null &&
+                !isSquareAttacked(from + 1, enemySide) && !isSquareAttacked(from + 2, enemySide)) {
+            moves[count++] = BoardMoves.of(from, from + 2, MoveType.CASTLING);
+        }
+
+        if ((castlingRights & queenSide) != 0 && squares[from - 4] == rook &&
+                squares[from - 1] == null && squares[from - 2] == null && squares[from - 3] == null &&
+                !isSquareAttacked(from - 1, enemySide) && !isSquareAttacked(from - 2, enemySide)) {
+            moves[count++] = BoardMoves.of(from, from - 2, MoveType.CASTLING);
+        }
+
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int square = 0; square < 64; square++) {
+            Pieces piece = squares[square];
+            builder.append(piece == null ? "--" : piece.name().substring(0, 1).toLowerCase() + getPieceLetter(piece)).append(' ');
+
+            if (getFile(square) == 7) {
+                builder.append('\n');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static char getPieceLetter(Pieces piece) {
+        switch (getType(piece)) {
+            case KING:
+                return 'K';
+            case QUEEN:
+                return 'Q';
+            case ROOK:
+                return 'R';
+            case BISHOP:
+                return 'B';
+            case KNIGHT:
+                return 'N';
+            default:
+                return 'P';
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.DrawReason;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Detect the draws by repetition and by the fifty / seventy-five move rules, without scanning the move history.
+ * <p>
+ * Only the positions since the last irreversible move (capture or pawn move) can repeat, their hashes are counted in
+ * a small open addressing table that is cleared on each irreversible move; the cost per ply is O(1) amortized.
+ * This class is not thread safe, use one tracker per game.
+ */
+public class DrawRuleTracker {
+    public static final int FIFTY_MOVE_RULE_PLIES = 100;
+    public static final int SEVENTY_FIVE_MOVE_RULE_PLIES = 150;
+    private static final int INITIAL_CAPACITY = 256; //Enough for the 150 plies of the seventy-five move rule
+
+    private long[] hashes;
+    private int[] counts;
+    private int[] usedSlots;
+    private int size;
+    private int halfMoveClock;
+    private int repetitionCount;
+
+    /**
+     * @param initialHash - The hash of the position at the start of the game
+     */
+    public DrawRuleTracker(long initialHash) {
+        hashes = new long[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        usedSlots = new int[INITIAL_CAPACITY];
+        reset(initialHash, 0);
+    }
+
+    /**
+     * @param board - The board of the game, the current position and half move clock are used
+     */
+    public DrawRuleTracker(ChessBoard board) {
+        this(board.getHash());
+        halfMoveClock = board.getHalfMoveClock();
+    }
+
+    /**
+     * @param moveType   - The type of the move played
+     * @param movedPiece - The piece moved
+     * @return True if the positions before the move cannot be repeated and the move counter restarts
+     */
+    public static boolean isIrreversible(MoveType moveType, Pieces movedPiece) {
+        assertThat(moveType).isNotNull();
+        assertThat(movedPiece).isNotNull();
+
+        switch (moveType) {
+            case CAPTURE:
+            case EN_PASSANT:
+            case PAWN_HOP:
+            case PAWN_PROMOTION:
+                return true;
+            default:
+                return movedPiece == Pieces.W_PAWN || movedPiece == Pieces.B_PAWN;
+        }
+    }
+
+    /**
+     * Forget all the positions and restart from the position
+     *
+     * @param hash          - The hash of the current position
+     * @param halfMoveClock - The number of half moves since the last capture or pawn move
+     */
+    public void reset(long hash, int halfMoveClock) {
+        clearPositions();
+        this.halfMoveClock = halfMoveClock;
+        repetitionCount = addPosition(hash);
+    }
+
+    /**
+     * @param hash       - The hash of the position after the move
+     * @param moveType   - The type of the move played
+     * @param movedPiece - The piece moved
+     * @return The draw reason of the new position
+     */
+    public DrawReason onMove(long hash, MoveType moveType, Pieces movedPiece) {
+        return onMove(hash, isIrreversible(moveType, movedPiece));
+    }
+
+    /**
+     * @param board - The board, after the move
+     * @return The draw reason of the new position
+     */
+    public DrawReason onMove(ChessBoard board) {
+        return onMove(board.getHash(), board.getHalfMoveClock() == 0);
+    }
+
+    /**
+     * @param hash           - The hash of the position after the move
+     * @param isIrreversible - True if the move was a capture or a pawn move
+     * @return The draw reason of the new position
+     */
+    public DrawReason onMove(long hash, boolean isIrreversible) {
+        if (isIrreversible) {
+            clearPositions();
+            halfMoveClock = 0;
+        } else {
+            halfMoveClock++;
+        }
+
+        repetitionCount = addPosition(hash);
+
+        return getDrawReason();
+    }
+
+    /**
+     * @return The strongest draw reason of the current position, {@link DrawReason#NONE} if the game can continue
+     */
+    public DrawReason getDrawReason() {
+        if (repetitionCount >= 5) {
+            return DrawReason.FIVEFOLD_REPETITION;
+        } else if (halfMoveClock >= SEVENTY_FIVE_MOVE_RULE_PLIES) {
+            return DrawReason.SEVENTY_FIVE_MOVE_RULE;
+        } else if (repetitionCount >= 3) {
+            return DrawReason.THREEFOLD_REPETITION;
+        } else if (halfMoveClock >= FIFTY_MOVE_RULE_PLIES) {
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+
+        return DrawReason.NONE;
+    }
+
+    /**
+     * @return The number of times the current position has been seen since the last irreversible move
+     */
+    public int getRepetitionCount() {
+        return repetitionCount;
+    }
+
+    /**
+     * @return The number of half moves since the last capture or pawn move
+     */
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    private void clearPositions() {
+        for (int i = 0; i < size; i++) {
+            counts[usedSlots[i]] = 0;
+        }
+
+        size = 0;
+    }
+
+    private int addPosition(long hash) {
+        if ((size + 1) * 4 > hashes.length * 3) {
+            grow();
+        }
+
+        int slot = findSlot(hashes, counts, hash);
+
+        if (counts[slot] == 0) {
+            hashes[slot] = hash;
+            usedSlots[size++] = slot;
+        }
+
+        return ++counts[slot];
+    }
+
+    private static int findSlot(long[] hashes, int[] counts, long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (counts[slot] != 0 && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = hashes.length * 2;
+        long[] newHashes = new long[capacity];
+        int[] newCounts = new int[capacity];
+        int[] newUsedSlots = new int[capacity];
+
+        for (int i = 0; i < size; i++) {
+            int oldSlot = usedSlots[i];
+            int slot = findSlot(newHashes, newCounts, hashes[oldSlot]);
+
+            newHashes[slot] = hashes[oldSlot];
+            newCounts[slot] = counts[oldSlot];
+            newUsedSlots[i] = slot;
+        }
+
+        hashes = newHashes;
+        counts = newCounts;
+        usedSlots = newUsedSlots;
+    }
+
+    @Override
+    public String toString() {
+        return "DrawRuleTracker{" +
+                "positions=" + size +
+                ", halfMoveClock=" + halfMoveClock +
+                ", repetitionCount=" + repetitionCount +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.responses.GameScoreResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keep the points of each player ({@link Pieces#getPoint()} of the pieces on the board, kings excluded) up to date from
+ * the capture and promotion events, instead of summing the whole board after each move.
+ * <p>
+ * This class is not thread safe, use one tracker per game.
+ */
+public class GameScoreTracker {
+    private short whitePlayerPoint;
+    private short blackPlayerPoint;
+
+    /**
+     * Create a tracker with the points of a classic game
+     */
+    public GameScoreTracker() {
+        this(GameScoreResponse.MAX_CACHED_POINT, GameScoreResponse.MAX_CACHED_POINT);
+    }
+
+    public GameScoreTracker(short whitePlayerPoint, short blackPlayerPoint) {
+        this.whitePlayerPoint = whitePlayerPoint;
+        this.blackPlayerPoint = blackPlayerPoint;
+    }
+
+    /**
+     * Create a tracker from the pieces currently on the board
+     *
+     * @param pieces - The pieces on the board
+     * @return
+     */
+    public static GameScoreTracker fromPieces(Iterable<Pieces> pieces) {
+        assertThat(pieces).isNotNull();
+
+        GameScoreTracker tracker = new GameScoreTracker((short) 0, (short) 0);
+
+        for (Pieces piece : pieces) {
+            tracker.addPoints(piece, getPoint(piece));
+        }
+
+        return tracker;
+    }
+
+    /**
+     * Create a tracker from the material of the board
+     *
+     * @param board
+     * @return
+     */
+    public static GameScoreTracker fromBoard(ChessBoard board) {
+        assertThat(board).isNotNull();
+
+        return new GameScoreTracker((short) board.getWhiteMaterial(), (short) board.getBlackMaterial());
+    }
+
+    private static int getPoint(Pieces piece) {
+        return (piece == Pieces.W_KING || piece == Pieces.B_KING) ? 0 : piece.getPoint();
+    }
+
+    private void addPoints(Pieces piece, int points) {
+        if (piece.getSide() == Side.WHITE) {
+            whitePlayerPoint += points;
+        } else {
+            blackPlayerPoint += points;
+        }
+    }
+
+    /**
+     * @param captured - The piece removed from the board
+     * @return The updated score
+     */
+    public GameScoreResponse onCapture(Pieces captured) {
+        assertThat(captured).isNotNull();
+
+        addPoints(captured, -getPoint(captured));
+        return getResponse();
+    }
+
+    /**
+     * @param pawn     - The promoted pawn
+     * @param promoted - The piece replacing the pawn
+     * @return The updated score
+     */
+    public GameScoreResponse onPromotion(Pieces pawn, Pieces promoted) {
+        assertThat(pawn).isNotNull();
+        assertThat(promoted).isNotNull();
+
+        addPoints(promoted, getPoint(promoted) - getPoint(pawn));
+        return getResponse();
+    }
+
+    public short getWhitePlayerPoint() {
+        return whitePlayerPoint;
+    }
+
+    public short getBlackPlayerPoint() {
+        return blackPlayerPoint;
+    }
+
+    /**
+     * @return The current score, the common scores are shared instances (see {@link GameScoreResponse#getResponse(short, short)})
+     */
+    public GameScoreResponse getResponse() {
+        return GameScoreResponse.getResponse(whitePlayerPoint, blackPlayerPoint);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.Pieces;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys used to hash the positions of the {@link ChessBoard}.
+ * <p>
+ * The keys are generated from a fixed seed, the hashes are stable between the JVMs and can be persisted.
+ */
+public final class ZobristHashing {
+    private static final long SEED = 0x45434845434845L;
+    private static final long[][] PIECE_KEYS = new long[Pieces.values().length][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (long[] pieceKeys : PIECE_KEYS) {
+            for (int i = 0; i < pieceKeys.length; i++) {
+                pieceKeys[i] = random.nextLong();
+            }
+        }
+
+        //No castling right = no key, the empty board hash to zero
+        for (int i = 1; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+
+        SIDE_KEY = random.nextLong();
+    }
+
+    private ZobristHashing() {
+    }
+
+    public static long getPieceKey(Pieces piece, int square) {
+        return PIECE_KEYS[piece.ordinal()][square];
+    }
+
+    public static long getCastlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * @param square - The en passant square, only the column is hashed
+     * @return
+     */
+    public static long getEnPassantKey(int square) {
+        return EN_PASSANT_KEYS[square & 7];
+    }
+
+    /**
+     * @return The key toggled when the black player is to move
+     */
+    public static long getSideKey() {
+        return SIDE_KEY;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.impl;
+
+import ca.watier.echechess.common.interfaces.SessionCodec;
+
+import java.io.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encode the values with the default Java serialization. The decoding only accepts the type of the codec and the
+ * classes of the {@code java} packages, the other classes of the stream are rejected before being read.
+ *
+ * @param <T> The type of the values
+ */
+public class JavaSerializationSessionCodec<T extends Serializable> implements SessionCodec<T> {
+    private final Class<T> type;
+    private final ObjectInputFilter filter = this::checkInput;
+
+    public JavaSerializationSessionCodec(Class<T> type) {
+        assertThat(type).isNotNull();
+
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        assertThat(value).isNotNull();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        assertThat(bytes).isNotNull();
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(filter);
+            return type.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ObjectInputFilter.Status checkInput(ObjectInputFilter.FilterInfo info) {
+        Class<?> serialClass = info.serialClass();
+
+        if (serialClass == null) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+
+        while (serialClass.isArray()) {
+            serialClass = serialClass.getComponentType();
+        }
+
+        if (serialClass == type || serialClass.isPrimitive() || serialClass.getName().startsWith("java.")) {
+            return ObjectInputFilter.Status.ALLOWED;
+        }
+
+        return ObjectInputFilter.Status.REJECTED;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.impl;
+
+import ca.watier.echechess.common.enums.ChessEventMessage;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.interfaces.GameEventListener;
+import ca.watier.echechess.common.interfaces.WebSocketService;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A local stand-in of the event stream: the game and side events are dispatched to the listeners on the calling thread.
+ * A listener throwing an exception is logged and doesn't prevent the dispatch to the other listeners.
+ */
+public class LocalGameEventBus implements WebSocketService {
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(LocalGameEventBus.class);
+
+    private final List<GameEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(@NotNull GameEventListener listener) {
+        assertThat(listener).isNotNull();
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void fireSideEvent(String uuid, Side side, ChessEventMessage evtMessage, String message) {
+        dispatch(uuid, evtMessage);
+    }
+
+    @Override
+    public void fireSideEvent(String uuid, Side side, ChessEventMessage evtMessage, String message, Object obj) {
+        dispatch(uuid, evtMessage);
+    }
+
+    @Override
+    public void fireUiEvent(String uiUuid, ChessEventMessage evtMessage, String message) {
+        //The UI events are not related to a game
+    }
+
+    @Override
+    public void fireGameEvent(String uuid, ChessEventMessage evtMessage, Object message) {
+        dispatch(uuid, evtMessage);
+    }
+
+    @Override
+    public void fireGameEvent(String uuid, ChessEventMessage refreshBoard) {
+        dispatch(uuid, refreshBoard);
+    }
+
+    private void dispatch(String uuid, ChessEventMessage message) {
+        for (GameEventListener listener : listeners) {
+            try {
+                listener.onGameEvent(uuid, message);
+            } catch (RuntimeException e) {
+                LOGGER.warn("The listener " + listener + " failed on the " + message + " event of the game " + uuid, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.impl;
+
+import ca.watier.echechess.common.interfaces.SessionCodec;
+import ca.watier.echechess.common.sessions.Player;
+
+import java.io.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encode the {@link Player} in its compact binary form, without the class descriptors of the Java serialization
+ */
+public class PlayerSessionCodec implements SessionCodec<Player> {
+
+    @Override
+    public byte[] encode(Player value) {
+        assertThat(value).isNotNull();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            value.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Player decode(byte[] bytes) {
+        assertThat(bytes).isNotNull();
+
+        Player player = new Player();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            player.readFrom(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return player;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A read only inverted index of the archived games, memory mapped from a file built with the {@link GameIndexBuilder}.
+ * <p>
+ * The file contains a header (magic, key counts, offset of the key tables), the posting lists and the sorted key
+ * tables (positions, then materials) of (key, posting offset, game count). The keys are found with a binary search
+ * and the posting lists are decoded on demand. The file is mapped in chunks of 1 GB, all the offsets are longs and
+ * the size of the index is only limited by the address space. The queries do not modify the buffers and can be done
+ * concurrently.
+ */
+public class GameIndex implements Closeable {
+    public static final int MAGIC = 0x45434749;
+    public static final int HEADER_SIZE = 32; //magic (4) + reserved (4) + position count (8) + material count (8) + tables offset (8)
+    public static final int KEY_ENTRY_SIZE = 20; //key (8) + offset (8) + count (4)
+    private static final int DEFAULT_CHUNK_SHIFT = 30;
+    private static final long[] EMPTY = new long[0];
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final long positionCount;
+    private final long materialCount;
+    private final long positionTableStart;
+    private final long materialTableStart;
+
+    public GameIndex(@NotNull Path path) throws IOException {
+        this(path, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param chunkShift - The log2 of the size of the mapped chunks
+     */
+    GameIndex(@NotNull Path path, int chunkShift) throws IOException {
+        assertThat(path).isNotNull();
+        assertThat(chunkShift).isBetween(4, 30);
+
+        this.chunkShift = chunkShift;
+        chunkMask = (1L << chunkShift) - 1;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IllegalStateException("Invalid game index " + path);
+            }
+
+            chunks = new MappedByteBuffer[(int) ((size + chunkMask) >>> chunkShift)];
+            for (int i = 0; i < chunks.length; i++) {
+                long position = (long) i << chunkShift;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkMask + 1, size - position));
+            }
+
+            if (getInt(0) != MAGIC) {
+                throw new IllegalStateException("Invalid game index " + path);
+            }
+
+            positionCount = getLong(8);
+            materialCount = getLong(16);
+            positionTableStart = getLong(24);
+            materialTableStart = positionTableStart + positionCount * KEY_ENTRY_SIZE;
+
+            if (positionCount < 0 || positionCount > size / KEY_ENTRY_SIZE || materialCount < 0 || materialCount > size / KEY_ENTRY_SIZE ||
+                    positionTableStart < HEADER_SIZE || materialTableStart + materialCount * KEY_ENTRY_SIZE != size) {
+                throw new IllegalStateException("Truncated game index " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getPositionCount() {
+        return positionCount;
+    }
+
+    public long getMaterialCount() {
+        return materialCount;
+    }
+
+    /**
+     * @return The games reaching the position, sorted
+     */
+    public long[] findByPosition(long hash) {
+        return getPostings(find(positionTableStart, positionCount, hash));
+    }
+
+    /**
+     * @return The games reaching the current position of the board, sorted
+     */
+    public long[] findByPosition(@NotNull ChessBoard board) {
+        return findByPosition(board.getHash());
+    }
+
+    /**
+     * @return The games reaching the material (see {@link GameIndexBuilder#getMaterialKey(int, int)}), sorted
+     */
+    public long[] findByMaterial(int whiteMaterial, int blackMaterial) {
+        return getPostings(find(materialTableStart, materialCount, GameIndexBuilder.getMaterialKey(whiteMaterial, blackMaterial)));
+    }
+
+    /**
+     * @return The number of games reaching the position, without decoding the posting list
+     */
+    public int countByPosition(long hash) {
+        long entry = find(positionTableStart, positionCount, hash);
+        return entry < 0 ? 0 : getInt(entry + 16);
+    }
+
+    /**
+     * @return The games present in both sorted arrays
+     */
+    public static long[] intersect(long[] first, long[] second) {
+        long[] values = new long[Math.min(first.length, second.length)];
+        int size = 0;
+
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                values[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return The position of the key entry in the file, -1 if not found
+     */
+    private long find(long tableStart, long count, long key) {
+        long low = 0;
+        long high = count - 1;
+
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long value = getLong(tableStart + middle * KEY_ENTRY_SIZE);
+
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return tableStart + middle * KEY_ENTRY_SIZE;
+            }
+        }
+
+        return -1;
+    }
+
+    private long[] getPostings(long entry) {
+        if (entry < 0) {
+            return EMPTY;
+        }
+
+        long offset = getLong(entry + 8);
+        long[] values = new long[getInt(entry + 16)];
+        long previous = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            long value = 0;
+            int shift = 0;
+            byte current;
+
+            do {
+                current = getByte(offset++);
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+
+            previous += value;
+            values[i] = previous;
+        }
+
+        return values;
+    }
+
+    private byte getByte(long position) {
+        return chunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask));
+    }
+
+    private int getInt(long position) {
+        int index = (int) (position & chunkMask);
+
+        if (index <= chunkMask - 3) {
+            return chunks[(int) (position >>> chunkShift)].getInt(index);
+        }
+
+        return (int) getSplit(position, 4); //The value is split between two chunks
+    }
+
+    private long getLong(long position) {
+        int index = (int) (position & chunkMask);
+
+        if (index <= chunkMask - 7) {
+            return chunks[(int) (position >>> chunkShift)].getLong(index);
+        }
+
+        return getSplit(position, 8);
+    }
+
+    private long getSplit(long position, int length) {
+        long value = 0;
+
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (getByte(position + i) & 0xFF);
+        }
+
+        return value;
+    }
+
+    /**
+     * Close the file, the mappings are released when the index is garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pgn.SanReader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Build a {@link GameIndex} file by replaying the archived games.
+ * <p>
+ * Every position reached by a game (and the material of the position) is mapped to the id of the game; the id is
+ * chosen by the caller, usually the offset of the game in the archive. The postings are kept in sorted runs of at most
+ * {@code runSize} entries spilled to temporary files, and merged into delta encoded varint posting lists when the
+ * index is written; the heap used does not depend on the number of games. The temporary files are deleted when the
+ * builder is closed. This class is not thread safe.
+ */
+public class GameIndexBuilder implements Closeable {
+    public static final int DEFAULT_RUN_SIZE = 1 << 21;
+
+    private final ChessBoard board = new ChessBoard();
+    private final SanReader sanReader = new SanReader();
+    private final PostingRuns positions;
+    private final PostingRuns materials;
+    private long[] signatures = new long[256];
+    private int signatureCount;
+    private long gameCount;
+
+    public GameIndexBuilder() {
+        this(DEFAULT_RUN_SIZE);
+    }
+
+    /**
+     * @param runSize - The number of postings kept in memory (16 bytes each, for the positions and for the materials)
+     *                before a run is spilled to a temporary file
+     */
+    public GameIndexBuilder(int runSize) {
+        assertThat(runSize).isPositive();
+
+        positions = new PostingRuns(runSize);
+        materials = new PostingRuns(runSize);
+    }
+
+    /**
+     * @param whiteMaterial - The points of the white pieces, see {@link ca.watier.echechess.common.enums.Pieces#getPoint()}
+     * @param blackMaterial - The points of the black pieces
+     * @return The key of the material, in the index
+     */
+    public static long getMaterialKey(int whiteMaterial, int blackMaterial) {
+        return ((long) whiteMaterial << 32) | (blackMaterial & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Add the positions of the game, the game is indexed up to the first illegal move
+     *
+     * @param gameId - The id of the game, must be positive
+     * @param moves  - The moves, in SAN, from the classic starting position
+     * @return The number of plies indexed
+     */
+    public int addGame(long gameId, @NotNull List<String> moves) {
+        assertThat(gameId).isNotNegative();
+        assertThat(moves).isNotNull();
+
+        board.setupStandardPosition();
+        gameCount++;
+        signatureCount = 0;
+        long signature = MaterialSignature.of(board);
+        addPosition(gameId, signature);
+
+        int ply = 0;
+        for (int size = moves.size(); ply < size; ply++) {
+            try {
+                board.makeMove(sanReader.resolve(board, moves.get(ply)));
+            } catch (RuntimeException | AssertionError e) {
+                break;
+            }
+
+            signature = MaterialSignature.afterMove(signature, board);
+            addPosition(gameId, signature);
+        }
+
+        return ply;
+    }
+
+    private void addPosition(long gameId, long signature) {
+        if (signatureCount == signatures.length) {
+            signatures = Arrays.copyOf(signatures, signatureCount << 1);
+        }
+
+        signatures[signatureCount++] = signature;
+        positions.add(board.getHash(), gameId);
+        materials.add(getMaterialKey(board.getWhiteMaterial(), board.getBlackMaterial()), gameId);
+    }
+
+    /**
+     * @return The {@link MaterialSignature} of each position of the last added game (starting position included), to
+     * be stored alongside the moves
+     */
+    public long[] getLastSignatures() {
+        return Arrays.copyOf(signatures, signatureCount);
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Write the index, the builder can still be used afterward
+     *
+     * @param path - The file to create (or replace)
+     * @throws IOException
+     */
+    public void write(@NotNull Path path) throws IOException {
+        assertThat(path).isNotNull();
+
+        Path tablesFile = Files.createTempFile("tables", ".bin");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel tablesChannel = FileChannel.open(tablesFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             PostingRuns.Cursor positionCursor = positions.open();
+             PostingRuns.Cursor materialCursor = materials.open()) {
+
+            //The key tables are written in a temporary file and appended after the posting lists
+            ByteBuffer data = ByteBuffer.allocateDirect(1 << 16);
+            ByteBuffer tables = ByteBuffer.allocateDirect(GameIndex.KEY_ENTRY_SIZE << 12);
+            channel.position(GameIndex.HEADER_SIZE);
+
+            PostingWriter writer = new PostingWriter(channel, data, tablesChannel, tables, GameIndex.HEADER_SIZE);
+            long positionCount = writer.writePostings(positionCursor);
+            long materialCount = writer.writePostings(materialCursor);
+            writeBuffer(channel, data);
+            writeBuffer(tablesChannel, tables);
+
+            long tablesOffset = writer.offset;
+            long tablesSize = tablesChannel.size();
+            for (long transferred = 0; transferred < tablesSize; ) {
+                transferred += tablesChannel.transferTo(transferred, tablesSize - transferred, channel);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(GameIndex.HEADER_SIZE);
+            header.putInt(GameIndex.MAGIC).putInt(0).putLong(positionCount).putLong(materialCount).putLong(tablesOffset);
+            header.flip();
+
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } finally {
+            Files.deleteIfExists(tablesFile);
+        }
+    }
+
+    /**
+     * Delete the temporary files of the postings
+     */
+    @Override
+    public void close() throws IOException {
+        positions.close();
+        materials.close();
+    }
+
+    private static int writeVarLong(ByteBuffer buffer, long value) {
+        int length = 1;
+
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            length++;
+        }
+
+        buffer.put((byte) value);
+        return length;
+    }
+
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static final class PostingWriter {
+        private final FileChannel channel;
+        private final ByteBuffer data;
+        private final FileChannel tablesChannel;
+        private final ByteBuffer tables;
+        private long offset;
+
+        private PostingWriter(FileChannel channel, ByteBuffer data, FileChannel tablesChannel, ByteBuffer tables, long offset) {
+            this.channel = channel;
+            this.data = data;
+            this.tablesChannel = tablesChannel;
+            this.tables = tables;
+            this.offset = offset;
+        }
+
+        /**
+         * Write the posting lists of the merged runs, and their key entries
+         *
+         * @return The number of keys
+         */
+        private long writePostings(PostingRuns.Cursor cursor) throws IOException {
+            long keyCount = 0;
+            boolean hasKey = false;
+            long key = 0;
+            long keyOffset = 0;
+            long count = 0;
+            long previous = 0;
+
+            while (cursor.next()) {
+                if (!hasKey || cursor.getKey() != key) {
+                    if (hasKey) {
+                        writeKey(key, keyOffset, count);
+                    }
+
+                    hasKey = true;
+                    keyCount++;
+                    key = cursor.getKey();
+                    keyOffset = offset;
+                    count = 0;
+                    previous = 0;
+                }
+
+                if (data.remaining() < 10) {
+                    writeBuffer(channel, data);
+                }
+
+                long id = cursor.getId();
+                offset += writeVarLong(data, id - previous);
+                previous = id;
+                count++;
+            }
+
+            if (hasKey) {
+                writeKey(key, keyOffset, count);
+            }
+
+            return keyCount;
+        }
+
+        private void writeKey(long key, long keyOffset, long count) throws IOException {
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many games for the key " + key + " (" + count + ")");
+            }
+
+            if (tables.remaining() < GameIndex.KEY_ENTRY_SIZE) {
+                writeBuffer(tablesChannel, tables);
+            }
+
+            tables.putLong(key).putLong(keyOffset).putInt((int) count);
+        }
+    }
+}
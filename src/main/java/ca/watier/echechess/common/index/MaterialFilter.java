@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.enums.Pieces;
+import org.jetbrains.annotations.NotNull;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An immutable filter on the {@link MaterialSignature}, with a minimum and a maximum count for each piece.
+ * <p>
+ * All the fields are checked at once with the guard bits of the signature (no branch by piece), so the scans over
+ * the arrays of signatures are cheap enough to run before any replay of the games.
+ */
+public final class MaterialFilter {
+    private static final MaterialFilter ANY = new MaterialFilter(MaterialSignature.EMPTY, MaterialSignature.MAX_SIGNATURE);
+
+    private final long minSignature;
+    private final long maxSignature;
+
+    private MaterialFilter(long minSignature, long maxSignature) {
+        this.minSignature = minSignature;
+        this.maxSignature = maxSignature;
+    }
+
+    /**
+     * @return A filter matching all the signatures
+     */
+    public static MaterialFilter any() {
+        return ANY;
+    }
+
+    /**
+     * @return A filter matching only the signature
+     */
+    public static MaterialFilter exact(long signature) {
+        return new MaterialFilter(signature, signature);
+    }
+
+    /**
+     * @return A copy of the filter, with the count of the piece between min and max (inclusive)
+     */
+    public MaterialFilter withRange(@NotNull Pieces piece, int min, int max) {
+        assertThat(piece).isNotNull();
+        assertThat(min).isBetween(0, max);
+
+        return new MaterialFilter(MaterialSignature.setCount(minSignature, piece, min), MaterialSignature.setCount(maxSignature, piece, max));
+    }
+
+    /**
+     * @return A copy of the filter, with the exact count of the piece
+     */
+    public MaterialFilter withCount(@NotNull Pieces piece, int count) {
+        return withRange(piece, count, count);
+    }
+
+    public boolean matches(long signature) {
+        long guards = MaterialSignature.GUARD_BITS;
+
+        //A borrow clears the guard bit of a field when the count is lower than the minimum (or higher than the maximum)
+        return ((((signature | guards) - minSignature) & ((maxSignature | guards) - signature)) & guards) == guards;
+    }
+
+    /**
+     * @param signatures - The signatures (usually one by ply)
+     * @param from       - The first index (inclusive)
+     * @param to         - The last index (exclusive)
+     * @return The first matching index, -1 if none
+     */
+    public int firstMatch(@NotNull long[] signatures, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (matches(signatures[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean anyMatch(@NotNull long[] signatures) {
+        return firstMatch(signatures, 0, signatures.length) >= 0;
+    }
+
+    /**
+     * @return The number of matching signatures
+     */
+    public int count(@NotNull long[] signatures) {
+        long guards = MaterialSignature.GUARD_BITS;
+        int count = 0;
+
+        for (long signature : signatures) {
+            long value = (((signature | guards) - minSignature) & ((maxSignature | guards) - signature)) & guards;
+            count += (int) ((value ^ guards) - 1 >>> 63); //1 when all the guards are set, without branch
+        }
+
+        return count;
+    }
+
+    /**
+     * @param games  - The signatures of each game, by ply
+     * @param result - The buffer receiving the indexes of the games matching at least one ply
+     * @return The number of games written in the result
+     */
+    public int filterGames(@NotNull long[][] games, @NotNull int[] result) {
+        assertThat(games).isNotNull();
+        assertThat(result).isNotNull();
+
+        int size = 0;
+
+        for (int i = 0; i < games.length && size < result.length; i++) {
+            if (anyMatch(games[i])) {
+                result[size++] = i;
+            }
+        }
+
+        return size;
+    }
+
+    public long getMinSignature() {
+        return minSignature;
+    }
+
+    public long getMaxSignature() {
+        return maxSignature;
+    }
+}
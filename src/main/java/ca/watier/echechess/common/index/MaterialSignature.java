@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import org.jetbrains.annotations.NotNull;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The material of a position, packed in a long: the number of pieces of each {@link Pieces} value is stored in a field
+ * of {@link #FIELD_BITS} bits (indexed by the ordinal); the highest bit of each field is always zero and is used as a
+ * guard by the {@link MaterialFilter}.
+ */
+public final class MaterialSignature {
+    public static final int FIELD_BITS = 5;
+    public static final int MAX_COUNT = 15;
+    public static final long EMPTY = 0L;
+    /**
+     * The guard bit of each field
+     */
+    public static final long GUARD_BITS;
+    /**
+     * The maximum count in each field
+     */
+    public static final long MAX_SIGNATURE;
+    private static final Pieces[] PIECES = Pieces.values();
+
+    static {
+        long guards = 0L;
+        long max = 0L;
+
+        for (Pieces piece : PIECES) {
+            guards |= 0x10L << getShift(piece);
+            max |= (long) MAX_COUNT << getShift(piece);
+        }
+
+        GUARD_BITS = guards;
+        MAX_SIGNATURE = max;
+    }
+
+    private MaterialSignature() {
+    }
+
+    private static int getShift(Pieces piece) {
+        return piece.ordinal() * FIELD_BITS;
+    }
+
+    /**
+     * @return The signature of the pieces on the board
+     */
+    public static long of(@NotNull ChessBoard board) {
+        long signature = EMPTY;
+
+        for (int square = 0; square < 64; square++) {
+            Pieces piece = board.getPiece(square);
+
+            if (piece != null) {
+                signature = add(signature, piece);
+            }
+        }
+
+        return signature;
+    }
+
+    /**
+     * @return The signature of the pieces
+     */
+    public static long of(@NotNull Iterable<Pieces> pieces) {
+        long signature = EMPTY;
+
+        for (Pieces piece : pieces) {
+            signature = add(signature, piece);
+        }
+
+        return signature;
+    }
+
+    public static int getCount(long signature, @NotNull Pieces piece) {
+        return (int) (signature >>> getShift(piece)) & MAX_COUNT;
+    }
+
+    public static long setCount(long signature, @NotNull Pieces piece, int count) {
+        assertThat(count).isBetween(0, MAX_COUNT);
+
+        int shift = getShift(piece);
+        return (signature & ~((long) MAX_COUNT << shift)) | ((long) count << shift);
+    }
+
+    public static long add(long signature, @NotNull Pieces piece) {
+        return setCount(signature, piece, getCount(signature, piece) + 1);
+    }
+
+    public static long remove(long signature, @NotNull Pieces piece) {
+        return setCount(signature, piece, getCount(signature, piece) - 1);
+    }
+
+    /**
+     * Update the signature incrementally, with the last move played on the board
+     *
+     * @param signature - The signature before the move
+     * @param board     - The board, after the move
+     * @return The signature after the move
+     */
+    public static long afterMove(long signature, @NotNull ChessBoard board) {
+        Pieces captured = board.getLastCapturedPiece();
+
+        if (captured != null) {
+            signature = remove(signature, captured);
+        }
+
+        Pieces promotion = BoardMoves.getPromotion(board.getPlayedMove(0));
+
+        if (promotion != null) {
+            signature = remove(signature, Side.WHITE.equals(promotion.getSide()) ? Pieces.W_PAWN : Pieces.B_PAWN);
+            signature = add(signature, promotion);
+        }
+
+        return signature;
+    }
+
+    /**
+     * @return The points of the side, see {@link Pieces#getPoint()} (the kings are ignored)
+     */
+    public static int getPoints(long signature, @NotNull Side side) {
+        int points = 0;
+
+        for (Pieces piece : PIECES) {
+            if (side.equals(piece.getSide()) && !Pieces.isKing(piece)) {
+                points += getCount(signature, piece) * piece.getPoint();
+            }
+        }
+
+        return points;
+    }
+
+    public static String toString(long signature) {
+        StringBuilder value = new StringBuilder();
+
+        for (Pieces piece : PIECES) {
+            int count = getCount(signature, piece);
+
+            if (count > 0) {
+                value.append(piece.name()).append('=').append(count).append(' ');
+            }
+        }
+
+        return value.toString().trim();
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The (key, game id) postings of the {@link GameIndexBuilder}, collected in bounded runs that are sorted and spilled
+ * to temporary files; the runs are merged in (key, id) order when the index is written, so the heap used by the
+ * builder does not depend on the size of the archive. This class is not thread safe.
+ */
+final class PostingRuns implements Closeable {
+    private static final int PAIR_SIZE = 16; //key (8) + id (8)
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int runSize;
+    private final List<Path> files = new ArrayList<>();
+    private long[] keys = new long[1024];
+    private long[] ids = new long[1024];
+    private int size;
+
+    PostingRuns(int runSize) {
+        this.runSize = runSize;
+    }
+
+    void add(long key, long id) {
+        if (size == keys.length) {
+            if (size < runSize) {
+                int capacity = (int) Math.min(runSize, (long) size << 1);
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            } else {
+                spill();
+            }
+        }
+
+        keys[size] = key;
+        ids[size++] = id;
+    }
+
+    /**
+     * Sort the pending postings and write them in a new run file
+     */
+    void spill() {
+        if (size == 0) {
+            return;
+        }
+
+        sort(0, size - 1);
+
+        try {
+            Path file = Files.createTempFile("postings", ".run");
+            files.add(file);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+                for (int i = 0; i < size; i++) {
+                    if (i > 0 && keys[i] == keys[i - 1] && ids[i] == ids[i - 1]) {
+                        continue;
+                    }
+
+                    if (buffer.remaining() < PAIR_SIZE) {
+                        writeBuffer(channel, buffer);
+                    }
+
+                    buffer.putLong(keys[i]).putLong(ids[i]);
+                }
+
+                writeBuffer(channel, buffer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to spill the postings", e);
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Spill the pending postings and open a cursor over all the runs, the distinct pairs are returned in (key, id)
+     * order
+     */
+    Cursor open() throws IOException {
+        spill();
+        return new Cursor(files);
+    }
+
+    /**
+     * Delete the run files
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+
+        files.clear();
+        size = 0;
+    }
+
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private int compare(int first, int second) {
+        int comparison = Long.compare(keys[first], keys[second]);
+        return comparison != 0 ? comparison : Long.compare(ids[first], ids[second]);
+    }
+
+    private void swap(int first, int second) {
+        long key = keys[first];
+        keys[first] = keys[second];
+        keys[second] = key;
+
+        long id = ids[first];
+        ids[first] = ids[second];
+        ids[second] = id;
+    }
+
+    /**
+     * Three way quicksort of the pairs, the postings of a material key contain a lot of equal keys
+     */
+    private void sort(int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            swap(low, (low + high) >>> 1);
+
+            int lessThan = low;
+            int greaterThan = high;
+            int index = low + 1;
+
+            while (index <= greaterThan) {
+                int comparison = compare(index, lessThan);
+
+                if (comparison < 0) {
+                    swap(lessThan++, index++);
+                } else if (comparison > 0) {
+                    swap(index, greaterThan--);
+                } else {
+                    index++;
+                }
+            }
+
+            //Recurse on the smaller side, to bound the stack
+            if (lessThan - low < high - greaterThan) {
+                sort(low, lessThan - 1);
+                low = greaterThan + 1;
+            } else {
+                sort(greaterThan + 1, high);
+                high = lessThan - 1;
+            }
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    /**
+     * K-way merge of the sorted runs
+     */
+    static final class Cursor implements Closeable {
+        private final PriorityQueue<RunReader> queue = new PriorityQueue<>(PostingRuns::compareReaders);
+        private final List<RunReader> readers = new ArrayList<>();
+        private long key;
+        private long id;
+        private boolean started;
+
+        private Cursor(List<Path> files) throws IOException {
+            try {
+                for (Path file : files) {
+                    RunReader reader = new RunReader(file);
+                    readers.add(reader);
+
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return false when all the pairs were read
+         */
+        boolean next() throws IOException {
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                long currentKey = reader.key;
+                long currentId = reader.id;
+
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+
+                if (!started || currentKey != key || currentId != id) {
+                    started = true;
+                    key = currentKey;
+                    id = currentId;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        long getKey() {
+            return key;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.channel.close();
+            }
+        }
+    }
+
+    private static int compareReaders(RunReader first, RunReader second) {
+        int comparison = Long.compare(first.key, second.key);
+        return comparison != 0 ? comparison : Long.compare(first.id, second.id);
+    }
+
+    private static final class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long key;
+        private long id;
+
+        private RunReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        private boolean next() throws IOException {
+            if (buffer.remaining() < PAIR_SIZE) {
+                buffer.compact();
+
+                while (buffer.position() < PAIR_SIZE) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+
+                buffer.flip();
+
+                if (buffer.remaining() < PAIR_SIZE) {
+                    return false;
+                }
+            }
+
+            key = buffer.getLong();
+            id = buffer.getLong();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.interfaces;
+
+import ca.watier.echechess.common.game.ChessBoard;
+
+/**
+ * A static evaluation of the positions, used by the search
+ */
+public interface Evaluator {
+
+    /**
+     * Called before a search on the board, to initialize the incremental state of the board (if any)
+     */
+    default void prepare(ChessBoard board) {
+    }
+
+    /**
+     * @param board - The position
+     * @return The score of the position, in centipawns, for the side to move
+     */
+    int evaluate(ChessBoard board);
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.interfaces;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.ArchivedGame;
+
+/**
+ * A statistic computed while the games of an archive are replayed.
+ * <p>
+ * Each thread fills its own partial statistic (created with {@link #newInstance()}); the partial statistics are then
+ * merged together, so the implementations don't need to be thread safe.
+ *
+ * @param <S> - The type of the implementation
+ */
+public interface GameStatistic<S extends GameStatistic<S>> {
+
+    /**
+     * @return A new empty statistic, with the same configuration
+     */
+    S newInstance();
+
+    default void onGameStart(ArchivedGame game) {
+    }
+
+    /**
+     * @param board - The board, after the move
+     * @param move  - The move played, see {@link ca.watier.echechess.common.game.BoardMoves}
+     */
+    default void onMove(ChessBoard board, int move) {
+    }
+
+    /**
+     * @param game     - The game
+     * @param board    - The board, at the end of the replay
+     * @param plyCount - The number of plies replayed (lower than the number of moves when a move is illegal)
+     */
+    default void onGameEnd(ArchivedGame game, ChessBoard board, int plyCount) {
+    }
+
+    /**
+     * Add the values of the other (partial) statistic to this one
+     */
+    void merge(S other);
+}
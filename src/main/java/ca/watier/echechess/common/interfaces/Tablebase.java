@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.interfaces;
+
+import ca.watier.echechess.common.enums.TablebaseWdl;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.TablebaseResult;
+
+/**
+ * Give the exact value (WDL / DTZ) of the endgame positions with few pieces
+ */
+public interface Tablebase {
+
+    /**
+     * @return The maximum number of pieces (kings included) of the positions found in the tablebase
+     */
+    int getMaxPieces();
+
+    /**
+     * @param board - The position
+     * @return The value of the position, null if the position is not in the tablebase
+     */
+    TablebaseResult probe(ChessBoard board);
+
+    /**
+     * Find the move keeping the best result: the fastest win (by DTZ), a draw, or the slowest loss
+     *
+     * @param board - The position, not modified
+     * @return The move, {@link BoardMoves#NO_MOVE} when a position is not in the tablebase or without legal move
+     */
+    default int getBestMove(ChessBoard board) {
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+        int bestMove = BoardMoves.NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            TablebaseResult result = probe(board);
+            boolean zeroing = board.getHalfMoveClock() == 0;
+            board.unmakeMove();
+
+            if (result == null) {
+                return BoardMoves.NO_MOVE;
+            }
+
+            int dtz = zeroing ? 1 : result.getDtz() + 1;
+            int score;
+
+            if (TablebaseWdl.LOSS.equals(result.getWdl())) { //The opponent loses
+                score = 1_000_000 - dtz;
+            } else if (TablebaseWdl.DRAW.equals(result.getWdl())) {
+                score = 0;
+            } else {
+                score = dtz - 1_000_000;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+
+        return bestMove;
+    }
+}
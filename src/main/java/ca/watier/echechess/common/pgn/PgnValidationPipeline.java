@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.PgnValidationResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay the imported games (list of SAN moves) on a {@link ChessBoard} and report the first illegal ply of each game.
+ * <p>
+ * The games are validated in parallel by a fixed pool of workers, each worker thread reuses its own board and
+ * {@link SanReader}. The counters are updated as the games are validated.
+ */
+public class PgnValidationPipeline implements Closeable {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final ExecutorService executorService;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+    private final LongAdder validatedGames = new LongAdder();
+    private final LongAdder invalidGames = new LongAdder();
+    private final LongAdder validatedPlies = new LongAdder();
+    private final long startTime = System.nanoTime();
+
+    /**
+     * @param workerCount - The number of threads validating the games
+     */
+    public PgnValidationPipeline(int workerCount) {
+        assertThat(workerCount).isPositive();
+
+        int poolNumber = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        executorService = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "pgn-validation-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Validate the game on the calling thread
+     *
+     * @param gameId - The id of the game, copied in the result
+     * @param moves  - The moves, in SAN, from the classic starting position
+     * @return
+     */
+    public PgnValidationResult validate(long gameId, @NotNull List<String> moves) {
+        assertThat(moves).isNotNull();
+
+        PgnValidationResult result = workers.get().validate(gameId, moves);
+
+        validatedGames.increment();
+        validatedPlies.add(result.getPlyCount());
+
+        if (!result.isValid()) {
+            invalidGames.increment();
+        }
+
+        return result;
+    }
+
+    /**
+     * @param gameId - The id of the game, copied in the result
+     * @param moves  - The moves, in SAN, from the classic starting position
+     * @return The result, once validated by a worker
+     */
+    public Future<PgnValidationResult> submit(long gameId, @NotNull List<String> moves) {
+        return executorService.submit(() -> validate(gameId, moves));
+    }
+
+    /**
+     * Validate all the games in parallel and wait for the results
+     *
+     * @param games - The games, the index of the game is used as id
+     * @return The results, in the same order as the games
+     */
+    public List<PgnValidationResult> validateAll(@NotNull List<List<String>> games) throws InterruptedException {
+        assertThat(games).isNotNull();
+
+        List<Future<PgnValidationResult>> futures = new ArrayList<>(games.size());
+        for (int i = 0; i < games.size(); i++) {
+            futures.add(submit(i, games.get(i)));
+        }
+
+        List<PgnValidationResult> results = new ArrayList<>(games.size());
+        for (Future<PgnValidationResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to validate the game", e.getCause());
+            }
+        }
+
+        return results;
+    }
+
+    public long getValidatedGames() {
+        return validatedGames.sum();
+    }
+
+    public long getInvalidGames() {
+        return invalidGames.sum();
+    }
+
+    public long getValidatedPlies() {
+        return validatedPlies.sum();
+    }
+
+    /**
+     * @return The ratio of invalid games, from 0 to 1
+     */
+    public double getErrorRate() {
+        long games = validatedGames.sum();
+        return games == 0 ? 0 : (double) invalidGames.sum() / games;
+    }
+
+    /**
+     * @return The number of games validated per second, since the creation of the pipeline
+     */
+    public double getGamesPerSecond() {
+        double seconds = (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0 : validatedGames.sum() / seconds;
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+
+    private static class Worker {
+        private final ChessBoard board = new ChessBoard();
+        private final SanReader sanReader = new SanReader();
+
+        private PgnValidationResult validate(long gameId, List<String> moves) {
+            board.setupStandardPosition();
+
+            for (int ply = 0, size = moves.size(); ply < size; ply++) {
+                String san = moves.get(ply);
+
+                try {
+                    board.makeMove(sanReader.resolve(board, san));
+                } catch (RuntimeException | AssertionError e) { //The parsers of the tokens throw IllegalStateException, IllegalArgumentException & AssertionError
+                    return new PgnValidationResult(gameId, ply, ply, san, e.getMessage());
+                }
+            }
+
+            return new PgnValidationResult(gameId, moves.size(), PgnValidationResult.NO_ILLEGAL_PLY, null, null);
+        }
+    }
+}
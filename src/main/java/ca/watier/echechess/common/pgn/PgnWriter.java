@@ -0,0 +1,296 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.MoveHistory;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stream the games in the PGN format to a {@link Writer} or a {@link WritableByteChannel} (UTF-8).
+ * <p>
+ * The text is accumulated in a bounded buffer, flushed to the destination when full; the movetext lines are wrapped
+ * at {@link #DEFAULT_LINE_LENGTH} characters. The moves are replayed on an internal {@link ChessBoard} to get the SAN.
+ * This class is not thread safe, use one writer per destination.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    public static final int DEFAULT_LINE_LENGTH = 80;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final String RESULT_TAG = "Result";
+
+    private final Writer writer;
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer byteBuffer;
+    private final CharBuffer charBuffer;
+    private final int maxLineLength;
+    private final ChessBoard board = new ChessBoard();
+    private final SanWriter sanWriter = new SanWriter();
+    private final StringBuilder token = new StringBuilder(16);
+    private int lineLength;
+    private boolean isFirstMove;
+    private long gameCount;
+
+    public PgnWriter(@NotNull Writer writer) {
+        this(writer, null, DEFAULT_BUFFER_SIZE, DEFAULT_LINE_LENGTH);
+    }
+
+    public PgnWriter(@NotNull WritableByteChannel channel) {
+        this(null, channel, DEFAULT_BUFFER_SIZE, DEFAULT_LINE_LENGTH);
+    }
+
+    /**
+     * @param writer        - The destination, null when writing to a channel
+     * @param channel       - The destination, null when writing to a writer
+     * @param bufferSize    - The number of characters kept before flushing to the destination
+     * @param maxLineLength - The maximum length of the movetext lines
+     */
+    public PgnWriter(Writer writer, WritableByteChannel channel, int bufferSize, int maxLineLength) {
+        assertThat(writer == null && channel == null).isFalse();
+        assertThat(bufferSize).isGreaterThanOrEqualTo(maxLineLength);
+
+        this.writer = writer;
+        this.channel = channel;
+        this.maxLineLength = maxLineLength;
+        this.charBuffer = CharBuffer.allocate(bufferSize);
+
+        if (channel != null) {
+            encoder = StandardCharsets.UTF_8.newEncoder();
+            byteBuffer = ByteBuffer.allocateDirect((int) (bufferSize * encoder.maxBytesPerChar()));
+        } else {
+            encoder = null;
+            byteBuffer = null;
+        }
+    }
+
+    /**
+     * Write a complete game, from the classic starting position. The promotions of the {@link MoveHistory} are
+     * written as queens, the history does not contain the chosen piece.
+     *
+     * @param tags   - The tag pairs, in the order to write them. The "Result" tag is added if missing.
+     * @param moves  - The moves of the game
+     * @param result - The result of the game
+     * @throws IOException
+     */
+    public void writeGame(@NotNull Map<String, String> tags, @NotNull List<MoveHistory> moves, @NotNull PgnEndGameToken result) throws IOException {
+        assertThat(moves).isNotNull();
+
+        board.setupStandardPosition();
+        startGame(tags, result);
+
+        for (MoveHistory moveHistory : moves) {
+            int move = board.findLegalMove(moveHistory.getFrom(), moveHistory.getTo(), null);
+
+            if (move == BoardMoves.NO_MOVE) {
+                throw new IllegalStateException("Illegal move in the history: " + moveHistory);
+            }
+
+            writeMove(board, move);
+            board.makeMove(move);
+        }
+
+        endGame(result);
+    }
+
+    /**
+     * Write the tag pairs of a new game, the moves are then added with {@link #writeMove(ChessBoard, int)}
+     *
+     * @param tags   - The tag pairs, in the order to write them. The "Result" tag is added if missing.
+     * @param result - The result of the game
+     * @throws IOException
+     */
+    public void startGame(@NotNull Map<String, String> tags, @NotNull PgnEndGameToken result) throws IOException {
+        assertThat(tags).isNotNull();
+
+        if (gameCount > 0) {
+            append('\n');
+        }
+
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeTag(tag.getKey(), tag.getValue());
+        }
+
+        if (!tags.containsKey(RESULT_TAG)) {
+            writeTag(RESULT_TAG, getResult(result));
+        }
+
+        append('\n');
+        lineLength = 0;
+        isFirstMove = true;
+        gameCount++;
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        append('[').append(name).append(" \"");
+
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char current = value.charAt(i);
+
+            if (current == '"' || current == '\\') {
+                append('\\');
+            }
+            append(current);
+        }
+
+        append("\"]\n");
+    }
+
+    /**
+     * Write the move in SAN, with the move number when needed. The move is not played on the board.
+     *
+     * @param board - The board, before the move
+     * @param move  - A legal move, encoded with {@link BoardMoves}
+     * @throws IOException
+     */
+    public void writeMove(@NotNull ChessBoard board, int move) throws IOException {
+        boolean isWhite = Side.WHITE.equals(board.getSideToMove());
+
+        if (isWhite || isFirstMove) {
+            token.setLength(0);
+            token.append(board.getFullMoveNumber()).append(isWhite ? "." : "...");
+            writeToken(token);
+        }
+
+        token.setLength(0);
+        sanWriter.appendTo(board, move, token);
+        writeToken(token);
+        isFirstMove = false;
+    }
+
+    /**
+     * Write the result, ending the movetext of the game
+     *
+     * @param result
+     * @throws IOException
+     */
+    public void endGame(@NotNull PgnEndGameToken result) throws IOException {
+        writeToken(getResult(result));
+        append("\n");
+        lineLength = 0;
+    }
+
+    private static String getResult(PgnEndGameToken result) {
+        return PgnEndGameToken.UNKNOWN.equals(result) ? PgnEndGameToken.STILL_IN_PROGRESS.getEnding() : result.getEnding();
+    }
+
+    private void writeToken(CharSequence value) throws IOException {
+        int length = value.length();
+
+        if (lineLength > 0) {
+            if (lineLength + 1 + length > maxLineLength) {
+                append('\n');
+                lineLength = 0;
+            } else {
+                append(' ');
+                lineLength++;
+            }
+        }
+
+        append(value);
+        lineLength += length;
+    }
+
+    private PgnWriter append(CharSequence value) throws IOException {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            append(value.charAt(i));
+        }
+
+        return this;
+    }
+
+    private PgnWriter append(char value) throws IOException {
+        if (!charBuffer.hasRemaining()) {
+            flushBuffer();
+        }
+
+        charBuffer.put(value);
+        return this;
+    }
+
+    private void flushBuffer() throws IOException {
+        charBuffer.flip();
+
+        if (writer != null) {
+            writer.write(charBuffer.array(), 0, charBuffer.limit());
+            charBuffer.clear();
+        } else {
+            CoderResult coderResult = encoder.encode(charBuffer, byteBuffer, false);
+
+            if (coderResult.isError()) {
+                coderResult.throwException();
+            }
+
+            writeBytes();
+            charBuffer.compact(); //Keep the characters not encoded yet (split surrogate pair)
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        byteBuffer.flip();
+
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+
+        byteBuffer.clear();
+    }
+
+    /**
+     * @return The number of games started
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+
+        if (writer != null) {
+            writer.close();
+        } else {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.PgnMoveToken;
+import ca.watier.echechess.common.enums.PgnPieceFound;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.PieceDataSection;
+import ca.watier.echechess.common.pojos.PieceSingleMoveSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Resolve the SAN of a move (parsed with the {@link PieceSingleMoveSection} and {@link PieceDataSection} tokens)
+ * against the legal moves of a {@link ChessBoard}.
+ * <p>
+ * The reader keeps a scratch buffer, use one instance per thread.
+ */
+public class SanReader {
+    private static final CasePosition[] POSITIONS = CasePosition.values();
+    private final int[] moves = new int[ChessBoard.MAX_MOVES];
+
+    /**
+     * @param board - The board, before the move
+     * @param san   - The move, in SAN
+     * @return The legal move matching the SAN, encoded with {@link BoardMoves}
+     * @throws IllegalStateException When the SAN cannot be parsed, is illegal or is ambiguous
+     */
+    public int resolve(@NotNull ChessBoard board, @NotNull String san) {
+        assertThat(board).isNotNull();
+        assertThat(san).isNotEmpty();
+
+        Side side = board.getSideToMove();
+        List<PgnMoveToken> tokens = PgnMoveToken.getPieceMovesFromLetter(san);
+        PgnMoveToken firstToken = tokens.get(0);
+        CasePosition castlingRookPosition = PgnMoveToken.getCastlingRookPosition(firstToken, side);
+
+        if (castlingRookPosition != null) {
+            int kingSquare = board.getKingSquare(side);
+            int move = (kingSquare == ChessBoard.NO_SQUARE) ? BoardMoves.NO_MOVE :
+                    board.findLegalMove(POSITIONS[kingSquare], castlingRookPosition, null);
+
+            if (move == BoardMoves.NO_MOVE) {
+                throw new IllegalStateException("Illegal castling " + san);
+            }
+
+            return move;
+        }
+
+        PieceSingleMoveSection section;
+        Pieces promotion = null;
+
+        if (tokens.contains(PgnMoveToken.CAPTURE) || tokens.contains(PgnMoveToken.PAWN_PROMOTION)) {
+            String source = "";
+            String target = null;
+
+            for (PieceDataSection dataSection : PieceDataSection.getParsedActions(san)) {
+                if (PgnMoveToken.CAPTURE.equals(dataSection.getToken())) {
+                    source = dataSection.getBefore();
+                    target = dataSection.getAfter();
+                } else if (PgnMoveToken.PAWN_PROMOTION.equals(dataSection.getToken())) {
+                    target = (target == null) ? dataSection.getBefore() : target;
+                    promotion = getPromotion(dataSection.getAfter(), side, san);
+                }
+            }
+
+            if (target == null) {
+                throw new IllegalStateException("Invalid move " + san);
+            }
+
+            section = PieceSingleMoveSection.getParsedActions(source + target);
+        } else {
+            section = PieceSingleMoveSection.getParsedActions(san);
+        }
+
+        return findMove(board, section, promotion, san);
+    }
+
+    private static Pieces getPromotion(String letter, Side side, String san) {
+        PgnPieceFound pgnPieceFound = PgnPieceFound.getPieceFromAction(letter);
+
+        if (PgnPieceFound.PAWN.equals(pgnPieceFound) || PgnPieceFound.KING.equals(pgnPieceFound)) {
+            throw new IllegalStateException("Invalid promotion " + san);
+        }
+
+        return pgnPieceFound.getPieceBySide(side);
+    }
+
+    private int findMove(ChessBoard board, PieceSingleMoveSection section, Pieces promotion, String san) {
+        Pieces piece = section.getPgnPieceFound().getPieceBySide(board.getSideToMove());
+        int to = section.getTo().ordinal();
+        Character column = section.getColumn();
+        Byte row = section.getRow();
+        int count = board.generateLegalMoves(moves);
+        int found = BoardMoves.NO_MOVE;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = BoardMoves.getFrom(move);
+
+            if (BoardMoves.getTo(move) != to || board.getPiece(from) != piece ||
+                    (column != null && 'a' + ChessBoard.getFile(from) != column) ||
+                    (row != null && 1 + ChessBoard.getRank(from) != row) ||
+                    BoardMoves.getPromotion(move) != promotion) {
+                continue;
+            }
+
+            if (found != BoardMoves.NO_MOVE) {
+                throw new IllegalStateException("Ambiguous move " + san);
+            }
+
+            found = move;
+        }
+
+        if (found == BoardMoves.NO_MOVE) {
+            throw new IllegalStateException("Illegal move " + san);
+        }
+
+        return found;
+    }
+}
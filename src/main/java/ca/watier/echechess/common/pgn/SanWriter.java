@@ -0,0 +1,191 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.PgnMoveToken;
+import ca.watier.echechess.common.enums.PgnPieceFound;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write the moves in the Standard Algebraic Notation (SAN) used by the PGN, with the letters of the {@link PgnPieceFound}
+ * and the suffixes of the {@link PgnMoveToken}.
+ * <p>
+ * The disambiguation (column, row or both) is only added when another piece of the same type can legally reach the
+ * target square. The writer keeps a scratch buffer, use one instance per thread.
+ */
+public class SanWriter {
+    private static final PgnPieceFound[] PGN_PIECES = new PgnPieceFound[Pieces.values().length];
+    private static final String CAPTURE = PgnMoveToken.CAPTURE.getChars().get(0);
+    private static final String CHECK = PgnMoveToken.CHECK.getChars().get(0);
+    private static final String CHECKMATE = PgnMoveToken.CHECKMATE.getChars().get(0);
+    private static final String PAWN_PROMOTION = PgnMoveToken.PAWN_PROMOTION.getChars().get(0);
+    private static final String KINGSIDE_CASTLING = PgnMoveToken.KINGSIDE_CASTLING.getChars().get(0);
+    private static final String QUEENSIDE_CASTLING = PgnMoveToken.QUEENSIDE_CASTLING.getChars().get(0);
+
+    static {
+        for (PgnPieceFound pgnPieceFound : PgnPieceFound.values()) {
+            for (Pieces piece : pgnPieceFound.getPieces()) {
+                PGN_PIECES[piece.ordinal()] = pgnPieceFound;
+            }
+        }
+    }
+
+    private final int[] attackers = new int[16];
+
+    /**
+     * @param piece
+     * @return The {@link PgnPieceFound} of the piece
+     */
+    public static PgnPieceFound getPgnPiece(Pieces piece) {
+        return PGN_PIECES[piece.ordinal()];
+    }
+
+    /**
+     * @param board - The board, before the move. The board is restored to the same position after the call.
+     * @param move  - A legal move, encoded with {@link BoardMoves}
+     * @return The SAN of the move
+     */
+    public String toSan(ChessBoard board, int move) {
+        StringBuilder builder = new StringBuilder(8);
+        appendTo(board, move, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Same as {@link #write(ChessBoard, int, Appendable)}, for the {@link StringBuilder} that never throw
+     */
+    public StringBuilder appendTo(ChessBoard board, int move, StringBuilder builder) {
+        try {
+            write(board, move, builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return builder;
+    }
+
+    /**
+     * Append the SAN of the move
+     *
+     * @param board - The board, before the move. The board is restored to the same position after the call.
+     * @param move  - A legal move, encoded with {@link BoardMoves}
+     * @param out   - The destination
+     * @throws IOException
+     */
+    public void write(ChessBoard board, int move, Appendable out) throws IOException {
+        assertThat(board).isNotNull();
+        assertThat(out).isNotNull();
+
+        int from = BoardMoves.getFrom(move);
+        int to = BoardMoves.getTo(move);
+        MoveType moveType = BoardMoves.getMoveType(move);
+        Pieces piece = board.getPiece(from);
+
+        if (piece == null) {
+            throw new IllegalStateException("There is no piece on " + BoardMoves.getFromPosition(move));
+        }
+
+        if (moveType == MoveType.CASTLING) {
+            out.append(ChessBoard.getFile(to) > ChessBoard.getFile(from) ? KINGSIDE_CASTLING : QUEENSIDE_CASTLING);
+        } else {
+            PgnPieceFound pgnPiece = PGN_PIECES[piece.ordinal()];
+            boolean isCapture = moveType == MoveType.EN_PASSANT || board.getPiece(to) != null;
+
+            if (pgnPiece == PgnPieceFound.PAWN) {
+                if (isCapture) {
+                    out.append(getColumn(from));
+                }
+            } else {
+                out.append(pgnPiece.getLetter());
+                writeDisambiguation(board, piece, from, to, out);
+            }
+
+            if (isCapture) {
+                out.append(CAPTURE);
+            }
+
+            out.append(getColumn(to)).append(getRow(to));
+
+            Pieces promotion = BoardMoves.getPromotion(move);
+            if (promotion != null) {
+                out.append(PAWN_PROMOTION).append(PGN_PIECES[promotion.ordinal()].getLetter());
+            }
+        }
+
+        writeCheckSuffix(board, move, out);
+    }
+
+    private void writeDisambiguation(ChessBoard board, Pieces piece, int from, int to, Appendable out) throws IOException {
+        int count = board.getAttackers(to, piece, attackers);
+        boolean isAmbiguous = false;
+        boolean isSameColumn = false;
+        boolean isSameRow = false;
+        MoveType moveType = board.getPiece(to) != null ? MoveType.CAPTURE : MoveType.NORMAL_MOVE;
+
+        for (int i = 0; i < count; i++) {
+            int other = attackers[i];
+
+            if (other == from || !board.isLegalPseudoMove(BoardMoves.of(other, to, moveType))) {
+                continue;
+            }
+
+            isAmbiguous = true;
+            isSameColumn |= ChessBoard.getFile(other) == ChessBoard.getFile(from);
+            isSameRow |= ChessBoard.getRank(other) == ChessBoard.getRank(from);
+        }
+
+        if (!isAmbiguous) {
+            return;
+        }
+
+        if (!isSameColumn) {
+            out.append(getColumn(from));
+        } else if (!isSameRow) {
+            out.append(getRow(from));
+        } else {
+            out.append(getColumn(from)).append(getRow(from));
+        }
+    }
+
+    private static void writeCheckSuffix(ChessBoard board, int move, Appendable out) throws IOException {
+        board.makeMove(move);
+
+        Side otherSide = board.getSideToMove();
+        if (board.isKingCheck(otherSide)) {
+            out.append(board.hasLegalMove() ? CHECK : CHECKMATE);
+        }
+
+        board.unmakeMove();
+    }
+
+    private static char getColumn(int square) {
+        return (char) ('a' + ChessBoard.getFile(square));
+    }
+
+    private static char getRow(int square) {
+        return (char) ('1' + ChessBoard.getRank(square));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pojos;
+
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+
+import java.util.List;
+
+/**
+ * A game read from an archive: the moves (in SAN, from the classic starting position) and the result
+ */
+public class ArchivedGame {
+    private final long gameId;
+    private final List<String> moves;
+    private final PgnEndGameToken result;
+
+    public ArchivedGame(long gameId, List<String> moves, PgnEndGameToken result) {
+        this.gameId = gameId;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public List<String> getMoves() {
+        return moves;
+    }
+
+    public PgnEndGameToken getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedGame{" +
+                "gameId=" + gameId +
+                ", moves=" + moves +
+                ", result=" + result +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pojos;
+
+import ca.watier.echechess.common.utils.KeystoreGenerator.KeystorePasswordHolder;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The keystores created by a batch, with the files written (if any) and the elapsed time
+ */
+public class KeystoreBatchResult {
+    private final List<KeystorePasswordHolder> keystores;
+    private final List<Path> files;
+    private final long elapsedNanos;
+
+    public KeystoreBatchResult(List<KeystorePasswordHolder> keystores, List<Path> files, long elapsedNanos) {
+        this.keystores = keystores;
+        this.files = files;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The keystores, in the order of their index
+     */
+    public List<KeystorePasswordHolder> getKeystores() {
+        return Collections.unmodifiableList(keystores);
+    }
+
+    /**
+     * @return The PKCS12 files, in the same order as the keystores; empty when no directory was given
+     */
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getKeystoresPerSecond() {
+        return elapsedNanos <= 0 ? 0 : keystores.size() * 1_000_000_000D / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "KeystoreBatchResult{" +
+                "keystores=" + keystores.size() +
+                ", files=" + files.size() +
+                ", elapsedNanos=" + elapsedNanos +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pojos;
+
+import ca.watier.echechess.common.game.BoardMoves;
+
+/**
+ * A move of the opening book, for a position
+ */
+public class OpeningBookEntry {
+    private final long hash;
+    private final int move;
+    private final int weight;
+    private final int count;
+
+    public OpeningBookEntry(long hash, int move, int weight, int count) {
+        this.hash = hash;
+        this.move = move;
+        this.weight = weight;
+        this.count = count;
+    }
+
+    /**
+     * @return The hash of the position, before the move
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return The move, encoded with {@link BoardMoves}
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return The score of the move (2 points by win and 1 point by draw, for the player to move)
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return The number of games where the move was played
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "OpeningBookEntry{" +
+                "hash=" + hash +
+                ", move=" + BoardMoves.toString(move) +
+                ", weight=" + weight +
+                ", count=" + count +
+                '}';
+    }
+}
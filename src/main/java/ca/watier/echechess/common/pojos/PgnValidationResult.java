@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pojos;
+
+/**
+ * The result of the replay of an imported game
+ */
+public class PgnValidationResult {
+    public static final int NO_ILLEGAL_PLY = -1;
+
+    private final long gameId;
+    private final int plyCount;
+    private final int illegalPly;
+    private final String illegalMove;
+    private final String reason;
+
+    public PgnValidationResult(long gameId, int plyCount, int illegalPly, String illegalMove, String reason) {
+        this.gameId = gameId;
+        this.plyCount = plyCount;
+        this.illegalPly = illegalPly;
+        this.illegalMove = illegalMove;
+        this.reason = reason;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return The number of plies replayed successfully
+     */
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    /**
+     * @return The index (from 0) of the first illegal ply, {@link #NO_ILLEGAL_PLY} if the game is valid
+     */
+    public int getIllegalPly() {
+        return illegalPly;
+    }
+
+    public String getIllegalMove() {
+        return illegalMove;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isValid() {
+        return illegalPly == NO_ILLEGAL_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return "PgnValidationResult{" +
+                "gameId=" + gameId +
+                ", plyCount=" + plyCount +
+                ", illegalPly=" + illegalPly +
+                ", illegalMove='" + illegalMove + '\'' +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
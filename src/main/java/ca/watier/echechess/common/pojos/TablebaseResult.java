@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pojos;
+
+import ca.watier.echechess.common.enums.TablebaseWdl;
+
+/**
+ * The value of a position found in a tablebase
+ */
+public class TablebaseResult {
+    public static final TablebaseResult DRAW = new TablebaseResult(TablebaseWdl.DRAW, 0);
+
+    private final TablebaseWdl wdl;
+    private final int dtz;
+
+    public TablebaseResult(TablebaseWdl wdl, int dtz) {
+        this.wdl = wdl;
+        this.dtz = dtz;
+    }
+
+    /**
+     * @return The result, for the side to move
+     */
+    public TablebaseWdl getWdl() {
+        return wdl;
+    }
+
+    /**
+     * @return The number of plies before the next capture, pawn move or checkmate (with the best play of both sides),
+     * 0 for a draw or when the side to move is checkmated
+     */
+    public int getDtz() {
+        return dtz;
+    }
+
+    @Override
+    public String toString() {
+        return "TablebaseResult{" +
+                "wdl=" + wdl +
+                ", dtz=" + dtz +
+                '}';
+    }
+}
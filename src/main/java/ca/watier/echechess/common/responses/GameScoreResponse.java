@@ -20,6 +20,17 @@ package ca.watier.echechess.common.responses;
  * Created by yannick on 6/9/2017.
  */
 public class GameScoreResponse {
+    public static final short MAX_CACHED_POINT = 39; //The points of a side at the start of a classic game, without the king
+    private static final GameScoreResponse[] CACHED_RESPONSES = new GameScoreResponse[(MAX_CACHED_POINT + 1) * (MAX_CACHED_POINT + 1)];
+
+    static {
+        for (short white = 0; white <= MAX_CACHED_POINT; white++) {
+            for (short black = 0; black <= MAX_CACHED_POINT; black++) {
+                CACHED_RESPONSES[white * (MAX_CACHED_POINT + 1) + black] = new GameScoreResponse(white, black);
+            }
+        }
+    }
+
     private short whitePlayerPoint;
     private short blackPlayerPoint;
 
@@ -28,6 +39,21 @@ public class GameScoreResponse {
         this.blackPlayerPoint = blackPlayerPoint;
     }
 
+    /**
+     * Gets a shared instance for the common scores (0 to {@link #MAX_CACHED_POINT}), a new instance otherwise
+     *
+     * @param whitePlayerPoint
+     * @param blackPlayerPoint
+     * @return
+     */
+    public static GameScoreResponse getResponse(short whitePlayerPoint, short blackPlayerPoint) {
+        if (whitePlayerPoint < 0 || whitePlayerPoint > MAX_CACHED_POINT || blackPlayerPoint < 0 || blackPlayerPoint > MAX_CACHED_POINT) {
+            return new GameScoreResponse(whitePlayerPoint, blackPlayerPoint);
+        }
+
+        return CACHED_RESPONSES[whitePlayerPoint * (MAX_CACHED_POINT + 1) + blackPlayerPoint];
+    }
+
     public short getWhitePlayerPoint() {
         return whitePlayerPoint;
     }
@@ -0,0 +1,203 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.search;
+
+import ca.watier.echechess.common.eval.TaperedEvaluator;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.Evaluator;
+import ca.watier.echechess.common.pojos.SearchResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A parallel search (Lazy SMP): the helper threads run an iterative deepening on their own copy of the board, and
+ * share the {@link TranspositionTable}. To search different trees, the odd helpers skip every other depth (they are
+ * ahead of the main search) and each helper orders the root moves differently. The helpers fill the table with the
+ * positions the main search will reach, and are stopped when the main search ends; the result of the thread with the
+ * deepest completed iteration is returned.
+ * <p>
+ * With one thread, the search runs on the calling thread and the result is deterministic (for a new instance, or
+ * after {@link #clear()}, without time budget).
+ */
+public class ParallelSearch implements Closeable {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final TranspositionTable table;
+    private final SearchEngine mainEngine;
+    private final SearchEngine[] helpers;
+    private final ChessBoard[] helperBoards;
+    private final AtomicBoolean helpersStop = new AtomicBoolean();
+    private final ExecutorService executorService;
+
+    public ParallelSearch() {
+        this(Runtime.getRuntime().availableProcessors(), TranspositionTable.DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param threadCount - The number of threads, including the calling thread
+     * @param tableSizeMb - The size of the shared transposition table
+     */
+    public ParallelSearch(int threadCount, int tableSizeMb) {
+        this(threadCount, tableSizeMb, new TaperedEvaluator());
+    }
+
+    /**
+     * @param threadCount - The number of threads, including the calling thread
+     * @param tableSizeMb - The size of the shared transposition table
+     * @param evaluator   - The evaluation of the positions, shared by the threads (must be thread safe)
+     */
+    public ParallelSearch(int threadCount, int tableSizeMb, @NotNull Evaluator evaluator) {
+        assertThat(threadCount).isPositive();
+
+        table = new TranspositionTable(tableSizeMb);
+        mainEngine = new SearchEngine(table, evaluator);
+        helpers = new SearchEngine[threadCount - 1];
+        helperBoards = new ChessBoard[threadCount - 1];
+
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new SearchEngine(table, evaluator, helpersStop, i + 1);
+            helperBoards[i] = new ChessBoard();
+        }
+
+        if (helpers.length == 0) {
+            executorService = null;
+        } else {
+            int poolNumber = POOL_NUMBER.incrementAndGet();
+            AtomicInteger threadNumber = new AtomicInteger();
+
+            executorService = Executors.newFixedThreadPool(helpers.length, runnable -> {
+                Thread thread = new Thread(runnable, "parallel-search-" + poolNumber + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Search the best move of the player to move, the board is restored before returning. Not thread safe, one search
+     * at a time.
+     *
+     * @param board            - The position
+     * @param maxDepth         - The maximum depth, in plies
+     * @param timeBudgetMillis - The maximum time of the search, 0 for no limit
+     * @return The result of the deepest search (the main search on equality), with the nodes of all the threads
+     */
+    public SearchResult search(@NotNull ChessBoard board, int maxDepth, long timeBudgetMillis) {
+        assertThat(board).isNotNull();
+
+        if (helpers.length == 0) {
+            return mainEngine.search(board, maxDepth, timeBudgetMillis);
+        }
+
+        long start = System.nanoTime();
+        helpersStop.set(false);
+        List<Future<SearchResult>> futures = new ArrayList<>(helpers.length);
+
+        for (int i = 0; i < helpers.length; i++) {
+            SearchEngine helper = helpers[i];
+            ChessBoard helperBoard = helperBoards[i];
+            helperBoard.copyFrom(board);
+            futures.add(executorService.submit(() -> helper.search(helperBoard, maxDepth, timeBudgetMillis)));
+        }
+
+        SearchResult result;
+        try {
+            result = mainEngine.search(board, maxDepth, timeBudgetMillis);
+        } finally {
+            helpersStop.set(true);
+        }
+
+        long nodes = result.getNodes();
+        for (Future<SearchResult> future : futures) {
+            try {
+                SearchResult helperResult = future.get();
+                nodes += helperResult.getNodes();
+
+                if (helperResult.getDepth() > result.getDepth() && helperResult.getBestMove() != BoardMoves.NO_MOVE) {
+                    result = helperResult;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the helpers", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("The helper search failed", e.getCause());
+            }
+        }
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), result.getPrincipalVariation(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Stop the current search (from another thread)
+     */
+    public void stop() {
+        helpersStop.set(true);
+        mainEngine.stop();
+    }
+
+    /**
+     * Clear the transposition table and the move ordering history of the threads, for a new game
+     */
+    public void clear() {
+        table.clear();
+        mainEngine.clearHistory();
+
+        for (SearchEngine helper : helpers) {
+            helper.clearHistory();
+        }
+    }
+
+    /**
+     * @return The nodes of the last search of each thread
+     */
+    long getThreadNodes() {
+        long nodes = mainEngine.getNodes();
+
+        for (SearchEngine helper : helpers) {
+            nodes += helper.getNodes();
+        }
+
+        return nodes;
+    }
+
+    public int getThreadCount() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    @Override
+    public void close() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,521 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.search;
+
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.eval.TaperedEvaluator;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.Evaluator;
+import ca.watier.echechess.common.pojos.SearchResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A principal variation search (alpha-beta with null windows), with iterative deepening and a quiescence search on
+ * the captures and promotions.
+ * <p>
+ * The moves are ordered by the principal variation of the previous iteration, the captures (MVV-LVA, with the
+ * {@link Pieces#getPoint()}), the killer moves and the history; the {@link TranspositionTable} gives the best move of
+ * the positions already searched, and the cutoffs outside of the principal variation. All the buffers are allocated
+ * once by engine, so the search itself does not allocate; an engine must be used by one thread at a time, but the
+ * table can be shared between engines.
+ */
+public class SearchEngine {
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 32_000;
+    public static final int MATE = 31_000;
+    /**
+     * The scores above are mates, in (MATE - score) plies
+     */
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    private static final int TIME_CHECK_MASK = 2047;
+    private static final int PV_SCORE = 1_000_000;
+    private static final int TABLE_MOVE_SCORE = 900_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int FIRST_KILLER_SCORE = 90_000;
+    private static final int SECOND_KILLER_SCORE = 80_000;
+    private static final int MAX_HISTORY = 50_000;
+
+    private final int[][] moves = new int[MAX_PLY + 1][ChessBoard.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY + 1][ChessBoard.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[Pieces.values().length][64];
+    private final TranspositionTable table;
+    private final Evaluator evaluator;
+    private final AtomicBoolean sharedStop;
+    private final int helperIndex;
+    private ChessBoard board;
+    private int previousPvLength;
+    private boolean followPv;
+    private long nodes;
+    private long deadline;
+    private boolean timeCheck;
+    private volatile boolean stopped;
+
+    public SearchEngine() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * @param table - The transposition table, can be shared with other engines
+     */
+    public SearchEngine(@NotNull TranspositionTable table) {
+        this(table, new TaperedEvaluator());
+    }
+
+    /**
+     * @param table     - The transposition table, can be shared with other engines
+     * @param evaluator - The evaluation of the positions
+     */
+    public SearchEngine(@NotNull TranspositionTable table, @NotNull Evaluator evaluator) {
+        this(table, evaluator, null, 0);
+    }
+
+    /**
+     * @param table       - The transposition table, can be shared with other engines
+     * @param evaluator   - The evaluation of the positions
+     * @param sharedStop  - A flag stopping the search when set, checked even in the first iteration (can be null)
+     * @param helperIndex - 0 for a main search; for a helper of a parallel search, the odd helpers skip every other
+     *                    depth and the order of the root moves is perturbed by helper, so the threads do not search
+     *                    the same tree
+     */
+    SearchEngine(@NotNull TranspositionTable table, @NotNull Evaluator evaluator, AtomicBoolean sharedStop, int helperIndex) {
+        assertThat(table).isNotNull();
+        assertThat(evaluator).isNotNull();
+        assertThat(helperIndex).isNotNegative();
+
+        this.table = table;
+        this.evaluator = evaluator;
+        this.sharedStop = sharedStop;
+        this.helperIndex = helperIndex;
+    }
+
+    /**
+     * Search the best move of the player to move; the board is restored before returning
+     *
+     * @param board            - The position
+     * @param maxDepth         - The maximum depth, in plies
+     * @param timeBudgetMillis - The maximum time of the search, 0 for no limit (the first iteration is always completed)
+     * @return The result of the last completed iteration
+     */
+    public SearchResult search(@NotNull ChessBoard board, int maxDepth, long timeBudgetMillis) {
+        assertThat(board).isNotNull();
+        assertThat(maxDepth).isBetween(1, MAX_PLY);
+        assertThat(timeBudgetMillis).isNotNegative();
+
+        long start = System.nanoTime();
+        this.board = board;
+        this.deadline = timeBudgetMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis) : 0;
+        this.timeCheck = false;
+        this.stopped = false;
+        this.nodes = 0;
+        this.previousPvLength = 0;
+        clearHeuristics();
+        evaluator.prepare(board);
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] bestPv = new int[0];
+        int depthStep = (helperIndex & 1) + 1;
+        int depth = Math.min(depthStep, maxDepth);
+
+        while (true) {
+            followPv = true;
+            int score = search(depth, 0, -INFINITY, INFINITY);
+
+            if (stopped) {
+                break;
+            }
+
+            bestScore = score;
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            bestPv = Arrays.copyOf(previousPv, previousPvLength);
+            timeCheck = true;
+
+            if (previousPvLength == 0 || Math.abs(score) >= MATE_BOUND || depth == maxDepth) {
+                break; //No legal move, a forced mate found or the maximum depth reached
+            }
+
+            depth = Math.min(maxDepth, depth + depthStep);
+        }
+
+        int bestMove = bestPv.length > 0 ? bestPv[0] : BoardMoves.NO_MOVE;
+        return new SearchResult(bestMove, bestScore, completedDepth, bestPv, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Stop the current search (from another thread), the result of the last completed iteration is returned
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return The number of nodes of the current (or last) search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param board - The position
+     * @return The score of the position, in centipawns, for the side to move
+     */
+    protected int evaluate(ChessBoard board) {
+        return evaluator.evaluate(board);
+    }
+
+    /**
+     * Forget the killer moves and the history, they are otherwise aged and kept between the searches
+     */
+    void clearHistory() {
+        for (int[] values : killers) {
+            Arrays.fill(values, BoardMoves.NO_MOVE);
+        }
+
+        for (int[] values : history) {
+            Arrays.fill(values, 0);
+        }
+    }
+
+    private void clearHeuristics() {
+        for (int[] values : killers) {
+            Arrays.fill(values, BoardMoves.NO_MOVE);
+        }
+
+        for (int[] values : history) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] >>= 3;
+            }
+        }
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    private void checkTime() {
+        if (sharedStop != null && sharedStop.get()) {
+            stopped = true;
+        } else if (timeCheck && deadline > 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+
+        if ((++nodes & TIME_CHECK_MASK) == 0) {
+            checkTime();
+        }
+
+        if (stopped) {
+            return 0;
+        }
+
+        if (ply > 0 && (board.getHalfMoveClock() >= 100 || board.isRepetition())) {
+            return 0;
+        }
+
+        Side side = board.getSideToMove();
+        boolean inCheck = board.isKingCheck(side);
+
+        if (inCheck) {
+            depth++;
+        }
+
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        long hash = board.getHash();
+        long entry = table.probe(hash);
+        int tableMove = BoardMoves.NO_MOVE;
+
+        if (entry != TranspositionTable.NO_ENTRY) {
+            tableMove = TranspositionTable.getMove(entry);
+
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = TranspositionTable.fromTableScore(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+
+                if (bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                        (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = board.generatePseudoLegalMoves(plyMoves, 0);
+        scoreMoves(ply, count, tableMove);
+
+        int originalAlpha = alpha;
+        int legalCount = 0;
+        int bestScore = -INFINITY;
+        int bestMove = BoardMoves.NO_MOVE;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            Pieces moving = board.getPiece(BoardMoves.getFrom(move));
+
+            board.makeMove(move);
+
+            if (board.isKingCheck(side)) {
+                board.unmakeMove();
+                continue;
+            }
+
+            legalCount++;
+            int score;
+
+            if (legalCount == 1) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+
+                    if (score >= beta) {
+                        if (!isTactical(move)) {
+                            updateQuietHeuristics(ply, move, moving, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legalCount == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(hash, bestMove, TranspositionTable.toTableScore(bestScore, ply), depth, bound);
+
+        return bestScore;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+
+        if ((++nodes & TIME_CHECK_MASK) == 0) {
+            checkTime();
+        }
+
+        if (stopped) {
+            return 0;
+        }
+
+        int standPat = evaluate(board);
+
+        if (ply >= MAX_PLY || standPat >= beta) {
+            return standPat;
+        }
+
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        Side side = board.getSideToMove();
+        int[] plyMoves = moves[ply];
+        int count = board.generatePseudoLegalMoves(plyMoves, 0);
+        int tacticalCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (isTactical(plyMoves[i])) {
+                plyMoves[tacticalCount++] = plyMoves[i];
+            }
+        }
+
+        followPv = false;
+        scoreMoves(ply, tacticalCount, BoardMoves.NO_MOVE);
+
+        for (int i = 0; i < tacticalCount; i++) {
+            int move = pickMove(ply, i, tacticalCount);
+            board.makeMove(move);
+
+            if (board.isKingCheck(side)) {
+                board.unmakeMove();
+                continue;
+            }
+
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+                updatePv(ply, move);
+
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+
+        return alpha;
+    }
+
+    private static boolean isTactical(int move) {
+        MoveType moveType = BoardMoves.getMoveType(move);
+        return moveType == MoveType.CAPTURE || moveType == MoveType.EN_PASSANT || BoardMoves.isPromotion(move);
+    }
+
+    private static int getValue(Pieces piece) {
+        return Pieces.isKing(piece) ? 10 : piece.getPoint();
+    }
+
+    private void scoreMoves(int ply, int count, int tableMove) {
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int pvMove = BoardMoves.NO_MOVE;
+
+        if (followPv) {
+            followPv = false;
+
+            if (ply < previousPvLength) {
+                for (int i = 0; i < count; i++) {
+                    if (plyMoves[i] == previousPv[ply]) {
+                        pvMove = previousPv[ply];
+                        followPv = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int move = plyMoves[i];
+            Pieces moving = board.getPiece(BoardMoves.getFrom(move));
+            int score;
+
+            if (move == pvMove) {
+                score = PV_SCORE;
+            } else if (move == tableMove) {
+                score = TABLE_MOVE_SCORE;
+            } else if (isTactical(move)) {
+                MoveType moveType = BoardMoves.getMoveType(move);
+                Pieces captured = moveType == MoveType.EN_PASSANT ? Pieces.W_PAWN : board.getPiece(BoardMoves.getTo(move));
+                Pieces promotion = BoardMoves.getPromotion(move);
+
+                score = CAPTURE_SCORE + (captured != null ? getValue(captured) * 10 : 0) - getValue(moving) +
+                        (promotion != null ? getValue(promotion) * 10 : 0);
+            } else if (move == killers[ply][0]) {
+                score = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                score = SECOND_KILLER_SCORE;
+            } else {
+                score = history[moving.ordinal()][BoardMoves.getTo(move)];
+            }
+
+            if (ply == 0 && helperIndex > 0 && score < TABLE_MOVE_SCORE) {
+                score += Integer.rotateLeft(move * 0x9E3779B9, helperIndex) >>> 24; //Same order for the same helper
+            }
+
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Move the best remaining move at the index (selection sort, only the searched moves are sorted)
+     */
+    private int pickMove(int ply, int index, int count) {
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int best = index;
+
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+
+        int move = plyMoves[best];
+        plyMoves[best] = plyMoves[index];
+        plyMoves[index] = move;
+
+        int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] plyPv = pv[ply];
+        plyPv[ply] = move;
+
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, plyPv, ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void updateQuietHeuristics(int ply, int move, Pieces moving, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] values = history[moving.ordinal()];
+        int to = BoardMoves.getTo(move);
+        values[to] += depth * depth;
+
+        if (values[to] > MAX_HISTORY) {
+            for (int[] pieceValues : history) {
+                for (int i = 0; i < pieceValues.length; i++) {
+                    pieceValues[i] >>= 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.search;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A transposition table shared by the search threads, without lock.
+ * <p>
+ * Each entry is two longs: the data (move, score, depth and bound) and the hash xor the data. A read is accepted only
+ * when the xor matches the hash, so an entry written concurrently (or a torn write) is seen as a miss instead of a
+ * corrupted entry.
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE_MB = 16;
+    public static final long NO_ENTRY = 0L;
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param sizeMb - The size of the table, rounded down to a power of two entries
+     */
+    public TranspositionTable(int sizeMb) {
+        assertThat(sizeMb).isPositive();
+
+        int size = Integer.highestOneBit((int) Math.min(1 << 30, (long) sizeMb * 1024 * 1024 / ENTRY_BYTES));
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param hash - The hash of the position
+     * @return The data of the entry, {@link #NO_ENTRY} if the position is not in the table
+     */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long value = data[index];
+
+        return (keys[index] ^ value) == hash ? value : NO_ENTRY;
+    }
+
+    /**
+     * @param hash  - The hash of the position
+     * @param move  - The best move, {@link ca.watier.echechess.common.game.BoardMoves#NO_MOVE} if none
+     * @param score - The score, mates relative to the current ply (see {@link #toTableScore(int, int)})
+     * @param depth - The depth of the search
+     * @param bound - {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int index = (int) hash & mask;
+        long current = data[index];
+
+        if ((keys[index] ^ current) == hash && getDepth(current) > depth && bound != EXACT) {
+            return; //Keep the deeper result of the same position
+        }
+
+        long value = (move & 0xFFFFFL) |
+                ((long) (score + 0x8000) & 0xFFFF) << 20 |
+                ((long) Math.max(0, Math.min(depth, 0xFF))) << 36 |
+                ((long) bound) << 44;
+
+        data[index] = value;
+        keys[index] = hash ^ value;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public int getSize() {
+        return keys.length;
+    }
+
+    public static int getMove(long entry) {
+        return (int) (entry & 0xFFFFF);
+    }
+
+    public static int getScore(long entry) {
+        return (int) ((entry >>> 20) & 0xFFFF) - 0x8000;
+    }
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 36) & 0xFF);
+    }
+
+    public static int getBound(long entry) {
+        return (int) ((entry >>> 44) & 0x3);
+    }
+
+    /**
+     * @return The score to store, the mates are stored as a distance from the position instead of the root
+     */
+    public static int toTableScore(int score, int ply) {
+        if (score >= SearchEngine.MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -SearchEngine.MATE_BOUND) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * @return The score read from the table, the mates are converted back to a distance from the root
+     */
+    public static int fromTableScore(int score, int ply) {
+        if (score >= SearchEngine.MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -SearchEngine.MATE_BOUND) {
+            return score + ply;
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.sessions;
+
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expiry;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Store the {@link Player} of the sessions in fixed size slots of a direct {@link ByteBuffer}, keyed by session id.
+ * <p>
+ * Each slot holds the expiration time, the hash and the bytes of the session id, the size of the three lists, the
+ * retention of the player and the UUIDs as pairs of longs; the session ids are found with an open addressing index of
+ * the slots. The expiration follows the {@link Expiry} of the ehcache caches (like
+ * {@link ca.watier.echechess.common.utils.CacheConstants#CACHE_UI_SESSION_EXPIRY}): a null duration on access or update
+ * keeps the current expiration, the expired sessions are removed when read and by {@link #evictExpired()}.
+ * <p>
+ * The slots hold a fixed number of UUIDs ({@link #getMaxUuids()}, 122 with the {@link #DEFAULT_SLOT_SIZE}) while the
+ * players are unbounded by default; the stored players should have a retention ({@link Player#Player(int)}) and the
+ * slots the size given by {@link #getSlotSize(int)} for it, a player with more UUIDs than a slot is refused by
+ * {@link #put(String, Player)}.
+ */
+public class OffHeapPlayerStore implements Closeable {
+    public static final int DEFAULT_SLOT_SIZE = 2048;
+    public static final int MAX_KEY_LENGTH = 64;
+
+    static final int EXPIRES_AT = 0;
+    static final int HASH = 8;
+    static final int KEY_LENGTH = 12;
+    static final int CREATED_COUNT = 14;
+    static final int JOINED_COUNT = 16;
+    static final int UI_SESSION_COUNT = 18;
+    static final int MAX_ENTRIES = 20;
+    static final int KEY = 24;
+    static final int UUIDS = KEY + MAX_KEY_LENGTH;
+    static final int UUID_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int slotSize;
+    private final int maxUuids;
+    private final int[] index;
+    private final int indexMask;
+    private final int[] freeSlots;
+    private final Expiry<Object, Object> expiry;
+    private final LongSupplier clock;
+    private int freeCount;
+    private int size;
+
+    /**
+     * @param capacity - The maximum number of sessions
+     * @param expiry   - The expiration of the sessions
+     */
+    public OffHeapPlayerStore(int capacity, @NotNull Expiry<Object, Object> expiry) {
+        this(capacity, DEFAULT_SLOT_SIZE, expiry, System::currentTimeMillis);
+    }
+
+    /**
+     * @param capacity - The maximum number of sessions
+     * @param slotSize - The size of each session, in bytes; limits the number of UUIDs of a player
+     * @param expiry   - The expiration of the sessions
+     */
+    public OffHeapPlayerStore(int capacity, int slotSize, @NotNull Expiry<Object, Object> expiry) {
+        this(capacity, slotSize, expiry, System::currentTimeMillis);
+    }
+
+    OffHeapPlayerStore(int capacity, int slotSize, @NotNull Expiry<Object, Object> expiry, @NotNull LongSupplier clock) {
+        assertThat(capacity).isPositive();
+        assertThat(slotSize).isGreaterThanOrEqualTo(UUIDS + UUID_SIZE);
+        assertThat((long) capacity * slotSize).isLessThanOrEqualTo(Integer.MAX_VALUE);
+        assertThat(expiry).isNotNull();
+        assertThat(clock).isNotNull();
+
+        this.capacity = capacity;
+        this.slotSize = slotSize;
+        this.maxUuids = Math.min((slotSize - UUIDS) / UUID_SIZE, Short.MAX_VALUE);
+        this.expiry = expiry;
+        this.clock = clock;
+        this.buffer = ByteBuffer.allocateDirect(capacity * slotSize);
+
+        int indexSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.index = new int[indexSize];
+        this.indexMask = indexSize - 1;
+
+        this.freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+    }
+
+    /**
+     * @param maxEntries - The retention of the players
+     * @return The size of a slot holding the three full lists of a player with this retention
+     */
+    public static int getSlotSize(int maxEntries) {
+        assertThat(maxEntries).isBetween(1, Short.MAX_VALUE / 3);
+
+        return UUIDS + 3 * maxEntries * UUID_SIZE;
+    }
+
+    private static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static byte[] toKey(String sessionId) {
+        assertThat(sessionId).isNotNull();
+
+        byte[] key = sessionId.getBytes(StandardCharsets.UTF_8);
+        assertThat(key.length).isBetween(1, MAX_KEY_LENGTH);
+
+        return key;
+    }
+
+    private static long toExpiresAt(long now, Duration duration) {
+        if (duration == null || duration.isInfinite()) {
+            return Long.MAX_VALUE;
+        }
+
+        long millis = duration.getTimeUnit().toMillis(duration.getLength());
+        return millis >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + millis;
+    }
+
+    /**
+     * Add or replace the player of the session
+     *
+     * @throws IllegalStateException when the store is full, or the player has too many UUIDs for a slot
+     */
+    public synchronized void put(@NotNull String sessionId, @NotNull Player player) {
+        assertThat(player).isNotNull();
+
+        byte[] key = toKey(sessionId);
+        int hash = hash(key);
+        long now = clock.getAsLong();
+        int position = findPosition(key, hash);
+
+        if (position >= 0 && isExpired(slotOf(position), now)) {
+            removeAt(position);
+            position = findPosition(key, hash);
+        }
+
+        //Snapshot each list once, the player can be changed by other threads while it's written
+        List<UUID> createdGames = player.getCreatedGameList();
+        List<UUID> joinedGames = player.getJoinedGameList();
+        List<UUID> uiSessions = player.getUiSessionList();
+
+        int total = createdGames.size() + joinedGames.size() + uiSessions.size();
+        if (total > maxUuids) {
+            throw new IllegalStateException("The player has " + total + " UUIDs, the slots can hold " + maxUuids);
+        }
+
+        long expiresAt;
+        if (position >= 0) {
+            int slot = slotOf(position);
+            Duration duration = expiry.getExpiryForUpdate(sessionId, () -> readPlayer(slot), player);
+            expiresAt = duration == null ? buffer.getLong(offsetOf(slot) + EXPIRES_AT) : toExpiresAt(now, duration);
+        } else {
+            expiresAt = toExpiresAt(now, expiry.getExpiryForCreation(sessionId, player));
+        }
+
+        if (expiresAt <= now) {
+            if (position >= 0) {
+                removeAt(position);
+            }
+            return;
+        }
+
+        int slot;
+        if (position >= 0) {
+            slot = slotOf(position);
+        } else {
+            if (freeCount == 0 && evictExpired() == 0) {
+                throw new IllegalStateException("The store is full (" + capacity + " sessions)");
+            }
+
+            position = -(findPosition(key, hash) + 1);
+            slot = freeSlots[--freeCount];
+            index[position] = slot + 1;
+            size++;
+
+            int offset = offsetOf(slot);
+            buffer.putInt(offset + HASH, hash);
+            buffer.putShort(offset + KEY_LENGTH, (short) key.length);
+            for (int i = 0; i < key.length; i++) {
+                buffer.put(offset + KEY + i, key[i]);
+            }
+        }
+
+        int offset = offsetOf(slot);
+        buffer.putLong(offset + EXPIRES_AT, expiresAt);
+        buffer.putShort(offset + CREATED_COUNT, (short) createdGames.size());
+        buffer.putShort(offset + JOINED_COUNT, (short) joinedGames.size());
+        buffer.putShort(offset + UI_SESSION_COUNT, (short) uiSessions.size());
+        buffer.putInt(offset + MAX_ENTRIES, player.getMaxEntries());
+
+        int uuidOffset = writeUuids(offset + UUIDS, createdGames);
+        uuidOffset = writeUuids(uuidOffset, joinedGames);
+        writeUuids(uuidOffset, uiSessions);
+    }
+
+    /**
+     * @return A copy of the player of the session, null if absent or expired
+     */
+    public synchronized Player get(@NotNull String sessionId) {
+        int slot = access(sessionId);
+        return slot < 0 ? null : readPlayer(slot);
+    }
+
+    /**
+     * Point the view to the player of the session, without copying it; the view is valid until the next change of the
+     * store.
+     *
+     * @return false if the session is absent or expired
+     */
+    public synchronized boolean view(@NotNull String sessionId, @NotNull PlayerView view) {
+        assertThat(view).isNotNull();
+
+        int slot = access(sessionId);
+        if (slot < 0) {
+            return false;
+        }
+
+        view.wrap(buffer, offsetOf(slot));
+        return true;
+    }
+
+    public synchronized boolean contains(@NotNull String sessionId) {
+        byte[] key = toKey(sessionId);
+        int position = findPosition(key, hash(key));
+
+        return position >= 0 && !isExpired(slotOf(position), clock.getAsLong());
+    }
+
+    /**
+     * @return true if the session was in the store
+     */
+    public synchronized boolean remove(@NotNull String sessionId) {
+        byte[] key = toKey(sessionId);
+        int position = findPosition(key, hash(key));
+
+        if (position < 0) {
+            return false;
+        }
+
+        removeAt(position);
+        return true;
+    }
+
+    /**
+     * Remove all the expired sessions
+     *
+     * @return The number of removed sessions
+     */
+    public synchronized int evictExpired() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = offsetOf(slot);
+
+            if (buffer.getShort(offset + KEY_LENGTH) != 0 && isExpired(slot, now)) {
+                int position = buffer.getInt(offset + HASH) & indexMask;
+
+                while (index[position] != slot + 1) {
+                    position = (position + 1) & indexMask;
+                }
+
+                removeAt(position);
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * @return The number of sessions, including the expired sessions not removed yet
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The maximum number of UUIDs of a player
+     */
+    public int getMaxUuids() {
+        return maxUuids;
+    }
+
+    @Override
+    public synchronized void close() {
+        Arrays.fill(index, 0);
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.putShort(offsetOf(slot) + KEY_LENGTH, (short) 0);
+            freeSlots[slot] = capacity - 1 - slot;
+        }
+
+        freeCount = capacity;
+        size = 0;
+    }
+
+    /**
+     * @return The slot of the session, with its expiration updated, or -1 if absent or expired
+     */
+    private int access(String sessionId) {
+        byte[] key = toKey(sessionId);
+        int position = findPosition(key, hash(key));
+
+        if (position < 0) {
+            return -1;
+        }
+
+        int slot = slotOf(position);
+        long now = clock.getAsLong();
+
+        if (isExpired(slot, now)) {
+            removeAt(position);
+            return -1;
+        }
+
+        Duration duration = expiry.getExpiryForAccess(sessionId, () -> readPlayer(slot));
+        if (duration != null) {
+            long expiresAt = toExpiresAt(now, duration);
+
+            if (expiresAt <= now) {
+                removeAt(position);
+                return -1;
+            }
+
+            buffer.putLong(offsetOf(slot) + EXPIRES_AT, expiresAt);
+        }
+
+        return slot;
+    }
+
+    /**
+     * @return The position of the key in the index, or -(the free position + 1) if absent
+     */
+    private int findPosition(byte[] key, int hash) {
+        for (int position = hash & indexMask; ; position = (position + 1) & indexMask) {
+            int entry = index[position];
+
+            if (entry == 0) {
+                return -(position + 1);
+            }
+
+            int offset = offsetOf(entry - 1);
+            if (buffer.getInt(offset + HASH) == hash && keyEquals(offset, key)) {
+                return position;
+            }
+        }
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (buffer.getShort(offset + KEY_LENGTH) != key.length) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + KEY + i) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Free the slot and fill the hole of the index with the following entries (backward shift deletion)
+     */
+    private void removeAt(int position) {
+        int slot = slotOf(position);
+        buffer.putShort(offsetOf(slot) + KEY_LENGTH, (short) 0);
+        freeSlots[freeCount++] = slot;
+        size--;
+
+        int hole = position;
+        int current = position;
+
+        while (true) {
+            current = (current + 1) & indexMask;
+            int entry = index[current];
+
+            if (entry == 0) {
+                break;
+            }
+
+            int home = buffer.getInt(offsetOf(entry - 1) + HASH) & indexMask;
+            if (((current - home) & indexMask) >= ((current - hole) & indexMask)) {
+                index[hole] = entry;
+                hole = current;
+            }
+        }
+
+        index[hole] = 0;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return buffer.getLong(offsetOf(slot) + EXPIRES_AT) <= now;
+    }
+
+    private int slotOf(int position) {
+        return index[position] - 1;
+    }
+
+    private int offsetOf(int slot) {
+        return slot * slotSize;
+    }
+
+    private int writeUuids(int offset, List<UUID> values) {
+        for (UUID value : values) {
+            buffer.putLong(offset, value.getMostSignificantBits());
+            buffer.putLong(offset + 8, value.getLeastSignificantBits());
+            offset += UUID_SIZE;
+        }
+
+        return offset;
+    }
+
+    private Player readPlayer(int slot) {
+        PlayerView view = new PlayerView();
+        view.wrap(buffer, offsetOf(slot));
+        return view.toPlayer();
+    }
+}
@@ -16,43 +16,185 @@
 
 package ca.watier.echechess.common.sessions;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Created by yannick on 4/17/2017.
+ * <p>
+ * The ids are kept in insertion ordered sets; they are unbounded by default, a retention can be set to remove the oldest
+ * id when a list is full. The methods are synchronized, the lists returned are copies.
+ * <p>
+ * The player is externalized in a compact binary form: a version byte, the retention as a varint, then each list as a
+ * varint length followed by the UUIDs as pairs of longs.
  */
-public class Player implements Serializable {
-    private static final long serialVersionUID = 296605081563013686L;
-    private List<UUID> createdGameList = new ArrayList<>();
-    private List<UUID> joinedGameList = new ArrayList<>();
-    private List<UUID> uiSessionList = new ArrayList<>();
+public class Player implements Externalizable {
+    public static final int DEFAULT_MAX_ENTRIES = Integer.MAX_VALUE;
+    //Changed with the externalized form, the players serialized with the default form can't be read
+    private static final long serialVersionUID = 6137528409165723925L;
+    private static final byte FORMAT_VERSION = 1;
+    private int maxEntries;
+    private Set<UUID> createdGames = new LinkedHashSet<>();
+    private Set<UUID> joinedGames = new LinkedHashSet<>();
+    private Set<UUID> uiSessions = new LinkedHashSet<>();
+
+    public Player() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
 
-    public void addCreatedGame(UUID uuid) {
+    /**
+     * @param maxEntries - The maximum number of ids kept in each list, the oldest ids are removed first
+     */
+    public Player(int maxEntries) {
+        assertThat(maxEntries).isPositive();
+        this.maxEntries = maxEntries;
+    }
+
+    public synchronized void addCreatedGame(UUID uuid) {
         assertThat(uuid).isNotNull();
-        createdGameList.add(uuid);
+        add(createdGames, uuid);
     }
 
-    public void addJoinedGame(UUID uuid) {
+    public synchronized void addJoinedGame(UUID uuid) {
         assertThat(uuid).isNotNull();
-        joinedGameList.add(uuid);
+        add(joinedGames, uuid);
     }
 
-    public void addUiSession(UUID uuid) {
+    public synchronized void addUiSession(UUID uuid) {
         assertThat(uuid).isNotNull();
-        uiSessionList.add(uuid);
+        add(uiSessions, uuid);
+    }
+
+    public synchronized boolean hasCreated(UUID uuid) {
+        return createdGames.contains(uuid);
+    }
+
+    public synchronized boolean hasJoined(UUID uuid) {
+        return joinedGames.contains(uuid);
+    }
+
+    public synchronized boolean hasUiSession(UUID uuid) {
+        return uiSessions.contains(uuid);
+    }
+
+    public synchronized List<UUID> getCreatedGameList() {
+        return Collections.unmodifiableList(new ArrayList<>(createdGames));
+    }
+
+    public synchronized List<UUID> getJoinedGameList() {
+        return Collections.unmodifiableList(new ArrayList<>(joinedGames));
+    }
+
+    public synchronized List<UUID> getUiSessionList() {
+        return Collections.unmodifiableList(new ArrayList<>(uiSessions));
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private void add(Set<UUID> values, UUID uuid) {
+        if (values.add(uuid) && values.size() > maxEntries) {
+            Iterator<UUID> iterator = values.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    /**
+     * Write the player in the compact binary form
+     */
+    public synchronized void writeTo(@NotNull DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        writeVarint(out, maxEntries);
+        writeList(out, createdGames);
+        writeList(out, joinedGames);
+        writeList(out, uiSessions);
+    }
+
+    /**
+     * Replace the content and the retention of the player with the ones written by {@link #writeTo(DataOutput)}
+     */
+    public synchronized void readFrom(@NotNull DataInput in) throws IOException {
+        byte version = in.readByte();
+
+        if (version != FORMAT_VERSION) {
+            throw new InvalidObjectException("Unsupported player format: " + version);
+        }
+
+        int retention = readVarint(in);
+        if (retention <= 0) {
+            throw new InvalidObjectException("Invalid retention: " + retention);
+        }
+
+        maxEntries = retention;
+
+        createdGames = readList(in);
+        joinedGames = readList(in);
+        uiSessions = readList(in);
     }
 
-    public List<UUID> getCreatedGameList() {
-        return Collections.unmodifiableList(createdGameList);
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
     }
 
-    public List<UUID> getJoinedGameList() {
-        return Collections.unmodifiableList(joinedGameList);
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int current;
+
+        do {
+            if (shift > 28) {
+                throw new InvalidObjectException("Invalid varint");
+            }
+
+            current = in.readUnsignedByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        return value;
+    }
+
+    private static void writeList(DataOutput out, Set<UUID> values) throws IOException {
+        writeVarint(out, values.size());
+
+        for (UUID value : values) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private Set<UUID> readList(DataInput in) throws IOException {
+        int size = readVarint(in);
+
+        if (size < 0) {
+            throw new InvalidObjectException("Invalid list length: " + size);
+        }
+
+        Set<UUID> values = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            add(values, new UUID(in.readLong(), in.readLong()));
+        }
+
+        return values;
     }
 }
@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.sessions;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static ca.watier.echechess.common.sessions.OffHeapPlayerStore.*;
+
+/**
+ * A reusable read only view of a player in an {@link OffHeapPlayerStore}, reading the UUIDs directly from the slot
+ */
+public final class PlayerView {
+    private ByteBuffer buffer;
+    private int offset;
+
+    void wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public int getCreatedGameCount() {
+        return buffer.getShort(offset + CREATED_COUNT);
+    }
+
+    public int getJoinedGameCount() {
+        return buffer.getShort(offset + JOINED_COUNT);
+    }
+
+    public int getUiSessionCount() {
+        return buffer.getShort(offset + UI_SESSION_COUNT);
+    }
+
+    /**
+     * @return The retention of the player
+     */
+    public int getMaxEntries() {
+        return buffer.getInt(offset + MAX_ENTRIES);
+    }
+
+    public UUID getCreatedGame(int index) {
+        return getUuid(0, getCreatedGameCount(), index);
+    }
+
+    public UUID getJoinedGame(int index) {
+        return getUuid(getCreatedGameCount(), getJoinedGameCount(), index);
+    }
+
+    public UUID getUiSession(int index) {
+        return getUuid(getCreatedGameCount() + getJoinedGameCount(), getUiSessionCount(), index);
+    }
+
+    public boolean hasCreated(@NotNull UUID uuid) {
+        return contains(0, getCreatedGameCount(), uuid);
+    }
+
+    public boolean hasJoined(@NotNull UUID uuid) {
+        return contains(getCreatedGameCount(), getJoinedGameCount(), uuid);
+    }
+
+    public boolean hasUiSession(@NotNull UUID uuid) {
+        return contains(getCreatedGameCount() + getJoinedGameCount(), getUiSessionCount(), uuid);
+    }
+
+    /**
+     * @return A copy of the player
+     */
+    public Player toPlayer() {
+        Player player = new Player(getMaxEntries());
+
+        for (int i = 0, count = getCreatedGameCount(); i < count; i++) {
+            player.addCreatedGame(getCreatedGame(i));
+        }
+
+        for (int i = 0, count = getJoinedGameCount(); i < count; i++) {
+            player.addJoinedGame(getJoinedGame(i));
+        }
+
+        for (int i = 0, count = getUiSessionCount(); i < count; i++) {
+            player.addUiSession(getUiSession(i));
+        }
+
+        return player;
+    }
+
+    private UUID getUuid(int first, int count, int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+
+        int position = offset + UUIDS + (first + index) * UUID_SIZE;
+        return new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+    }
+
+    private boolean contains(int first, int count, UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int position = offset + UUIDS + first * UUID_SIZE;
+
+        for (int i = 0; i < count; i++, position += UUID_SIZE) {
+            if (buffer.getLong(position) == most && buffer.getLong(position + 8) == least) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
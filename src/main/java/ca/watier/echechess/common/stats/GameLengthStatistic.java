@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.stats;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.GameStatistic;
+import ca.watier.echechess.common.pojos.ArchivedGame;
+
+/**
+ * The number of games and the length (in plies) of the games
+ */
+public class GameLengthStatistic implements GameStatistic<GameLengthStatistic> {
+    private long gameCount;
+    private long totalPlies;
+    private int minPlies = Integer.MAX_VALUE;
+    private int maxPlies;
+
+    @Override
+    public GameLengthStatistic newInstance() {
+        return new GameLengthStatistic();
+    }
+
+    @Override
+    public void onGameEnd(ArchivedGame game, ChessBoard board, int plyCount) {
+        gameCount++;
+        totalPlies += plyCount;
+        minPlies = Math.min(minPlies, plyCount);
+        maxPlies = Math.max(maxPlies, plyCount);
+    }
+
+    @Override
+    public void merge(GameLengthStatistic other) {
+        gameCount += other.gameCount;
+        totalPlies += other.totalPlies;
+        minPlies = Math.min(minPlies, other.minPlies);
+        maxPlies = Math.max(maxPlies, other.maxPlies);
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    public long getTotalPlies() {
+        return totalPlies;
+    }
+
+    public int getMinPlies() {
+        return gameCount == 0 ? 0 : minPlies;
+    }
+
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+
+    public double getAveragePlies() {
+        return gameCount == 0 ? 0 : (double) totalPlies / gameCount;
+    }
+}
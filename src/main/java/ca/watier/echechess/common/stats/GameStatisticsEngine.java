@@ -0,0 +1,227 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.stats;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.GameStatistic;
+import ca.watier.echechess.common.pgn.SanReader;
+import ca.watier.echechess.common.pojos.ArchivedGame;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay the games of an archive once and compute all the {@link GameStatistic} in the same pass.
+ * <p>
+ * The games are split in ranges on a {@link ForkJoinPool}; each range is replayed with its own board and partial
+ * statistics, which are merged when the ranges are joined. An archive is streamed with
+ * {@link #compute(Iterator, List, int)}: the games are read in chunks on the calling thread while the previous chunks
+ * are replayed, only a bounded number of chunks are kept in memory.
+ */
+public class GameStatisticsEngine implements Closeable {
+    public static final int DEFAULT_THRESHOLD = 256;
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public GameStatisticsEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param parallelism - The number of threads
+     * @param threshold   - The number of games under which a range is not split anymore
+     */
+    public GameStatisticsEngine(int parallelism, int threshold) {
+        assertThat(parallelism).isPositive();
+        assertThat(threshold).isPositive();
+
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param games      - The games to replay
+     * @param statistics - The statistics to compute, used as prototypes (they are not modified)
+     * @return The merged statistics, in the same order as the prototypes
+     */
+    public List<GameStatistic<?>> compute(@NotNull List<ArchivedGame> games, @NotNull List<GameStatistic<?>> statistics) {
+        assertThat(games).isNotNull();
+        assertThat(statistics).isNotNull();
+
+        return pool.invoke(new StatisticsTask(games, statistics, 0, games.size(), threshold));
+    }
+
+    /**
+     * @param games      - The games to replay, read once
+     * @param statistics - The statistics to compute, used as prototypes (they are not modified)
+     * @return The merged statistics, in the same order as the prototypes
+     */
+    public List<GameStatistic<?>> compute(@NotNull Iterator<ArchivedGame> games, @NotNull List<GameStatistic<?>> statistics) {
+        return compute(games, statistics, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Stream the games once; at most two chunks per thread are read ahead, the memory used depends on the chunk size
+     * and not on the size of the archive
+     *
+     * @param games      - The games to replay, read once on the calling thread
+     * @param statistics - The statistics to compute, used as prototypes (they are not modified)
+     * @param chunkSize  - The number of games read before the chunk is submitted
+     * @return The merged statistics, in the same order as the prototypes
+     */
+    public List<GameStatistic<?>> compute(@NotNull Iterator<ArchivedGame> games, @NotNull List<GameStatistic<?>> statistics, int chunkSize) {
+        assertThat(games).isNotNull();
+        assertThat(statistics).isNotNull();
+        assertThat(chunkSize).isPositive();
+
+        List<GameStatistic<?>> values = newInstances(statistics);
+        Deque<ForkJoinTask<List<GameStatistic<?>>>> pending = new ArrayDeque<>();
+        int maxPending = pool.getParallelism() << 1;
+
+        while (games.hasNext()) {
+            List<ArchivedGame> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && games.hasNext()) {
+                chunk.add(games.next());
+            }
+
+            if (pending.size() == maxPending) {
+                merge(values, pending.poll().join());
+            }
+
+            pending.add(pool.submit(new StatisticsTask(chunk, statistics, 0, chunk.size(), threshold)));
+        }
+
+        while (!pending.isEmpty()) {
+            merge(values, pending.poll().join());
+        }
+
+        return values;
+    }
+
+    /**
+     * Replay the game and update the statistics, on the calling thread
+     *
+     * @return The number of plies replayed
+     */
+    public static int replay(@NotNull ArchivedGame game, @NotNull List<GameStatistic<?>> statistics, @NotNull ChessBoard board, @NotNull SanReader sanReader) {
+        List<String> moves = game.getMoves();
+        board.setupStandardPosition();
+
+        for (GameStatistic<?> statistic : statistics) {
+            statistic.onGameStart(game);
+        }
+
+        int ply = 0;
+        for (int size = moves.size(); ply < size; ply++) {
+            int move;
+
+            try {
+                move = sanReader.resolve(board, moves.get(ply));
+            } catch (RuntimeException | AssertionError e) { //Same as the validation pipeline, the game is ignored from the illegal move
+                break;
+            }
+
+            board.makeMove(move);
+
+            for (GameStatistic<?> statistic : statistics) {
+                statistic.onMove(board, move);
+            }
+        }
+
+        for (GameStatistic<?> statistic : statistics) {
+            statistic.onGameEnd(game, board, ply);
+        }
+
+        return ply;
+    }
+
+    private static List<GameStatistic<?>> newInstances(List<GameStatistic<?>> prototypes) {
+        List<GameStatistic<?>> statistics = new ArrayList<>(prototypes.size());
+        for (GameStatistic<?> prototype : prototypes) {
+            statistics.add(prototype.newInstance());
+        }
+
+        return statistics;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void merge(List<GameStatistic<?>> values, List<GameStatistic<?>> others) {
+        for (int i = 0; i < values.size(); i++) {
+            ((GameStatistic) values.get(i)).merge(others.get(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static class StatisticsTask extends RecursiveTask<List<GameStatistic<?>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<ArchivedGame> games;
+        private final transient List<GameStatistic<?>> prototypes;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private StatisticsTask(List<ArchivedGame> games, List<GameStatistic<?>> prototypes, int from, int to, int threshold) {
+            this.games = games;
+            this.prototypes = prototypes;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected List<GameStatistic<?>> compute() {
+            if (to - from <= threshold) {
+                List<GameStatistic<?>> statistics = newInstances(prototypes);
+                ChessBoard board = new ChessBoard();
+                SanReader sanReader = new SanReader();
+
+                for (int i = from; i < to; i++) {
+                    replay(games.get(i), statistics, board, sanReader);
+                }
+
+                return statistics;
+            }
+
+            int middle = (from + to) >>> 1;
+            StatisticsTask left = new StatisticsTask(games, prototypes, from, middle, threshold);
+            StatisticsTask right = new StatisticsTask(games, prototypes, middle, to, threshold);
+            left.fork();
+
+            List<GameStatistic<?>> values = right.compute();
+            merge(values, left.join());
+
+            return values;
+        }
+    }
+}
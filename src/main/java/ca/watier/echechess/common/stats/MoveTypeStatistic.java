@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.stats;
+
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.GameStatistic;
+
+/**
+ * The number of moves of each {@link MoveType}
+ */
+public class MoveTypeStatistic implements GameStatistic<MoveTypeStatistic> {
+    private final long[] counts = new long[MoveType.values().length];
+
+    @Override
+    public MoveTypeStatistic newInstance() {
+        return new MoveTypeStatistic();
+    }
+
+    @Override
+    public void onMove(ChessBoard board, int move) {
+        counts[BoardMoves.getMoveType(move).ordinal()]++;
+    }
+
+    @Override
+    public void merge(MoveTypeStatistic other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long getCount(MoveType moveType) {
+        return counts[moveType.ordinal()];
+    }
+}
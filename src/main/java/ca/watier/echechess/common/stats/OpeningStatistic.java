@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.stats;
+
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.GameStatistic;
+import ca.watier.echechess.common.pojos.ArchivedGame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The results of the games, by opening (the first plies of the game, in SAN, separated by a space)
+ */
+public class OpeningStatistic implements GameStatistic<OpeningStatistic> {
+    public static final int DEFAULT_OPENING_PLIES = 4;
+
+    private final int openingPlies;
+    private final Map<String, long[]> results = new HashMap<>(); //opening -> count by PgnEndGameToken ordinal
+
+    public OpeningStatistic() {
+        this(DEFAULT_OPENING_PLIES);
+    }
+
+    public OpeningStatistic(int openingPlies) {
+        assertThat(openingPlies).isPositive();
+
+        this.openingPlies = openingPlies;
+    }
+
+    @Override
+    public OpeningStatistic newInstance() {
+        return new OpeningStatistic(openingPlies);
+    }
+
+    @Override
+    public void onGameEnd(ArchivedGame game, ChessBoard board, int plyCount) {
+        if (plyCount < openingPlies) {
+            return;
+        }
+
+        String opening = String.join(" ", game.getMoves().subList(0, openingPlies));
+        results.computeIfAbsent(opening, key -> new long[PgnEndGameToken.values().length])[game.getResult().ordinal()]++;
+    }
+
+    @Override
+    public void merge(OpeningStatistic other) {
+        for (Map.Entry<String, long[]> entry : other.results.entrySet()) {
+            long[] values = results.computeIfAbsent(entry.getKey(), key -> new long[PgnEndGameToken.values().length]);
+            long[] otherValues = entry.getValue();
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] += otherValues[i];
+            }
+        }
+    }
+
+    public Map<String, long[]> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    public long getCount(String opening, PgnEndGameToken result) {
+        long[] values = results.get(opening);
+        return values == null ? 0 : values[result.ordinal()];
+    }
+
+    public long getGameCount(String opening) {
+        long[] values = results.get(opening);
+        long count = 0;
+
+        if (values != null) {
+            for (long value : values) {
+                count += value;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The ratio of games won by white (a draw counts as half a win), from 0 to 1
+     */
+    public double getWhiteScore(String opening) {
+        long games = getGameCount(opening);
+
+        if (games == 0) {
+            return 0;
+        }
+
+        return (getCount(opening, PgnEndGameToken.WHITE_WIN) + getCount(opening, PgnEndGameToken.DRAWN) / 2d) / games;
+    }
+
+    public int getOpeningPlies() {
+        return openingPlies;
+    }
+
+    public List<String> getOpenings() {
+        return new ArrayList<>(results.keySet());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.tablebase;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.Tablebase;
+import ca.watier.echechess.common.pojos.TablebaseResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A {@link Tablebase} backed by {@link TablebaseTable}, generated in memory or mapped from the local files.
+ * The positions with castling rights or an en passant square are not in the tablebase.
+ */
+public class LocalTablebase implements Tablebase {
+    private final Map<Long, TablebaseTable> tables = new ConcurrentHashMap<>();
+    private volatile int maxPieces = 2;
+
+    /**
+     * Map all the tables of the directory
+     */
+    public static LocalTablebase open(@NotNull Path directory) throws IOException {
+        assertThat(directory).isNotNull();
+
+        LocalTablebase tablebase = new LocalTablebase();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TablebaseTable.FILE_EXTENSION)) {
+            for (Path file : files) {
+                tablebase.addTable(TablebaseTable.read(file));
+            }
+        }
+
+        return tablebase;
+    }
+
+    public void addTable(@NotNull TablebaseTable table) {
+        assertThat(table).isNotNull();
+
+        tables.put(table.getMaterialKey(), table);
+        maxPieces = Math.max(maxPieces, table.getPieceCount());
+    }
+
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    @Override
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    @Override
+    public TablebaseResult probe(@NotNull ChessBoard board) {
+        if (board.getCastlingRights() != 0 || board.getEnPassantSquare() != ChessBoard.NO_SQUARE) {
+            return null;
+        }
+
+        int max = maxPieces;
+        Pieces[] material = new Pieces[max];
+        int[] squares = new int[max];
+        int count = 0;
+
+        for (int square = 0; square < 64; square++) {
+            Pieces piece = board.getPiece(square);
+
+            if (piece == null) {
+                continue;
+            } else if (count == max) {
+                return null;
+            }
+
+            //Insertion by ordinal, to follow the order of the material
+            int i = count++;
+            for (; i > 0 && material[i - 1].compareTo(piece) > 0; i--) {
+                material[i] = material[i - 1];
+                squares[i] = squares[i - 1];
+            }
+
+            material[i] = piece;
+            squares[i] = square;
+        }
+
+        if (count == 2) {
+            return TablebaseResult.DRAW;
+        }
+
+        Pieces[] values = count == max ? material : Arrays.copyOf(material, count);
+        TablebaseTable table = tables.get(TablebaseTable.getMaterialKey(values));
+
+        if (table == null) {
+            return null;
+        }
+
+        Side side = board.getSideToMove();
+        return TablebaseTable.decode(table.getValue(table.getIndex(squares, side)));
+    }
+}
@@ -0,0 +1,604 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.tablebase;
+
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.enums.TablebaseWdl;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Generate the {@link TablebaseTable} of the small material sets by retrograde analysis.
+ * <p>
+ * The tables reachable by a capture or a promotion are generated first. The WDL of each position is then found by
+ * iterating until no position changes (a win needs a move to a lost position, a loss needs all the moves to won
+ * positions), and the DTZ is computed by levels, starting from the checkmates and the zeroing moves.
+ * The en passant captures are not considered. This class is not thread safe.
+ * <p>
+ * The tables are reduced by symmetry (see {@link TablebaseTable}): a table of 4 pieces has 5 242 880 positions without
+ * pawn and 16 777 216 with pawns, 10 and 32 MB on disk. The generation uses 8 bytes by position (about 42 and 134 MB
+ * for 4 pieces) on top of the generated tables, and replays every position at least once.
+ */
+public class TablebaseGenerator {
+    public static final int MAX_PIECES = 4;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte WIN = 1;
+    private static final byte LOSS = 2;
+    private static final byte DRAW = 3;
+    private static final byte INVALID = 4;
+    private static final short NO_DTZ = -1;
+    private static final byte NO_MOVE = 1;
+    private static final byte ZEROING_WIN = 2;
+    private static final byte PAWN_PUSH = 4;
+    private static final int[][] KING_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_DIRECTIONS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final Pieces[] WHITE_PROMOTIONS = {Pieces.W_QUEEN, Pieces.W_ROOK, Pieces.W_BISHOP, Pieces.W_KNIGHT};
+    private static final Pieces[] BLACK_PROMOTIONS = {Pieces.B_QUEEN, Pieces.B_ROOK, Pieces.B_BISHOP, Pieces.B_KNIGHT};
+
+    private final Map<Long, TablebaseTable> tables = new LinkedHashMap<>();
+
+    /**
+     * Generate the table of the material, and all the tables reachable from it
+     *
+     * @param pieces - The pieces, with one king of each side
+     * @return The table
+     */
+    public TablebaseTable generate(@NotNull Pieces... pieces) {
+        assertThat(pieces).isNotNull();
+
+        Pieces[] material = TablebaseTable.sortMaterial(pieces);
+        assertThat(material.length).isBetween(3, MAX_PIECES);
+        assertThat(material[0]).isEqualTo(Pieces.W_KING);
+        assertThat(Arrays.stream(material).filter(Pieces::isKing).count()).isEqualTo(2L);
+
+        TablebaseTable table = tables.get(TablebaseTable.getMaterialKey(material));
+
+        if (table != null) {
+            return table;
+        }
+
+        for (int i = 0; i < material.length; i++) {
+            Pieces piece = material[i];
+
+            if (Pieces.isKing(piece)) {
+                continue;
+            }
+
+            if (material.length > 3) {
+                generate(remove(material, i));
+            }
+
+            if (Pieces.isPawn(piece)) {
+                for (Pieces promotion : Side.WHITE.equals(piece.getSide()) ? WHITE_PROMOTIONS : BLACK_PROMOTIONS) {
+                    Pieces[] promoted = material.clone();
+                    promoted[i] = promotion;
+                    generate(promoted);
+                }
+            }
+        }
+
+        table = new Generation(material).generate();
+        tables.put(table.getMaterialKey(), table);
+
+        return table;
+    }
+
+    private static Pieces[] remove(Pieces[] material, int index) {
+        Pieces[] values = new Pieces[material.length - 1];
+
+        for (int i = 0, j = 0; i < material.length; i++) {
+            if (i != index) {
+                values[j++] = material[i];
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @return All the generated tables, the dependencies first
+     */
+    public Collection<TablebaseTable> getTables() {
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * @return A tablebase with all the generated tables
+     */
+    public LocalTablebase toTablebase() {
+        LocalTablebase tablebase = new LocalTablebase();
+
+        for (TablebaseTable table : tables.values()) {
+            tablebase.addTable(table);
+        }
+
+        return tablebase;
+    }
+
+    private class Generation {
+        private final Pieces[] material;
+        private final int count;
+        private final boolean pawns;
+        private final int size;
+        private final byte[] states;
+        private final short[] dtz;
+        private final byte[] counters;
+        private final byte[] quietCounts;
+        private final byte[] flags;
+        private final ChessBoard board = new ChessBoard();
+        private final int[] moves = new int[ChessBoard.MAX_MOVES];
+        private final int[] squares;
+        private final int[] parentSquares;
+        private final Pieces[] childMaterial;
+        private final int[] childSquares;
+        private final int[] placedSquares;
+        private final int[] parents = new int[ChessBoard.MAX_MOVES];
+        private final int[] children = new int[ChessBoard.MAX_MOVES];
+        private final int[] quietChildren = new int[ChessBoard.MAX_MOVES];
+        private int placedCount;
+        private Side side;
+        private boolean zeroing;
+        private short childValue;
+
+        private Generation(Pieces[] material) {
+            this.material = material;
+            this.count = material.length;
+            this.pawns = TablebaseTable.hasPawns(material);
+            this.size = TablebaseTable.getSize(count, pawns);
+            this.states = new byte[size];
+            this.dtz = new short[size];
+            this.counters = new byte[size];
+            this.quietCounts = new byte[size];
+            this.flags = new byte[size];
+            this.squares = new int[count];
+            this.parentSquares = new int[count];
+            this.childMaterial = new Pieces[count];
+            this.childSquares = new int[count];
+            this.placedSquares = new int[count];
+        }
+
+        private TablebaseTable generate() {
+            computeWdl();
+            computeDtz();
+
+            short[] values = new short[size];
+            for (int index = 0; index < size; index++) {
+                switch (states[index]) {
+                    case WIN:
+                        values[index] = TablebaseTable.encode(TablebaseWdl.WIN, dtz[index]);
+                        break;
+                    case LOSS:
+                        values[index] = TablebaseTable.encode(TablebaseWdl.LOSS, dtz[index]);
+                        break;
+                    case INVALID:
+                        values[index] = TablebaseTable.INVALID;
+                        break;
+                    default:
+                        values[index] = 0;
+                }
+            }
+
+            return new TablebaseTable(material, ShortBuffer.wrap(values));
+        }
+
+        /**
+         * Resolve the positions decided by the moves leaving the table (or without move), then propagate the results
+         * to the parent positions: a lost position makes its parents won, and a parent is lost when all its moves
+         * lead to won positions. The moves needed by the DTZ are counted in the same pass.
+         */
+        private void computeWdl() {
+            IntList queue = new IntList();
+
+            for (int index = 0; index < size; index++) {
+                if (!setup(index)) {
+                    states[index] = INVALID;
+                    continue;
+                }
+
+                int moveCount = board.generateLegalMoves(moves);
+                int unresolved = 0;
+                int childCount = 0;
+                int quietCount = 0;
+                byte flag = moveCount == 0 ? NO_MOVE : 0;
+                boolean win = false;
+
+                for (int m = 0; m < moveCount; m++) {
+                    int child = getChild(moves[m]);
+
+                    if (child >= 0) {
+                        children[childCount++] = child;
+
+                        if (zeroing) {
+                            flag |= PAWN_PUSH;
+                        } else {
+                            quietChildren[quietCount++] = child;
+                        }
+                    } else {
+                        TablebaseWdl wdl = TablebaseTable.getWdl(childValue);
+                        win |= wdl == TablebaseWdl.LOSS;
+                        unresolved += wdl == TablebaseWdl.WIN ? 0 : 1;
+                    }
+                }
+
+                unresolved += distinct(children, childCount);
+                quietCounts[index] = (byte) distinct(quietChildren, quietCount);
+                flags[index] = win ? (byte) (flag | ZEROING_WIN) : flag; //The moves leaving the table are zeroing
+
+                if (win) {
+                    states[index] = WIN;
+                    queue.add(index);
+                } else if (unresolved == 0) {
+                    states[index] = moveCount > 0 || board.isKingCheck(side) ? LOSS : DRAW;
+
+                    if (states[index] == LOSS) {
+                        queue.add(index);
+                    }
+                } else {
+                    counters[index] = (byte) unresolved;
+                }
+            }
+
+            for (int i = 0; i < queue.size; i++) {
+                int child = queue.values[i];
+                boolean lost = states[child] == LOSS;
+                int parentCount = getParents(child, true);
+
+                for (int p = 0; p < parentCount; p++) {
+                    int parent = parents[p];
+
+                    if (states[parent] != UNKNOWN) {
+                        continue;
+                    }
+
+                    if (lost) {
+                        states[parent] = WIN;
+                        queue.add(parent);
+                    } else if (--counters[parent] == 0) {
+                        states[parent] = LOSS;
+                        queue.add(parent);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compute the DTZ by levels: the checkmates (0), the positions converted or lost by a zeroing move (1), then
+         * the parents of the resolved positions, by the moves that are not zeroing. Only the positions with a pawn
+         * push are replayed, the others use the moves counted by {@link #computeWdl()}.
+         */
+        private void computeDtz() {
+            IntList level = new IntList();
+            IntList next = new IntList();
+            IntList checkmates = new IntList();
+
+            for (int index = 0; index < size; index++) {
+                dtz[index] = NO_DTZ;
+                byte state = states[index];
+
+                if (state != WIN && state != LOSS) {
+                    continue;
+                }
+
+                byte flag = flags[index];
+                int notZeroing = quietCounts[index];
+                boolean zeroingWin = (flag & ZEROING_WIN) != 0;
+
+                if ((flag & PAWN_PUSH) != 0) {
+                    //The pawn pushes stay in the table, the WDL of the child is only known now
+                    setup(index);
+                    int moveCount = board.generateLegalMoves(moves);
+
+                    for (int m = 0; m < moveCount && !zeroingWin; m++) {
+                        int child = getChild(moves[m]);
+                        zeroingWin = zeroing && child >= 0 && states[child] == LOSS;
+                    }
+                }
+
+                if ((flag & NO_MOVE) != 0) {
+                    dtz[index] = 0;
+                    checkmates.add(index);
+                } else if ((state == WIN && zeroingWin) || (state == LOSS && notZeroing == 0)) {
+                    dtz[index] = 1;
+                    next.add(index);
+                } else {
+                    counters[index] = (byte) notZeroing;
+                }
+            }
+
+            propagateDtz(checkmates, next);
+
+            while (next.size > 0) {
+                IntList current = next;
+                next = level;
+                level = current;
+                next.size = 0;
+
+                propagateDtz(level, next);
+            }
+        }
+
+        private void propagateDtz(IntList level, IntList next) {
+            for (int i = 0; i < level.size; i++) {
+                int child = level.values[i];
+                boolean lost = states[child] == LOSS;
+                short value = (short) (dtz[child] + 1);
+                int parentCount = getParents(child, false);
+
+                for (int p = 0; p < parentCount; p++) {
+                    int parent = parents[p];
+
+                    if (dtz[parent] != NO_DTZ) {
+                        continue;
+                    }
+
+                    if (lost && states[parent] == WIN) {
+                        dtz[parent] = value;
+                        next.add(parent);
+                    } else if (!lost && states[parent] == LOSS && --counters[parent] == 0) {
+                        dtz[parent] = value;
+                        next.add(parent);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Find the positions of this table leading to the position by a move without capture or promotion
+         *
+         * @param index       - The position
+         * @param pawnMoves - True to include the moves of the pawns
+         * @return The number of distinct parents written in {@link #parents}
+         */
+        private int getParents(int index, boolean pawnMoves) {
+            Side mover = Side.getOtherPlayerSide(TablebaseTable.getSquares(index, count, pawns, parentSquares));
+            long occupied = 0L;
+
+            for (int i = 0; i < count; i++) {
+                occupied |= 1L << parentSquares[i];
+            }
+
+            int parentCount = 0;
+
+            for (int i = 0; i < count; i++) {
+                Pieces piece = material[i];
+
+                if (!mover.equals(piece.getSide()) || (!pawnMoves && Pieces.isPawn(piece))) {
+                    continue;
+                }
+
+                int square = parentSquares[i];
+                int file = ChessBoard.getFile(square);
+                int rank = ChessBoard.getRank(square);
+
+                if (Pieces.isPawn(piece)) {
+                    int direction = Side.WHITE.equals(mover) ? -1 : 1;
+                    int from = rank + direction;
+
+                    if (from < 1 || from > 6 || (occupied & (1L << ChessBoard.toSquare(file, from))) != 0) {
+                        continue;
+                    }
+
+                    parentCount = addParent(i, ChessBoard.toSquare(file, from), mover, parentCount);
+
+                    int start = Side.WHITE.equals(mover) ? 1 : 6;
+                    if (from + direction == start && (occupied & (1L << ChessBoard.toSquare(file, start))) == 0) {
+                        parentCount = addParent(i, ChessBoard.toSquare(file, start), mover, parentCount);
+                    }
+
+                    continue;
+                }
+
+                int[][] directions = getDirections(piece);
+                boolean slider = !Pieces.isKing(piece) && !Pieces.isKnight(piece);
+
+                for (int[] direction : directions) {
+                    int toFile = file + direction[0];
+                    int toRank = rank + direction[1];
+
+                    while (toFile >= 0 && toFile < 8 && toRank >= 0 && toRank < 8) {
+                        int from = ChessBoard.toSquare(toFile, toRank);
+
+                        if ((occupied & (1L << from)) != 0) {
+                            break;
+                        }
+
+                        parentCount = addParent(i, from, mover, parentCount);
+
+                        if (!slider) {
+                            break;
+                        }
+
+                        toFile += direction[0];
+                        toRank += direction[1];
+                    }
+                }
+            }
+
+            return distinct(parents, parentCount);
+        }
+
+        /**
+         * Add the position where the piece is on the square, before the move of the side
+         */
+        private int addParent(int piece, int from, Side side, int parentCount) {
+            int square = parentSquares[piece];
+            parentSquares[piece] = from;
+            int parent = TablebaseTable.getIndex(parentSquares, count, pawns, side);
+            parentSquares[piece] = square;
+
+            if (states[parent] != INVALID) {
+                parents[parentCount++] = parent;
+            }
+
+            return parentCount;
+        }
+
+        /**
+         * @return The index of the position after the move when it stays in this table, -1 otherwise (the value of
+         * the position is then in {@link #childValue})
+         */
+        private int getChild(int move) {
+            int from = BoardMoves.getFrom(move);
+            int to = BoardMoves.getTo(move);
+            Pieces promotion = BoardMoves.getPromotion(move);
+            MoveType moveType = BoardMoves.getMoveType(move);
+            Side other = Side.getOtherPlayerSide(side);
+            int moved = -1;
+            int captured = -1;
+
+            for (int i = 0; i < count; i++) {
+                if (squares[i] == from) {
+                    moved = i;
+                } else if (squares[i] == to) {
+                    captured = i;
+                }
+            }
+
+            zeroing = captured >= 0 || Pieces.isPawn(material[moved]);
+
+            if (captured < 0 && promotion == null && moveType != MoveType.EN_PASSANT) {
+                int previous = squares[moved];
+                squares[moved] = to;
+                int index = TablebaseTable.getIndex(squares, count, pawns, other);
+                squares[moved] = previous;
+
+                return index;
+            }
+
+            int childCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == captured) {
+                    continue;
+                }
+
+                Pieces piece = i == moved && promotion != null ? promotion : material[i];
+                int square = i == moved ? to : squares[i];
+
+                //Insertion by ordinal, to follow the order of the child material
+                int j = childCount++;
+                for (; j > 0 && childMaterial[j - 1].compareTo(piece) > 0; j--) {
+                    childMaterial[j] = childMaterial[j - 1];
+                    childSquares[j] = childSquares[j - 1];
+                }
+
+                childMaterial[j] = piece;
+                childSquares[j] = square;
+            }
+
+            if (childCount == 2) {
+                childValue = 0; //Only the kings
+            } else {
+                TablebaseTable table = tables.get(TablebaseTable.getMaterialKey(Arrays.copyOf(childMaterial, childCount)));
+                childValue = table.getValue(table.getIndex(childSquares, other));
+            }
+
+            return -1;
+        }
+
+        /**
+         * Put the position on the board
+         *
+         * @return False if the position is not valid (pieces on the same square, pawns on the last ranks, king of the
+         * side not to move in check)
+         */
+        private boolean setup(int index) {
+            for (int i = 0; i < placedCount; i++) {
+                board.setPiece(placedSquares[i], null);
+            }
+
+            placedCount = 0;
+            side = TablebaseTable.getSquares(index, count, pawns, squares);
+
+            for (int i = 0; i < count; i++) {
+                int square = squares[i];
+                int rank = ChessBoard.getRank(square);
+
+                if (board.getPiece(square) != null || (Pieces.isPawn(material[i]) && (rank == 0 || rank == 7))) {
+                    return false;
+                }
+
+                board.setPiece(square, material[i]);
+                placedSquares[placedCount++] = square;
+            }
+
+            if (TablebaseTable.getIndex(squares, count, pawns, side) != index) {
+                return false; //The symmetric position is used
+            }
+
+            board.setSideToMove(side);
+            return !board.isKingCheck(Side.getOtherPlayerSide(side));
+        }
+    }
+
+    /**
+     * Sort the indexes and remove the duplicates, two moves can lead to the same position by symmetry
+     *
+     * @return The number of distinct indexes, at the start of the array
+     */
+    private static int distinct(int[] values, int size) {
+        Arrays.sort(values, 0, size);
+
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+
+        return distinct;
+    }
+
+    private static int[][] getDirections(Pieces piece) {
+        if (Pieces.isKnight(piece)) {
+            return KNIGHT_DIRECTIONS;
+        } else if (Pieces.isRook(piece)) {
+            return ROOK_DIRECTIONS;
+        } else if (Pieces.isBishop(piece)) {
+            return BISHOP_DIRECTIONS;
+        }
+
+        return KING_DIRECTIONS; //Also the directions of the queen
+    }
+
+    private static final class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.tablebase;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.enums.TablebaseWdl;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.TablebaseResult;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The values of all the positions of a material set (the pieces sorted by ordinal, both kings included).
+ * <p>
+ * The positions are reduced by symmetry, the white king is moved to the a1-d1-d4 triangle (8 symmetries) when there
+ * is no pawn, and to the files a to d (mirror of the files) otherwise; when two symmetric positions have the white
+ * king on the diagonal, the one with the smallest index is kept. The index of a position is the side to move and the
+ * slot of the white king, followed by the squares of the other pieces (6 bits each, in the order of the material);
+ * the value is 0 for a draw, the DTZ for a win and -(DTZ + 1) for a loss.
+ */
+public final class TablebaseTable {
+    public static final String FILE_EXTENSION = ".etb";
+    public static final short INVALID = Short.MIN_VALUE;
+    public static final int MAGIC = 0x45435442;
+    public static final int MAX_PIECES = 8;
+    public static final int HEADER_SIZE = 8 + MAX_PIECES;
+    public static final int PAWNLESS_KING_SLOTS = 10;
+    public static final int PAWN_KING_SLOTS = 32;
+
+    private static final int FLIP_FILE = 1;
+    private static final int FLIP_RANK = 2;
+    private static final int TRANSPOSE = 4;
+    private static final int[][] TRANSFORMS = new int[8][64];
+    private static final int[] PAWNLESS_TRANSFORMS = new int[64];
+    private static final int[] PAWN_TRANSFORMS = new int[64];
+    private static final int[] PAWNLESS_SLOTS = new int[64];
+    private static final int[] PAWN_SLOTS = new int[64];
+    private static final int[] PAWNLESS_KING_SQUARES = new int[PAWNLESS_KING_SLOTS];
+    private static final int[] PAWN_KING_SQUARES = new int[PAWN_KING_SLOTS];
+
+    static {
+        for (int transform = 0; transform < 8; transform++) {
+            for (int square = 0; square < 64; square++) {
+                int file = ChessBoard.getFile(square);
+                int rank = ChessBoard.getRank(square);
+
+                if ((transform & FLIP_FILE) != 0) {
+                    file = 7 - file;
+                }
+
+                if ((transform & FLIP_RANK) != 0) {
+                    rank = 7 - rank;
+                }
+
+                TRANSFORMS[transform][square] = (transform & TRANSPOSE) != 0 ? ChessBoard.toSquare(rank, file) : ChessBoard.toSquare(file, rank);
+            }
+        }
+
+        int pawnSlot = 0;
+        for (int rank = 0; rank < 8; rank++) {
+            for (int file = 0; file < 8; file++) {
+                int square = ChessBoard.toSquare(file, rank);
+                PAWNLESS_SLOTS[square] = -1;
+                PAWN_SLOTS[square] = -1;
+                PAWN_TRANSFORMS[square] = file < 4 ? 0 : FLIP_FILE;
+
+                if (file < 4) {
+                    PAWN_KING_SQUARES[pawnSlot] = square;
+                    PAWN_SLOTS[square] = pawnSlot++;
+                }
+
+                int transform = (file > 3 ? FLIP_FILE : 0) | (rank > 3 ? FLIP_RANK : 0);
+                int transformed = TRANSFORMS[transform][square];
+
+                if (ChessBoard.getRank(transformed) > ChessBoard.getFile(transformed)) {
+                    transform |= TRANSPOSE;
+                }
+
+                PAWNLESS_TRANSFORMS[square] = transform;
+            }
+        }
+
+        int slot = 0;
+        for (int file = 0; file < 4; file++) {
+            for (int rank = 0; rank <= file; rank++) {
+                int square = ChessBoard.toSquare(file, rank);
+                PAWNLESS_KING_SQUARES[slot] = square;
+                PAWNLESS_SLOTS[square] = slot++;
+            }
+        }
+    }
+
+    private final Pieces[] material;
+    private final boolean pawns;
+    private final ShortBuffer values;
+
+    TablebaseTable(@NotNull Pieces[] material, @NotNull ShortBuffer values) {
+        this.material = material;
+        this.pawns = hasPawns(material);
+        this.values = values;
+    }
+
+    /**
+     * @return A copy of the pieces, sorted by ordinal
+     */
+    public static Pieces[] sortMaterial(@NotNull Pieces... pieces) {
+        Pieces[] material = pieces.clone();
+        Arrays.sort(material);
+        return material;
+    }
+
+    /**
+     * @param material - The pieces, sorted by ordinal
+     * @return A key unique by material
+     */
+    public static long getMaterialKey(@NotNull Pieces[] material) {
+        long key = 0;
+
+        for (Pieces piece : material) {
+            key = key * 13 + piece.ordinal() + 1;
+        }
+
+        return key;
+    }
+
+    /**
+     * @param material - The pieces, sorted by ordinal
+     * @return The name of the material, "KQvK" for a white king and queen against a black king
+     */
+    public static String getName(@NotNull Pieces[] material) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+
+        for (Pieces piece : material) {
+            char letter = Character.toUpperCase(FenUtils.getPieceLetter(piece));
+            (Side.WHITE.equals(piece.getSide()) ? white : black).append(letter);
+        }
+
+        return white.append('v').append(black).toString();
+    }
+
+    /**
+     * @return True if the material contains a pawn, only the files can then be mirrored
+     */
+    public static boolean hasPawns(@NotNull Pieces[] material) {
+        for (Pieces piece : material) {
+            if (Pieces.isPawn(piece)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The number of positions of a material set, after the reduction by symmetry
+     */
+    public static int getSize(int pieceCount, boolean pawns) {
+        return (2 * (pawns ? PAWN_KING_SLOTS : PAWNLESS_KING_SLOTS)) << ((pieceCount - 1) * 6);
+    }
+
+    /**
+     * @param squares - The squares of the pieces, in the order of the material (the white king first)
+     * @param count   - The number of pieces
+     * @param pawns   - True if the material contains a pawn
+     * @param side    - The side to move
+     * @return The index of the position, or of its symmetric position
+     */
+    public static int getIndex(int[] squares, int count, boolean pawns, Side side) {
+        int king = squares[0];
+
+        if (pawns) {
+            return getIndex(squares, count, PAWN_KING_SLOTS, PAWN_SLOTS, PAWN_TRANSFORMS[king], side);
+        }
+
+        int transform = PAWNLESS_TRANSFORMS[king];
+        int index = getIndex(squares, count, PAWNLESS_KING_SLOTS, PAWNLESS_SLOTS, transform, side);
+        int transformed = TRANSFORMS[transform][king];
+
+        if (ChessBoard.getFile(transformed) == ChessBoard.getRank(transformed)) {
+            //The transposition keeps the king in the triangle, the smallest index is the canonical one
+            index = Math.min(index, getIndex(squares, count, PAWNLESS_KING_SLOTS, PAWNLESS_SLOTS, transform ^ TRANSPOSE, side));
+        }
+
+        return index;
+    }
+
+    private static int getIndex(int[] squares, int count, int kingSlots, int[] slots, int transform, Side side) {
+        int[] transformation = TRANSFORMS[transform];
+        int index = (Side.WHITE.equals(side) ? kingSlots : 0) + slots[transformation[squares[0]]];
+
+        for (int i = 1; i < count; i++) {
+            index = (index << 6) | transformation[squares[i]];
+        }
+
+        return index;
+    }
+
+    /**
+     * Read the squares of the pieces from the index, the inverse of {@link #getIndex(int[], int, boolean, Side)}
+     *
+     * @return The side to move
+     */
+    public static Side getSquares(int index, int count, boolean pawns, int[] squares) {
+        for (int i = count - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+
+        int kingSlots = pawns ? PAWN_KING_SLOTS : PAWNLESS_KING_SLOTS;
+        squares[0] = (pawns ? PAWN_KING_SQUARES : PAWNLESS_KING_SQUARES)[index % kingSlots];
+
+        return index >= kingSlots ? Side.WHITE : Side.BLACK;
+    }
+
+    public static short encode(TablebaseWdl wdl, int dtz) {
+        switch (wdl) {
+            case WIN:
+                return (short) dtz;
+            case LOSS:
+                return (short) -(dtz + 1);
+            default:
+                return 0;
+        }
+    }
+
+    public static TablebaseWdl getWdl(short value) {
+        return value > 0 ? TablebaseWdl.WIN : value < 0 ? TablebaseWdl.LOSS : TablebaseWdl.DRAW;
+    }
+
+    /**
+     * @return The result, null if the value is {@link #INVALID}
+     */
+    public static TablebaseResult decode(short value) {
+        if (value == INVALID) {
+            return null;
+        } else if (value == 0) {
+            return TablebaseResult.DRAW;
+        }
+
+        return value > 0 ? new TablebaseResult(TablebaseWdl.WIN, value) : new TablebaseResult(TablebaseWdl.LOSS, -value - 1);
+    }
+
+    /**
+     * Map a table file, the file can be closed (the mapping stays valid)
+     */
+    public static TablebaseTable read(@NotNull Path file) throws IOException {
+        assertThat(file).isNotNull();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Invalid tablebase file " + file);
+            }
+
+            int count = buffer.getInt(4);
+            if (count < 3 || count > MAX_PIECES) {
+                throw new IllegalStateException("Invalid tablebase file " + file);
+            }
+
+            Pieces[] pieces = Pieces.values();
+            Pieces[] material = new Pieces[count];
+
+            for (int i = 0; i < count; i++) {
+                int ordinal = buffer.get(8 + i);
+
+                if (ordinal < 0 || ordinal >= pieces.length) {
+                    throw new IllegalStateException("Invalid tablebase file " + file);
+                }
+
+                material[i] = pieces[ordinal];
+            }
+
+            if (channel.size() != HEADER_SIZE + 2L * getSize(count, hasPawns(material))) {
+                throw new IllegalStateException("Truncated tablebase file " + file);
+            }
+
+            buffer.position(HEADER_SIZE);
+            return new TablebaseTable(material, buffer.slice().asShortBuffer());
+        }
+    }
+
+    /**
+     * Write the table in the directory, the name of the file is the name of the material
+     *
+     * @return The file
+     */
+    public Path write(@NotNull Path directory) throws IOException {
+        assertThat(directory).isNotNull();
+
+        Path file = directory.resolve(getName(material) + FILE_EXTENSION);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            buffer.putInt(MAGIC).putInt(material.length);
+
+            for (int i = 0; i < MAX_PIECES; i++) {
+                buffer.put(i < material.length ? (byte) material[i].ordinal() : 0);
+            }
+
+            for (int i = 0, size = values.limit(); i < size; i++) {
+                if (buffer.remaining() < 2) {
+                    writeBuffer(channel, buffer);
+                }
+
+                buffer.putShort(values.get(i));
+            }
+
+            writeBuffer(channel, buffer);
+        }
+
+        return file;
+    }
+
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    public short getValue(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * @param squares - The squares of the pieces, in the order of the material
+     * @param side    - The side to move
+     */
+    public int getIndex(int[] squares, Side side) {
+        return getIndex(squares, material.length, pawns, side);
+    }
+
+    /**
+     * @return A copy of the material
+     */
+    public Pieces[] getMaterial() {
+        return material.clone();
+    }
+
+    public int getPieceCount() {
+        return material.length;
+    }
+
+    public long getMaterialKey() {
+        return getMaterialKey(material);
+    }
+
+    public String getName() {
+        return getName(material);
+    }
+}
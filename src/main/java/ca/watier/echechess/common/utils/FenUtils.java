@@ -0,0 +1,355 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.interfaces.BaseUtils;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read and write the positions of a {@link ChessBoard} in the Forsyth-Edwards Notation (FEN).
+ * <p>
+ * The positions are parsed directly from the {@link CharSequence} or the {@link ByteBuffer} (ASCII), and written into
+ * a caller supplied {@link StringBuilder}, without intermediate strings.
+ */
+public class FenUtils implements BaseUtils {
+    public static final String STANDARD_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final Pieces[] PIECES = Pieces.values();
+    private static final char[] PIECE_LETTERS = new char[PIECES.length];
+    private static final Pieces[] PIECES_BY_LETTER = new Pieces[128];
+
+    static {
+        char[] letters = {'K', 'Q', 'R', 'B', 'N', 'P'};
+
+        for (Pieces piece : PIECES) {
+            char letter = letters[piece.ordinal() % 6];
+            letter = Side.WHITE.equals(piece.getSide()) ? letter : Character.toLowerCase(letter);
+
+            PIECE_LETTERS[piece.ordinal()] = letter;
+            PIECES_BY_LETTER[letter] = piece;
+        }
+    }
+
+    private FenUtils() {
+    }
+
+    /**
+     * @param piece
+     * @return The FEN letter of the piece (uppercase for white, lowercase for black)
+     */
+    public static char getPieceLetter(Pieces piece) {
+        return PIECE_LETTERS[piece.ordinal()];
+    }
+
+    /**
+     * @param letter
+     * @return The piece matching the FEN letter, null if the letter is not a piece
+     */
+    public static Pieces getPieceFromLetter(char letter) {
+        return letter < PIECES_BY_LETTER.length ? PIECES_BY_LETTER[letter] : null;
+    }
+
+    /**
+     * Setup the board with the position
+     *
+     * @param fen   - The position
+     * @param board - The board to setup, the current position and history are cleared
+     * @return The index following the last character read
+     */
+    public static int parse(CharSequence fen, ChessBoard board) {
+        assertThat(fen).isNotNull();
+
+        return parse(fen, 0, fen.length(), board);
+    }
+
+    /**
+     * Setup the board with the position contained in a section of the characters
+     *
+     * @param fen   - The characters
+     * @param start - The index of the first character of the position
+     * @param end   - The index following the last character that can be read
+     * @param board - The board to setup, the current position and history are cleared
+     * @return The index following the last character read
+     */
+    public static int parse(CharSequence fen, int start, int end, ChessBoard board) {
+        assertThat(fen).isNotNull();
+        assertThat(board).isNotNull();
+
+        return parse(fen, null, start, end, board);
+    }
+
+    /**
+     * Setup the board with the ASCII position contained between the position and the limit of the buffer, the position
+     * of the buffer is moved after the last byte read.
+     *
+     * @param fen   - The buffer
+     * @param board - The board to setup, the current position and history are cleared
+     */
+    public static void parse(ByteBuffer fen, ChessBoard board) {
+        assertThat(fen).isNotNull();
+        assertThat(board).isNotNull();
+
+        fen.position(parse(null, fen, fen.position(), fen.limit(), board));
+    }
+
+    private static char charAt(CharSequence chars, ByteBuffer bytes, int index) {
+        return chars != null ? chars.charAt(index) : (char) (bytes.get(index) & 0xFF);
+    }
+
+    private static int parse(CharSequence chars, ByteBuffer bytes, int start, int end, ChessBoard board) {
+        board.clear();
+
+        int index = skipSpaces(chars, bytes, start, end);
+        int file = 0;
+        int rank = 7;
+
+        //Pieces
+        for (; index < end; index++) {
+            char current = charAt(chars, bytes, index);
+
+            if (current == ' ') {
+                break;
+            } else if (current == '/') {
+                if (file != 8 || rank == 0) {
+                    throw new IllegalStateException("Invalid FEN, wrong number of squares in the rank " + (rank + 1));
+                }
+                file = 0;
+                rank--;
+            } else if (current >= '1' && current <= '8') {
+                file += current - '0';
+            } else {
+                Pieces piece = getPieceFromLetter(current);
+
+                if (piece == null || file > 7) {
+                    throw new IllegalStateException("Invalid FEN, unexpected character '" + current + "'");
+                }
+
+                if ((piece == Pieces.W_PAWN || piece == Pieces.B_PAWN) && (rank == 0 || rank == 7)) {
+                    throw new IllegalStateException("Invalid FEN, pawn on the rank " + (rank + 1));
+                }
+                board.setPiece(ChessBoard.toSquare(file++, rank), piece);
+            }
+        }
+
+        if (rank != 0 || file != 8) {
+            throw new IllegalStateException("Invalid FEN, the board is incomplete");
+        }
+
+        //Side to move
+        index = skipSpaces(chars, bytes, index, end);
+        if (index >= end) {
+            throw new IllegalStateException("Invalid FEN, the side to move is missing");
+        }
+
+        char side = charAt(chars, bytes, index++);
+        if (side == 'w') {
+            board.setSideToMove(Side.WHITE);
+        } else if (side == 'b') {
+            board.setSideToMove(Side.BLACK);
+        } else {
+            throw new IllegalStateException("Invalid FEN, unexpected side '" + side + "'");
+        }
+
+        //Castling rights
+        index = skipSpaces(chars, bytes, index, end);
+        int castlingRights = 0;
+        for (; index < end; index++) {
+            char current = charAt(chars, bytes, index);
+
+            if (current == ' ') {
+                break;
+            }
+
+            switch (current) {
+                case 'K':
+                    castlingRights |= ChessBoard.WHITE_KING_SIDE_CASTLING;
+                    break;
+                case 'Q':
+                    castlingRights |= ChessBoard.WHITE_QUEEN_SIDE_CASTLING;
+                    break;
+                case 'k':
+                    castlingRights |= ChessBoard.BLACK_KING_SIDE_CASTLING;
+                    break;
+                case 'q':
+                    castlingRights |= ChessBoard.BLACK_QUEEN_SIDE_CASTLING;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid FEN, unexpected castling '" + current + "'");
+            }
+        }
+        board.setCastlingRights(castlingRights);
+
+        //En passant
+        index = skipSpaces(chars, bytes, index, end);
+        if (index < end) {
+            char current = charAt(chars, bytes, index++);
+
+            if (current >= 'a' && current <= 'h' && index < end) {
+                char row = charAt(chars, bytes, index++);
+
+                //The pawn that just moved belongs to the side not to move
+                char expectedRow = Side.WHITE.equals(board.getSideToMove()) ? '6' : '3';
+                if (row != expectedRow) {
+                    throw new IllegalStateException("Invalid FEN, unexpected en passant row '" + row + "'");
+                }
+
+                setEnPassantIfCapturable(board, ChessBoard.toSquare(current - 'a', row - '1'));
+            } else if (current != '-') {
+                throw new IllegalStateException("Invalid FEN, unexpected en passant '" + current + "'");
+            }
+        }
+
+        //The clocks are optional
+        index = skipSpaces(chars, bytes, index, end);
+        int halfMoveEnd = skipDigits(chars, bytes, index, end);
+        if (halfMoveEnd > index) {
+            board.setHalfMoveClock(parseInt(chars, bytes, index, halfMoveEnd));
+            index = skipSpaces(chars, bytes, halfMoveEnd, end);
+
+            int fullMoveEnd = skipDigits(chars, bytes, index, end);
+            if (fullMoveEnd > index) {
+                board.setFullMoveNumber(Math.max(1, parseInt(chars, bytes, index, fullMoveEnd)));
+                index = fullMoveEnd;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * The board only keeps the en passant square when a pawn can take it, the same positions have the same hash
+     */
+    private static void setEnPassantIfCapturable(ChessBoard board, int square) {
+        boolean isWhiteToMove = Side.WHITE.equals(board.getSideToMove());
+        int pawnSquare = isWhiteToMove ? square + 8 : square - 8;
+        Pieces enemyPawn = isWhiteToMove ? Pieces.W_PAWN : Pieces.B_PAWN;
+        int file = ChessBoard.getFile(pawnSquare);
+
+        if ((file > 0 && board.getPiece(pawnSquare - 1) == enemyPawn) || (file < 7 && board.getPiece(pawnSquare + 1) == enemyPawn)) {
+            board.setEnPassantSquare(square);
+        }
+    }
+
+    private static int skipSpaces(CharSequence chars, ByteBuffer bytes, int index, int end) {
+        while (index < end && charAt(chars, bytes, index) == ' ') {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int skipDigits(CharSequence chars, ByteBuffer bytes, int index, int end) {
+        while (index < end && Character.isDigit(charAt(chars, bytes, index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int parseInt(CharSequence chars, ByteBuffer bytes, int start, int end) {
+        int value = 0;
+
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (charAt(chars, bytes, i) - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Append the position of the board to the builder
+     *
+     * @param board   - The board
+     * @param builder - The builder, can be reused between the calls
+     * @return The builder
+     */
+    public static StringBuilder write(ChessBoard board, StringBuilder builder) {
+        assertThat(board).isNotNull();
+        assertThat(builder).isNotNull();
+
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptySquares = 0;
+
+            for (int file = 0; file < 8; file++) {
+                Pieces piece = board.getPiece(ChessBoard.toSquare(file, rank));
+
+                if (piece == null) {
+                    emptySquares++;
+                } else {
+                    if (emptySquares > 0) {
+                        builder.append(emptySquares);
+                        emptySquares = 0;
+                    }
+                    builder.append(PIECE_LETTERS[piece.ordinal()]);
+                }
+            }
+
+            if (emptySquares > 0) {
+                builder.append(emptySquares);
+            }
+
+            if (rank > 0) {
+                builder.append('/');
+            }
+        }
+
+        builder.append(Side.WHITE.equals(board.getSideToMove()) ? " w " : " b ");
+
+        int castlingRights = board.getCastlingRights();
+        if (castlingRights == 0) {
+            builder.append('-');
+        } else {
+            appendIfSet(builder, castlingRights, ChessBoard.WHITE_KING_SIDE_CASTLING, 'K');
+            appendIfSet(builder, castlingRights, ChessBoard.WHITE_QUEEN_SIDE_CASTLING, 'Q');
+            appendIfSet(builder, castlingRights, ChessBoard.BLACK_KING_SIDE_CASTLING, 'k');
+            appendIfSet(builder, castlingRights, ChessBoard.BLACK_QUEEN_SIDE_CASTLING, 'q');
+        }
+
+        builder.append(' ');
+
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare == ChessBoard.NO_SQUARE) {
+            builder.append('-');
+        } else {
+            builder.append((char) ('a' + ChessBoard.getFile(enPassantSquare))).append(ChessBoard.getRank(enPassantSquare) + 1);
+        }
+
+        return builder.append(' ').append(board.getHalfMoveClock()).append(' ').append(board.getFullMoveNumber());
+    }
+
+    private static void appendIfSet(StringBuilder builder, int castlingRights, int flag, char letter) {
+        if ((castlingRights & flag) != 0) {
+            builder.append(letter);
+        }
+    }
+
+    /**
+     * @param board
+     * @return The position of the board
+     */
+    public static String toFen(ChessBoard board) {
+        return write(board, new StringBuilder(90)).toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.security.KeyPair;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A bounded pool of key pairs by algorithm and size / curve, filled by the threads of the pool.
+ * <p>
+ * When a key pair is taken and the remaining key pairs are at the low water mark (or below), the pool is refilled up to
+ * its capacity in background; when empty, the key pair is generated on the calling thread.
+ *
+ * @see KeystoreGenerator#setKeyPairPool(KeyPairPool)
+ */
+public class KeyPairPool implements Closeable {
+    public static final int DEFAULT_CAPACITY = 8;
+    public static final int DEFAULT_LOW_WATER_MARK = 2;
+
+    private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final int capacity;
+    private final int lowWaterMark;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean closed;
+
+    public KeyPairPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOW_WATER_MARK, 1);
+    }
+
+    /**
+     * @param capacity     - The maximum number of key pairs kept, for each algorithm and size / curve
+     * @param lowWaterMark - The number of remaining key pairs triggering a refill
+     * @param threadCount  - The number of threads generating the key pairs
+     */
+    public KeyPairPool(int capacity, int lowWaterMark, int threadCount) {
+        assertThat(capacity).isPositive();
+        assertThat(lowWaterMark).isBetween(0, capacity - 1);
+        assertThat(threadCount).isPositive();
+
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "keypair-pool-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private static String ecKey(String curveName) {
+        return KeystoreGenerator.KEYPAIR_SIGNING_ALG_EC + ':' + curveName;
+    }
+
+    private static String rsaKey(short keySize) {
+        return KeystoreGenerator.KEYPAIR_SIGNING_ALG_RSA + ':' + keySize;
+    }
+
+    public @NotNull KeyPair takeEcKeyPair(@NotNull String curveName) {
+        return take(ecSlot(curveName));
+    }
+
+    public @NotNull KeyPair takeRsaKeyPair(short keySize) {
+        return take(rsaSlot(keySize));
+    }
+
+    /**
+     * Fill the pool of the curve in background, before the first use
+     */
+    public void prefillEc(@NotNull String curveName) {
+        refill(ecSlot(curveName));
+    }
+
+    /**
+     * Fill the pool of the key size in background, before the first use
+     */
+    public void prefillRsa(short keySize) {
+        refill(rsaSlot(keySize));
+    }
+
+    public int getAvailableEc(@NotNull String curveName) {
+        Slot slot = slots.get(ecKey(curveName));
+        return slot == null ? 0 : slot.keyPairs.size();
+    }
+
+    public int getAvailableRsa(short keySize) {
+        Slot slot = slots.get(rsaKey(keySize));
+        return slot == null ? 0 : slot.keyPairs.size();
+    }
+
+    /**
+     * @return The number of key pairs taken from the pool
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of key pairs generated on the calling thread, the pool being empty
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        slots.clear();
+    }
+
+    private Slot ecSlot(String curveName) {
+        assertThat(curveName).isNotNull();
+        return slots.computeIfAbsent(ecKey(curveName), key -> new Slot(() -> KeystoreGenerator.newEcdsaKeyPair(curveName)));
+    }
+
+    private Slot rsaSlot(short keySize) {
+        return slots.computeIfAbsent(rsaKey(keySize), key -> new Slot(() -> KeystoreGenerator.newRsaKeyPair(keySize)));
+    }
+
+    private KeyPair take(Slot slot) {
+        KeyPair keyPair = slot.keyPairs.poll();
+
+        if (slot.keyPairs.size() <= lowWaterMark) {
+            refill(slot);
+        }
+
+        if (keyPair != null) {
+            hits.incrementAndGet();
+            return keyPair;
+        }
+
+        misses.incrementAndGet();
+        return slot.generator.get();
+    }
+
+    private void refill(Slot slot) {
+        if (closed || !slot.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    while (!closed && slot.keyPairs.remainingCapacity() > 0) {
+                        slot.keyPairs.offer(slot.generator.get());
+                    }
+                } finally {
+                    slot.refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slot.refilling.set(false);
+        }
+    }
+
+    private final class Slot {
+        private final BlockingQueue<KeyPair> keyPairs = new ArrayBlockingQueue<>(capacity);
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final Supplier<KeyPair> generator;
+
+        private Slot(Supplier<KeyPair> generator) {
+            this.generator = generator;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.interfaces.KeystoreProgressListener;
+import ca.watier.echechess.common.utils.KeystoreGenerator.KeystorePasswordHolder;
+
+import java.nio.file.Path;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Create a range of keystores of a batch, split in halves down to one keystore per task
+ */
+class KeystoreBatchTask extends RecursiveAction {
+    private static final long serialVersionUID = -2810925047311585731L;
+
+    private final transient Supplier<KeystorePasswordHolder> factory;
+    private final transient KeystorePasswordHolder[] keystores;
+    private final transient Path[] files;
+    private final transient Path directory;
+    private final transient KeystoreProgressListener listener;
+    private final transient AtomicInteger completed;
+    private final int from;
+    private final int to;
+
+    KeystoreBatchTask(Supplier<KeystorePasswordHolder> factory, KeystorePasswordHolder[] keystores, Path[] files,
+                      Path directory, KeystoreProgressListener listener, AtomicInteger completed, int from, int to) {
+        this.factory = factory;
+        this.keystores = keystores;
+        this.files = files;
+        this.directory = directory;
+        this.listener = listener;
+        this.completed = completed;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > 1) {
+            int middle = (from + to) >>> 1;
+            invokeAll(new KeystoreBatchTask(factory, keystores, files, directory, listener, completed, from, middle),
+                    new KeystoreBatchTask(factory, keystores, files, directory, listener, completed, middle, to));
+            return;
+        }
+
+        KeystorePasswordHolder holder = factory.get();
+        keystores[from] = holder;
+
+        if (directory != null) {
+            Path file = directory.resolve(String.format(KeystoreGenerator.BATCH_FILE_NAME, from));
+            KeystoreGenerator.writePkcs12(holder, file);
+            files[from] = file;
+        }
+
+        int done = completed.incrementAndGet();
+        if (listener != null) {
+            listener.onProgress(done, keystores.length);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.utils.KeystoreGenerator.KeystorePasswordHolder;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A local cache of the keystores created by the {@link KeystoreGenerator}, to reuse the self-signed certificates between
+ * the starts (dev / test environments only: the passwords are stored next to the keystores).
+ * <p>
+ * The keystores are kept as PKCS12 files, named by the SHA-256 of their settings (signing algorithm, key algorithm and
+ * size / curve, subject and expiry), with a properties file holding the password, the settings and the SHA-256 of the
+ * PKCS12 file. A keystore is created again when a file is missing or altered, or when its certificate expires within
+ * the renewal margin.
+ */
+public class KeystoreCache {
+    public static final Duration DEFAULT_RENEWAL_MARGIN = Duration.ofDays(1);
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(KeystoreCache.class);
+    private static final String KEYSTORE_EXTENSION = ".p12";
+    private static final String METADATA_EXTENSION = ".properties";
+    private static final String PASSWORD = "password";
+    private static final String SETTINGS = "settings";
+    private static final String DIGEST = "sha256";
+
+    private final Path directory;
+    private final Duration renewalMargin;
+    private final Clock clock;
+
+    public KeystoreCache(@NotNull Path directory) {
+        this(directory, DEFAULT_RENEWAL_MARGIN, Clock.systemUTC());
+    }
+
+    /**
+     * @param directory     - The directory of the cached keystores
+     * @param renewalMargin - The keystores expiring within this margin are created again
+     * @param clock         - The clock checking the expiration
+     */
+    public KeystoreCache(@NotNull Path directory, @NotNull Duration renewalMargin, @NotNull Clock clock) {
+        assertThat(directory).isNotNull();
+        assertThat(renewalMargin).isNotNull();
+        assertThat(clock).isNotNull();
+
+        this.directory = directory;
+        this.renewalMargin = renewalMargin;
+        this.clock = clock;
+    }
+
+    private static String toSubject(Map<ASN1ObjectIdentifier, String> certUserInfo) {
+        Map<String, String> sorted = new TreeMap<>();
+
+        for (Map.Entry<ASN1ObjectIdentifier, String> entry : certUserInfo.entrySet()) {
+            sorted.put(entry.getKey().getId(), entry.getValue());
+        }
+
+        return sorted.toString();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder value = new StringBuilder(digest.length * 2);
+
+            for (byte current : digest) {
+                value.append(Character.forDigit((current >> 4) & 0xF, 16)).append(Character.forDigit(current & 0xF, 16));
+            }
+
+            return value.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write to a temporary file (only readable by the owner on POSIX file systems), then move it
+     */
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @see KeystoreGenerator#createEcKeystore(String, String, int, Map)
+     */
+    public @NotNull KeystorePasswordHolder getEcKeystore(@NotNull String signingAlg,
+                                                        @NotNull String curveName,
+                                                        int expiryNbMonth,
+                                                        @NotNull Map<ASN1ObjectIdentifier, String> certUserInfo) {
+        String settings = String.join("|", signingAlg, KeystoreGenerator.KEYPAIR_SIGNING_ALG_EC, curveName,
+                toSubject(certUserInfo), String.valueOf(expiryNbMonth));
+
+        return get(settings, () -> KeystoreGenerator.createEcKeystore(signingAlg, curveName, expiryNbMonth, certUserInfo));
+    }
+
+    /**
+     * @see KeystoreGenerator#createRsaKeystore(String, short, int, Map)
+     */
+    public @NotNull KeystorePasswordHolder getRsaKeystore(@NotNull String signingAlg,
+                                                         short keySize,
+                                                         int expiryNbMonth,
+                                                         @NotNull Map<ASN1ObjectIdentifier, String> certUserInfo) {
+        String settings = String.join("|", signingAlg, KeystoreGenerator.KEYPAIR_SIGNING_ALG_RSA, String.valueOf(keySize),
+                toSubject(certUserInfo), String.valueOf(expiryNbMonth));
+
+        return get(settings, () -> KeystoreGenerator.createRsaKeystore(signingAlg, keySize, expiryNbMonth, certUserInfo));
+    }
+
+    /**
+     * @param settings  - The settings of the keystore, the key of the cache
+     * @param generator - Create the keystore when not cached, or not valid anymore
+     * @return The keystore as PKCS12, cached or created; the keystore created is returned as is when it can't be cached
+     */
+    public synchronized @NotNull KeystorePasswordHolder get(@NotNull String settings, @NotNull Supplier<KeystorePasswordHolder> generator) {
+        assertThat(settings).isNotEmpty();
+        assertThat(generator).isNotNull();
+
+        String name = sha256(settings.getBytes(StandardCharsets.UTF_8));
+        Path keystoreFile = directory.resolve(name + KEYSTORE_EXTENSION);
+        Path metadataFile = directory.resolve(name + METADATA_EXTENSION);
+
+        KeystorePasswordHolder cached = load(settings, keystoreFile, metadataFile);
+        if (cached != null) {
+            return cached;
+        }
+
+        return store(generator.get(), settings, keystoreFile, metadataFile);
+    }
+
+    /**
+     * Remove all the cached keystores
+     */
+    public synchronized void clear() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + KEYSTORE_EXTENSION + "," + METADATA_EXTENSION + "}")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private KeystorePasswordHolder load(String settings, Path keystoreFile, Path metadataFile) {
+        if (!Files.isRegularFile(keystoreFile) || !Files.isRegularFile(metadataFile)) {
+            return null;
+        }
+
+        try {
+            Properties metadata = new Properties();
+            try (InputStream inputStream = Files.newInputStream(metadataFile)) {
+                metadata.load(inputStream);
+            }
+
+            byte[] content = Files.readAllBytes(keystoreFile);
+            String password = metadata.getProperty(PASSWORD);
+
+            if (password == null || !settings.equals(metadata.getProperty(SETTINGS)) || !sha256(content).equals(metadata.getProperty(DIGEST))) {
+                LOGGER.warn("The cached keystore {} is altered, creating a new one", keystoreFile);
+                return null;
+            }
+
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(new ByteArrayInputStream(content), password.toCharArray());
+
+            if (isExpiring(keyStore)) {
+                LOGGER.info("The cached keystore {} is expiring, creating a new one", keystoreFile);
+                return null;
+            }
+
+            return new KeystorePasswordHolder(password, keyStore);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            LOGGER.warn("Unable to read the cached keystore " + keystoreFile + ", creating a new one", e);
+            return null;
+        }
+    }
+
+    private boolean isExpiring(KeyStore keyStore) throws GeneralSecurityException {
+        Date limit = Date.from(clock.instant().plus(renewalMargin));
+
+        for (String alias : Collections.list(keyStore.aliases())) {
+            Certificate certificate = keyStore.getCertificate(alias);
+
+            if (certificate instanceof X509Certificate && ((X509Certificate) certificate).getNotAfter().before(limit)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The PKCS12 keystore written, the keystore given when it can't be cached
+     */
+    private KeystorePasswordHolder store(KeystorePasswordHolder holder, String settings, Path keystoreFile, Path metadataFile) {
+        try {
+            Files.createDirectories(directory);
+
+            Path temporary = Files.createTempFile(directory, keystoreFile.getFileName().toString(), ".tmp");
+            byte[] content;
+            try {
+                KeystoreGenerator.writePkcs12(holder, temporary);
+                content = Files.readAllBytes(temporary);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            Properties metadata = new Properties();
+            metadata.setProperty(PASSWORD, holder.getPassword());
+            metadata.setProperty(SETTINGS, settings);
+            metadata.setProperty(DIGEST, sha256(content));
+
+            ByteArrayOutputStream metadataContent = new ByteArrayOutputStream();
+            try (OutputStream outputStream = metadataContent) {
+                metadata.store(outputStream, null);
+            }
+
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(new ByteArrayInputStream(content), holder.getPassword().toCharArray());
+
+            writeAtomically(keystoreFile, content);
+            writeAtomically(metadataFile, metadataContent.toByteArray());
+
+            return new KeystorePasswordHolder(holder.getPassword(), keyStore);
+        } catch (IOException | GeneralSecurityException | IllegalStateException e) {
+            LOGGER.warn("Unable to cache the keystore " + keystoreFile, e);
+            return holder;
+        }
+    }
+}
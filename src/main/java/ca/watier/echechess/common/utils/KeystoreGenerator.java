@@ -16,6 +16,9 @@
 
 package ca.watier.echechess.common.utils;
 
+import ca.watier.echechess.common.enums.SecureRandomStrategy;
+import ca.watier.echechess.common.interfaces.KeystoreProgressListener;
+import ca.watier.echechess.common.pojos.KeystoreBatchResult;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.X500NameBuilder;
@@ -37,14 +40,27 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.*;
 import java.security.cert.X509Certificate;
+import java.security.spec.AlgorithmParameterSpec;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Created by yannick on 6/5/2017.
@@ -58,25 +74,94 @@ public final class KeystoreGenerator {
     public static final String MAIN_SIGNING_ALG_SHA512_EC = "SHA512withECDSA";
     public static final String MAIN_SIGNING_ALG_SHA512_RSA = "SHA512withRSA";
     public static final String EC_CURVE = "secp384r1";
+    public static final String BATCH_FILE_NAME = "keystore-%d.p12";
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(KeystoreGenerator.class);
     private static final short SERIAL_BYTES_LENGTH = 1024;
-    private static SecureRandom secureRandom = null;
+    private static final Provider PROVIDER;
+    private static final Map<String, AlgorithmParameterSpec> EC_PARAMETER_SPECS = new ConcurrentHashMap<>();
+    private static volatile KeyPairPool keyPairPool = null;
+    private static volatile SecureRandomStrategy secureRandomStrategy;
+    private static volatile ThreadLocal<SecureRandom> secureRandoms;
 
     static {
         if (Security.getProvider(PROVIDER_NAME) == null) {
             Security.addProvider(new BouncyCastleProvider());
         }
 
-        try {
-            secureRandom = SecureRandom.getInstance("SHA1PRNG");
-        } catch (NoSuchAlgorithmException e2) {
-            secureRandom = new SecureRandom();
-        }
+        PROVIDER = Security.getProvider(PROVIDER_NAME);
+        setSecureRandomStrategy(SecureRandomStrategy.DRBG);
     }
 
     private KeystoreGenerator() {
     }
 
+    /**
+     * Take the key pairs from a pool filled in background, instead of generating them on each call
+     *
+     * @param pool - The pool, null to generate the key pairs on demand
+     */
+    public static void setKeyPairPool(@Nullable KeyPairPool pool) {
+        keyPairPool = pool;
+    }
+
+    public static @Nullable KeyPairPool getKeyPairPool() {
+        return keyPairPool;
+    }
+
+    /**
+     * Change the source of the random numbers; the provider of the algorithm is looked up once, then each thread creates
+     * its own instance. When the algorithm is not available, the default SecureRandom of the JVM is used.
+     *
+     * @param strategy - The strategy (DRBG by default)
+     */
+    public static synchronized void setSecureRandomStrategy(@NotNull SecureRandomStrategy strategy) {
+        String algorithm = strategy.getAlgorithm();
+        SecureRandomStrategy selected = strategy;
+        Provider provider = null;
+
+        if (algorithm != null) {
+            try {
+                provider = SecureRandom.getInstance(algorithm).getProvider();
+            } catch (NoSuchAlgorithmException e) {
+                LOGGER.warn("The SecureRandom {} is not available, using the default", algorithm);
+                selected = SecureRandomStrategy.DEFAULT;
+            }
+        }
+
+        Provider finalProvider = provider;
+        String finalAlgorithm = selected.getAlgorithm();
+
+        secureRandoms = ThreadLocal.withInitial(() -> newSecureRandom(finalAlgorithm, finalProvider));
+        secureRandomStrategy = selected;
+    }
+
+    /**
+     * @return The strategy in use, {@link SecureRandomStrategy#DEFAULT} when the requested algorithm is not available
+     */
+    public static @NotNull SecureRandomStrategy getSecureRandomStrategy() {
+        return secureRandomStrategy;
+    }
+
+    /**
+     * @return The SecureRandom of the current thread
+     */
+    public static @NotNull SecureRandom getSecureRandom() {
+        return secureRandoms.get();
+    }
+
+    private static SecureRandom newSecureRandom(String algorithm, Provider provider) {
+        if (algorithm == null) {
+            return new SecureRandom();
+        }
+
+        try {
+            return SecureRandom.getInstance(algorithm, provider);
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.warn(e.toString(), e);
+            return new SecureRandom();
+        }
+    }
+
     /**
      * Create a keystore with ECDSA and a random password (64 characters)
      *
@@ -114,7 +199,7 @@ public final class KeystoreGenerator {
         }
 
         X500Name xName = nameBuilder.build();
-        BigInteger serialNumber = new BigInteger(SERIAL_BYTES_LENGTH, secureRandom);
+        BigInteger serialNumber = new BigInteger(SERIAL_BYTES_LENGTH, getSecureRandom());
 
         LocalDateTime startDate = LocalDateTime.now();
         LocalDateTime endDate = startDate.plusMonths(expiryNbMonth);
@@ -154,12 +239,17 @@ public final class KeystoreGenerator {
     }
 
     private static @NotNull KeyPair generateEcdsaKeyPair(@NotNull String curveName) {
+        KeyPairPool pool = keyPairPool;
+        return pool == null ? newEcdsaKeyPair(curveName) : pool.takeEcKeyPair(curveName);
+    }
+
+    static @NotNull KeyPair newEcdsaKeyPair(@NotNull String curveName) {
         KeyPairGenerator keyGenerator = null;
 
         try {
-            keyGenerator = KeyPairGenerator.getInstance(KEYPAIR_SIGNING_ALG_EC, PROVIDER_NAME);
-            keyGenerator.initialize(ECNamedCurveTable.getParameterSpec(curveName), secureRandom);
-        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidAlgorithmParameterException e) {
+            keyGenerator = KeyPairGenerator.getInstance(KEYPAIR_SIGNING_ALG_EC, PROVIDER);
+            keyGenerator.initialize(EC_PARAMETER_SPECS.computeIfAbsent(curveName, ECNamedCurveTable::getParameterSpec), getSecureRandom());
+        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException e) {
             LOGGER.error(e.toString(), e);
         }
 
@@ -178,7 +268,7 @@ public final class KeystoreGenerator {
      * @return
      */
     private static @NotNull String nextPassword() {
-        return new BigInteger(320, secureRandom).toString(32);
+        return new BigInteger(320, getSecureRandom()).toString(32);
     }
 
     /**
@@ -248,13 +338,18 @@ public final class KeystoreGenerator {
     }
 
     private static @NotNull KeyPair generateRsaKeyPair(short keySize) {
+        KeyPairPool pool = keyPairPool;
+        return pool == null ? newRsaKeyPair(keySize) : pool.takeRsaKeyPair(keySize);
+    }
+
+    static @NotNull KeyPair newRsaKeyPair(short keySize) {
         KeyPairGenerator keyGenerator = null;
 
         try {
 
-            keyGenerator = KeyPairGenerator.getInstance(KEYPAIR_SIGNING_ALG_RSA, PROVIDER_NAME);
-            keyGenerator.initialize(keySize, secureRandom);
-        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            keyGenerator = KeyPairGenerator.getInstance(KEYPAIR_SIGNING_ALG_RSA, PROVIDER);
+            keyGenerator.initialize(keySize, getSecureRandom());
+        } catch (NoSuchAlgorithmException e) {
             LOGGER.error(e.toString(), e);
         }
 
@@ -285,6 +380,106 @@ public final class KeystoreGenerator {
         return createKeystore(signingAlg, generateRsaKeyPair(keySize), keystorePwd, expiryNbMonth, certUserInfo);
     }
 
+    /**
+     * Create keystores in parallel, with the default EC curve and a random password for each
+     *
+     * @param count         - The number of keystores
+     * @param signingAlg    - The signature algorithm (Example: SHA512WithRSA, SHA512withECDSA, etc)
+     * @param expiryNbMonth - The number of month before the expiration of the certificates
+     * @param certUserInfo  - The user settings of the certificates (BCStyle.C, BCStyle.O, BCStyle.CN, etc)
+     * @param directory     - The directory where the keystores are written as PKCS12 files (keystore-{index}.p12, with
+     *                      the password of the keystore), null to keep them in memory only
+     * @param listener      - Notified after each keystore, can be null
+     * @return
+     */
+    public static @NotNull KeystoreBatchResult createEcWithDefaultCurveKeystores(int count,
+                                                                                 @NotNull String signingAlg,
+                                                                                 int expiryNbMonth,
+                                                                                 @NotNull Map<ASN1ObjectIdentifier, String> certUserInfo,
+                                                                                 @Nullable Path directory,
+                                                                                 @Nullable KeystoreProgressListener listener) {
+        return createKeystores(count, () -> createEcWithDefaultCurveKeystoreAndPassword(signingAlg, expiryNbMonth, certUserInfo),
+                directory, listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create keystores in parallel on a fork-join pool
+     *
+     * @param count     - The number of keystores
+     * @param factory   - Create a keystore, called from the threads of the pool
+     * @param directory - The directory where the keystores are written as PKCS12 files (keystore-{index}.p12, with the
+     *                  password of the keystore), null to keep them in memory only
+     * @param listener  - Notified after each keystore, can be null
+     * @param pool      - The pool running the batch
+     * @return
+     */
+    public static @NotNull KeystoreBatchResult createKeystores(int count,
+                                                               @NotNull Supplier<KeystorePasswordHolder> factory,
+                                                               @Nullable Path directory,
+                                                               @Nullable KeystoreProgressListener listener,
+                                                               @NotNull ForkJoinPool pool) {
+        assertThat(count).isPositive();
+        assertThat(factory).isNotNull();
+        assertThat(pool).isNotNull();
+
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to create the directory " + directory, e);
+            }
+        }
+
+        KeystorePasswordHolder[] keystores = new KeystorePasswordHolder[count];
+        Path[] files = new Path[directory == null ? 0 : count];
+        long start = System.nanoTime();
+
+        pool.invoke(new KeystoreBatchTask(factory, keystores, files, directory, listener, new AtomicInteger(), 0, count));
+
+        KeystoreBatchResult result = new KeystoreBatchResult(Arrays.asList(keystores), Arrays.asList(files), System.nanoTime() - start);
+        LOGGER.debug("{} keystores created ({} / second)", count, result.getKeystoresPerSecond());
+
+        return result;
+    }
+
+    /**
+     * Write the keystore as a PKCS12 file, protected by the password of the keystore. The file holds the private keys,
+     * it's written to a temporary file (only readable by the owner on POSIX file systems) moved over the file.
+     *
+     * @param holder - The keystore and its password
+     * @param file   - The file, replaced if it exists
+     */
+    public static void writePkcs12(@NotNull KeystorePasswordHolder holder, @NotNull Path file) {
+        char[] password = holder.getPassword().toCharArray();
+
+        try {
+            KeyStore source = holder.getKeyStore();
+            KeyStore pkcs12 = KeyStore.getInstance("PKCS12");
+            pkcs12.load(null, null);
+
+            for (String alias : Collections.list(source.aliases())) {
+                if (source.isKeyEntry(alias)) {
+                    pkcs12.setKeyEntry(alias, source.getKey(alias, password), password, source.getCertificateChain(alias));
+                } else {
+                    pkcs12.setCertificateEntry(alias, source.getCertificate(alias));
+                }
+            }
+
+            Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                    pkcs12.store(outputStream, password);
+                }
+
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to write the keystore " + file, e);
+        }
+    }
+
     public static class KeystorePasswordHolder {
         private final String password;
         private final KeyStore keyStore;
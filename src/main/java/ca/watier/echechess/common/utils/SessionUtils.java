@@ -17,6 +17,7 @@
 package ca.watier.echechess.common.utils;
 
 import ca.watier.echechess.common.interfaces.BaseUtils;
+import ca.watier.echechess.common.sessions.OffHeapPlayerStore;
 import ca.watier.echechess.common.sessions.Player;
 
 import javax.servlet.http.HttpSession;
@@ -45,4 +46,24 @@ public class SessionUtils implements BaseUtils {
 
         return player;
     }
+
+    /**
+     * Fetch the player of the session from the store, instead of the HttpSession attributes; the session cannot be
+     * null, same for the player
+     * <p>
+     * The players are put in the store with a retention fitting its slots, see {@link OffHeapPlayerStore#getSlotSize(int)}
+     *
+     * @param session
+     * @param store
+     * @return A copy of the player
+     */
+    public static Player getPlayer(HttpSession session, OffHeapPlayerStore store) {
+        assertThat(session).isNotNull();
+        assertThat(store).isNotNull();
+
+        Player player = store.get(session.getId());
+        assertThat(player).isNotNull();
+
+        return player;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.book;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.OpeningBookEntry;
+import org.junit.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class OpeningBookTest {
+
+    @Test
+    public void lookup() throws Exception {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        builder.addGame(Arrays.asList("e4", "e5", "Nf3", "Nc6", "Bb5"), PgnEndGameToken.WHITE_WIN);
+        builder.addGame(Arrays.asList("e4", "c5", "Nf3"), PgnEndGameToken.DRAWN);
+        builder.addGame(Arrays.asList("d4", "d5"), PgnEndGameToken.BLACK_WIN);
+
+        Path path = Files.createTempFile("book", ".bin");
+
+        try {
+            assertThat(builder.write(path, 1)).isEqualTo(8);
+
+            try (OpeningBook book = new OpeningBook(path)) {
+                ChessBoard board = new ChessBoard();
+                board.setupStandardPosition();
+
+                List<OpeningBookEntry> entries = book.getEntries(board.getHash());
+                assertThat(entries).hasSize(2);
+
+                int e4 = board.findLegalMove(CasePosition.E2, CasePosition.E4, null);
+                assertThat(book.getBestMove(board)).isEqualTo(e4);
+
+                int[] moves = new int[8];
+                int[] weights = new int[8];
+                assertThat(book.findMoves(board.getHash(), moves, weights)).isEqualTo(2);
+
+                board.makeMove(e4);
+                assertThat(book.getEntries(board.getHash())).hasSize(2);
+
+                board.makeMove(board.findLegalMove(CasePosition.C7, CasePosition.C5, null));
+                board.makeMove(board.findLegalMove(CasePosition.G1, CasePosition.F3, null));
+                board.makeMove(board.findLegalMove(CasePosition.D7, CasePosition.D6, null));
+                assertThat(book.getEntries(board.getHash())).isEmpty();
+                assertThat(book.getBestMove(board)).isEqualTo(BoardMoves.NO_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void invalidMovesAreIgnored() {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+
+        assertThat(builder.addGame(Arrays.asList("e4", "", "Nf3"), PgnEndGameToken.WHITE_WIN)).isEqualTo(1);
+        assertThat(builder.addGame(Arrays.asList("d4", "garbage", "c4"), PgnEndGameToken.DRAWN)).isEqualTo(1);
+        assertThat(builder.addGame(Arrays.asList("e4", "e5"), PgnEndGameToken.DRAWN)).isEqualTo(2);
+    }
+
+    @Test
+    public void truncatedBook() throws Exception {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        builder.addGame(Arrays.asList("e4", "e5", "Nf3"), PgnEndGameToken.WHITE_WIN);
+
+        Path path = Files.createTempFile("book", ".bin");
+
+        try {
+            builder.write(path, 1);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+
+            assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> new OpeningBook(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.pojos.MoveHistory;
+import ca.watier.echechess.common.sessions.Player;
+import org.ehcache.spi.serialization.SerializerException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class CacheSerializersTest {
+
+    @Test
+    public void player() throws Exception {
+        PlayerSerializer serializer = new PlayerSerializer();
+        Player player = new Player();
+        player.addCreatedGame(UUID.randomUUID());
+        player.addJoinedGame(UUID.randomUUID());
+        player.addUiSession(UUID.randomUUID());
+
+        ByteBuffer binary = serializer.serialize(player);
+        Player read = serializer.read(binary);
+
+        assertThat(read.getCreatedGameList()).isEqualTo(player.getCreatedGameList());
+        assertThat(read.getJoinedGameList()).isEqualTo(player.getJoinedGameList());
+        assertThat(read.getUiSessionList()).isEqualTo(player.getUiSessionList());
+        assertThat(serializer.equals(player, binary)).isTrue();
+        assertThat(serializer.equals(new Player(), binary)).isFalse();
+    }
+
+    @Test
+    public void moveHistory() throws Exception {
+        MoveHistorySerializer serializer = new MoveHistorySerializer();
+        MoveHistory history = new MoveHistory(CasePosition.E2, CasePosition.E4, Side.WHITE);
+        history.setMoveType(MoveType.PAWN_HOP);
+        history.setOtherKingStatus(KingStatus.OK);
+        history.setExtraInfo("e4 \u00e9");
+
+        ByteBuffer binary = serializer.serialize(history);
+        MoveHistory read = serializer.read(binary);
+
+        assertThat(read.toString()).isEqualTo(history.toString());
+        assertThat(read.getCurrentKingStatus()).isNull();
+        assertThat(serializer.equals(history, binary)).isTrue();
+
+        MoveHistory empty = serializer.read(serializer.serialize(new MoveHistory(null, null, null)));
+        assertThat(empty.getFrom()).isNull();
+        assertThat(empty.getExtraInfo()).isNull();
+
+        assertThatExceptionOfType(SerializerException.class).isThrownBy(() -> serializer.read(ByteBuffer.wrap(new byte[]{1, 2})));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.enums.ChessEventMessage;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.impl.LocalGameEventBus;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTest {
+
+    @Test
+    public void invalidationEvents() {
+        Map<UUID, String> store = new HashMap<>();
+        AtomicInteger loads = new AtomicInteger();
+        NearCache<String> cache = new NearCache<>(100, uuid -> {
+            loads.incrementAndGet();
+            return store.get(uuid);
+        });
+
+        LocalGameEventBus bus = new LocalGameEventBus();
+        bus.addListener(cache);
+
+        UUID game = UUID.randomUUID();
+        UUID otherGame = UUID.randomUUID();
+        store.put(game, "e4");
+        store.put(otherGame, "d4");
+
+        assertThat(cache.get(game)).isEqualTo("e4");
+        assertThat(cache.get(game)).isEqualTo("e4");
+        assertThat(cache.get(otherGame)).isEqualTo("d4");
+        assertThat(loads.get()).isEqualTo(2);
+        long version = cache.getVersion(game);
+
+        store.put(game, "e4 e5");
+        bus.fireGameEvent(otherGame.toString(), ChessEventMessage.PLAYER_TURN);
+        bus.fireSideEvent(game.toString(), Side.WHITE, ChessEventMessage.SCORE_UPDATE, "");
+        assertThat(cache.get(game)).isEqualTo("e4");
+
+        bus.fireGameEvent(game.toString(), ChessEventMessage.MOVE, "e5");
+        assertThat(cache.getVersion(game)).isEqualTo(-1);
+        assertThat(cache.get(game)).isEqualTo("e4 e5");
+        assertThat(cache.getVersion(game)).isGreaterThan(version);
+        assertThat(cache.get(otherGame)).isEqualTo("d4");
+        assertThat(loads.get()).isEqualTo(3);
+
+        bus.fireGameEvent(otherGame.toString(), ChessEventMessage.GAME_WON);
+        bus.fireGameEvent(game.toString(), ChessEventMessage.REFRESH_BOARD);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getInvalidationCount()).isEqualTo(3);
+        assertThat(cache.get(UUID.randomUUID())).isNull();
+    }
+
+    @Test
+    public void invalidGameIdAndFailingListener() {
+        UUID game = UUID.randomUUID();
+        NearCache<String> cache = new NearCache<>(100, uuid -> "e4");
+        LocalGameEventBus bus = new LocalGameEventBus();
+        bus.addListener((uuid, message) -> {
+            throw new IllegalStateException("Failing listener");
+        });
+        bus.addListener(cache);
+
+        assertThat(cache.get(game)).isEqualTo("e4");
+        bus.fireGameEvent("not a uuid", ChessEventMessage.MOVE);
+        assertThat(cache.size()).isEqualTo(1);
+
+        bus.fireGameEvent(game.toString(), ChessEventMessage.MOVE);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidationDuringLoad() {
+        UUID game = UUID.randomUUID();
+        AtomicReference<NearCache<String>> holder = new AtomicReference<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        holder.set(new NearCache<>(100, uuid -> {
+            if (loads.incrementAndGet() == 1) {
+                holder.get().onGameEvent(uuid.toString(), ChessEventMessage.MOVE); //A move is played while loading
+                return "stale";
+            }
+            return "fresh";
+        }));
+
+        assertThat(holder.get().get(game)).isEqualTo("stale");
+        assertThat(holder.get().get(game)).isEqualTo("fresh");
+        assertThat(holder.get().get(game)).isEqualTo("fresh");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void sizeBounded() {
+        NearCache<UUID> cache = new NearCache<>(10, uuid -> uuid);
+
+        for (int i = 0; i < 100; i++) {
+            UUID game = UUID.randomUUID();
+            assertThat(cache.get(game)).isEqualTo(game);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.getStats().evictionCount()).isGreaterThanOrEqualTo(90);
+        assertThat(cache.getStats().missCount()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.cache;
+
+import ca.watier.echechess.common.sessions.Player;
+import ca.watier.echechess.common.utils.CacheConstants;
+import org.ehcache.Cache;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class TieredCacheBuilderTest {
+
+    @Test
+    public void heapAndOffHeapWithStatistics() {
+        try (TieredCaches caches = new TieredCacheBuilder().withUiSessionCache(10, 1, 0).withStatistics().build()) {
+            Cache<String, Player> cache = caches.getCache(CacheConstants.CACHE_UI_SESSION_NAME, String.class, Player.class);
+            Player player = new Player(64);
+            player.addCreatedGame(UUID.randomUUID());
+
+            for (int i = 0; i < 100; i++) {
+                cache.put("session-" + i, player);
+            }
+
+            Player read = cache.get("session-0"); //Evicted from the heap, read from the off-heap tier
+            assertThat(read.getCreatedGameList()).isEqualTo(player.getCreatedGameList());
+            assertThat(read.getMaxEntries()).isEqualTo(64);
+            assertThat(cache.get("other")).isNull();
+
+            CacheStatistics statistics = caches.getStatistics(CacheConstants.CACHE_UI_SESSION_NAME);
+            assertThat(statistics.getCachePuts()).isEqualTo(100);
+            assertThat(statistics.getCacheHits()).isEqualTo(1);
+            assertThat(statistics.getCacheMisses()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void withoutStatistics() {
+        try (TieredCaches caches = new TieredCacheBuilder().withUiSessionCache(10, 0, 0).build()) {
+            assertThat(caches.getCache(CacheConstants.CACHE_UI_SESSION_NAME, String.class, Player.class)).isNotNull();
+            assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(() -> caches.getStatistics(CacheConstants.CACHE_UI_SESSION_NAME));
+        }
+    }
+
+    @Test
+    public void diskTierRequiresADirectory() {
+        TieredCacheBuilder builder = new TieredCacheBuilder().withUiSessionCache(10, 1, 2);
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(builder::build);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.enums;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PgnTokenLookupTest {
+
+    @Test
+    public void pieceFound() {
+        assertThat(PgnPieceFound.getPieceFromAction("Nbd2")).isEqualTo(PgnPieceFound.KNIGHT);
+        assertThat(PgnPieceFound.getPieceFromAction(new StringBuilder("exd8=Q"))).isEqualTo(PgnPieceFound.QUEEN);
+        assertThat(PgnPieceFound.getPieceFromAction("e4")).isEqualTo(PgnPieceFound.PAWN);
+        assertThat(PgnPieceFound.getPieceFromAction("\u00e9R")).isEqualTo(PgnPieceFound.ROOK);
+        assertThat(PgnPieceFound.getPieceFromLetter('K')).isEqualTo(PgnPieceFound.KING);
+        assertThat(PgnPieceFound.getPieceFromLetter('\u00e9')).isEqualTo(PgnPieceFound.PAWN);
+
+        assertThat(PgnPieceFound.KING.getPieceBySide(Side.WHITE)).isEqualTo(Pieces.W_KING);
+        assertThat(PgnPieceFound.KNIGHT.getPieceBySide(Side.BLACK)).isEqualTo(Pieces.B_KNIGHT);
+        assertThat(PgnPieceFound.PAWN.getPieceBySide(Side.OBSERVER)).isNull();
+        assertThat(PgnPieceFound.PAWN.getPieceBySide(null)).isNull();
+    }
+
+    @Test
+    public void endGameToken() {
+        assertThat(PgnEndGameToken.getEndGameTokenByAction("1-0")).isEqualTo(PgnEndGameToken.WHITE_WIN);
+        assertThat(PgnEndGameToken.getEndGameTokenByAction("0-1")).isEqualTo(PgnEndGameToken.BLACK_WIN);
+        assertThat(PgnEndGameToken.getEndGameTokenByAction(new StringBuilder("1/2-1/2"))).isEqualTo(PgnEndGameToken.DRAWN);
+        assertThat(PgnEndGameToken.getEndGameTokenByAction("*")).isEqualTo(PgnEndGameToken.STILL_IN_PROGRESS);
+        assertThat(PgnEndGameToken.getEndGameTokenByAction("1-1")).isEqualTo(PgnEndGameToken.UNKNOWN);
+        assertThat(PgnEndGameToken.getEndGameTokenByAction("")).isEqualTo(PgnEndGameToken.UNKNOWN);
+    }
+
+    @Test
+    public void moveTokens() {
+        assertThat(PgnMoveToken.getPieceMovesFromLetter("O-O-O")).containsExactly(PgnMoveToken.QUEENSIDE_CASTLING);
+        assertThat(PgnMoveToken.getPieceMovesFromLetter("O-O+")).containsExactly(PgnMoveToken.KINGSIDE_CASTLING_CHECK);
+        assertThat(PgnMoveToken.getPieceMovesFromLetter("e4")).containsExactly(PgnMoveToken.NORMAL_MOVE);
+        assertThat(PgnMoveToken.getPieceMovesFromLetter("exd8=Q#")).containsExactly(PgnMoveToken.NORMAL_MOVE,
+                PgnMoveToken.CAPTURE, PgnMoveToken.CHECKMATE, PgnMoveToken.PAWN_PROMOTION);
+        assertThat(PgnMoveToken.getPieceMovesFromLetter("Qxf7++")).containsExactly(PgnMoveToken.NORMAL_MOVE,
+                PgnMoveToken.CAPTURE, PgnMoveToken.CHECK, PgnMoveToken.CHECKMATE);
+    }
+}
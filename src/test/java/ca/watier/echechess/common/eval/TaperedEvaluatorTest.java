@@ -0,0 +1,135 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.eval;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaperedEvaluatorTest {
+
+    private static ChessBoard parse(String fen) {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(fen, board);
+        return board;
+    }
+
+    private static void assertSameAsRecomputed(ChessBoard board) {
+        ChessBoard recomputed = new ChessBoard();
+        recomputed.copyFrom(board);
+        recomputed.setPieceSquareTables(board.getPieceSquareTables());
+
+        assertThat(board.getMiddleGameScore()).isEqualTo(recomputed.getMiddleGameScore());
+        assertThat(board.getEndGameScore()).isEqualTo(recomputed.getEndGameScore());
+        assertThat(board.getPhase()).isEqualTo(recomputed.getPhase());
+    }
+
+    @Test
+    public void startingPosition() {
+        ChessBoard board = parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        evaluator.prepare(board);
+
+        assertThat(board.getPhase()).isEqualTo(PieceSquareTables.MAX_PHASE);
+        assertThat(board.getMiddleGameScore()).isZero();
+        assertThat(board.getEndGameScore()).isZero();
+        assertThat(evaluator.evaluate(board)).isZero();
+    }
+
+    @Test
+    public void mirroredPositions() {
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        ChessBoard white = parse("4k3/8/8/8/3N4/8/4P3/4K3 w - - 0 1");
+        ChessBoard black = parse("4k3/4p3/8/3n4/8/8/8/4K3 b - - 0 1");
+        evaluator.prepare(white);
+        evaluator.prepare(black);
+
+        assertThat(evaluator.evaluate(white)).isPositive();
+        assertThat(evaluator.evaluate(white)).isEqualTo(evaluator.evaluate(black));
+        assertThat(white.getMiddleGameScore()).isEqualTo(-black.getMiddleGameScore());
+        assertThat(white.getPhase()).isEqualTo(1);
+    }
+
+    @Test
+    public void centralizedKnightIsBetter() {
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        ChessBoard center = parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1");
+        ChessBoard corner = parse("4k3/8/8/8/8/8/8/N3K3 w - - 0 1");
+        evaluator.prepare(center);
+        evaluator.prepare(corner);
+
+        assertThat(evaluator.evaluate(center)).isGreaterThan(evaluator.evaluate(corner));
+    }
+
+    @Test
+    public void incrementalUpdates() {
+        ChessBoard board = parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        new TaperedEvaluator().prepare(board);
+        int middleGame = board.getMiddleGameScore();
+        int endGame = board.getEndGameScore();
+        int phase = board.getPhase();
+
+        Random random = new Random(42);
+        int[] moves = new int[256];
+        int played = 0;
+
+        for (int i = 0; i < 200; i++) {
+            int count = board.generateLegalMoves(moves);
+            if (count == 0) {
+                break;
+            }
+
+            board.makeMove(moves[random.nextInt(count)]);
+            played++;
+            assertSameAsRecomputed(board);
+        }
+
+        while (played-- > 0) {
+            board.unmakeMove();
+        }
+
+        assertThat(board.getMiddleGameScore()).isEqualTo(middleGame);
+        assertThat(board.getEndGameScore()).isEqualTo(endGame);
+        assertThat(board.getPhase()).isEqualTo(phase);
+    }
+
+    @Test
+    public void takebackOfMovesPlayedBeforeTheTables() {
+        ChessBoard board = new ChessBoard();
+        board.setupStandardPosition();
+        board.makeMove(board.findLegalMove(CasePosition.E2, CasePosition.E4, null));
+        board.makeMove(board.findLegalMove(CasePosition.D7, CasePosition.D5, null));
+        long hash = board.getHash();
+
+        new TaperedEvaluator().prepare(board);
+        assertThat(board.getHash()).isEqualTo(hash);
+        assertThat(board.getPly()).isEqualTo(2);
+        assertSameAsRecomputed(board);
+
+        board.unmakeMove();
+        assertSameAsRecomputed(board);
+
+        board.unmakeMove();
+        assertThat(board.getPhase()).isEqualTo(PieceSquareTables.MAX_PHASE);
+        assertSameAsRecomputed(board);
+    }
+}
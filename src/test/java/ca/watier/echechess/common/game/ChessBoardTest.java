@@ -0,0 +1,170 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static ca.watier.echechess.common.enums.CasePosition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChessBoardTest {
+    private ChessBoard board;
+
+    @Before
+    public void setUp() {
+        board = new ChessBoard();
+        board.setupStandardPosition();
+    }
+
+    @Test
+    public void perftStandardPositionTest() {
+        assertThat(perft(board, 1)).isEqualTo(20L);
+        assertThat(perft(board, 2)).isEqualTo(400L);
+        assertThat(perft(board, 3)).isEqualTo(8902L);
+        assertThat(perft(board, 4)).isEqualTo(197281L);
+    }
+
+    @Test
+    public void perftTrickyPositionsTest() {
+        FenUtils.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", board);
+        assertThat(perft(board, 3)).isEqualTo(97862L);
+
+        FenUtils.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", board);
+        assertThat(perft(board, 4)).isEqualTo(43238L);
+
+        FenUtils.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", board);
+        assertThat(perft(board, 3)).isEqualTo(9467L);
+
+        FenUtils.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", board);
+        assertThat(perft(board, 3)).isEqualTo(62379L);
+    }
+
+    @Test
+    public void makeUnmakeRestoreTheStateTest() {
+        long initialHash = board.getHash();
+
+        board.makeMove(BoardMoves.of(E2, E4, MoveType.PAWN_HOP));
+        board.makeMove(BoardMoves.of(D7, D5, MoveType.PAWN_HOP));
+        board.makeMove(BoardMoves.of(E4, D5, MoveType.CAPTURE));
+
+        assertThat(board.getPiece(D5)).isEqualTo(Pieces.W_PAWN);
+        assertThat(board.getLastCapturedPiece()).isEqualTo(Pieces.B_PAWN);
+        assertThat(board.getBlackMaterial()).isEqualTo(38);
+        assertThat(board.getWhiteMaterial()).isEqualTo(39);
+        assertThat(board.getHalfMoveClock()).isEqualTo(0);
+        assertThat(board.getFullMoveNumber()).isEqualTo(2);
+        assertThat(board.getHash()).isEqualTo(board.computeHash());
+
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+
+        assertThat(board.getHash()).isEqualTo(initialHash);
+        assertThat(board.getPiece(E2)).isEqualTo(Pieces.W_PAWN);
+        assertThat(board.getPiece(D7)).isEqualTo(Pieces.B_PAWN);
+        assertThat(board.getBlackMaterial()).isEqualTo(39);
+        assertThat(board.getSideToMove()).isEqualTo(Side.WHITE);
+        assertThat(board.getPly()).isEqualTo(0);
+    }
+
+    @Test
+    public void transpositionsHaveTheSameHashTest() {
+        ChessBoard other = new ChessBoard();
+        other.setupStandardPosition();
+
+        board.makeMove(BoardMoves.of(G1, F3, MoveType.NORMAL_MOVE));
+        board.makeMove(BoardMoves.of(G8, F6, MoveType.NORMAL_MOVE));
+        board.makeMove(BoardMoves.of(B1, C3, MoveType.NORMAL_MOVE));
+
+        other.makeMove(BoardMoves.of(B1, C3, MoveType.NORMAL_MOVE));
+        other.makeMove(BoardMoves.of(G8, F6, MoveType.NORMAL_MOVE));
+        other.makeMove(BoardMoves.of(G1, F3, MoveType.NORMAL_MOVE));
+
+        assertThat(board.getHash()).isEqualTo(other.getHash());
+    }
+
+    @Test
+    public void castlingAndPromotionTest() {
+        board.clear();
+        board.setPiece(E1, Pieces.W_KING);
+        board.setPiece(H1, Pieces.W_ROOK);
+        board.setPiece(E8, Pieces.B_KING);
+        board.setPiece(B7, Pieces.W_PAWN);
+        board.setCastlingRights(ChessBoard.WHITE_KING_SIDE_CASTLING);
+
+        int castling = BoardMoves.of(E1, G1, MoveType.CASTLING);
+        assertThat(board.isLegalMove(castling)).isTrue();
+
+        board.makeMove(castling);
+        assertThat(board.getPiece(F1)).isEqualTo(Pieces.W_ROOK);
+        assertThat(board.getKingSquare(Side.WHITE)).isEqualTo(G1.ordinal());
+        assertThat(board.getCastlingRights()).isEqualTo(0);
+        board.unmakeMove();
+        assertThat(board.getPiece(H1)).isEqualTo(Pieces.W_ROOK);
+        assertThat(board.getCastlingRights()).isEqualTo(ChessBoard.WHITE_KING_SIDE_CASTLING);
+
+        board.makeMove(BoardMoves.ofPromotion(B7.ordinal(), B8.ordinal(), Pieces.W_QUEEN));
+        assertThat(board.getPiece(B8)).isEqualTo(Pieces.W_QUEEN);
+        assertThat(board.getWhiteMaterial()).isEqualTo(14);
+        assertThat(board.getKingStatus()).isEqualTo(KingStatus.CHECK);
+        assertThat(board.getHash()).isEqualTo(board.computeHash());
+        board.unmakeMove();
+        assertThat(board.getPiece(B7)).isEqualTo(Pieces.W_PAWN);
+        assertThat(board.getWhiteMaterial()).isEqualTo(6);
+    }
+
+    @Test
+    public void kingStatusTest() {
+        //Fool's mate
+        board.makeMove(BoardMoves.of(F2, F3, MoveType.NORMAL_MOVE));
+        board.makeMove(BoardMoves.of(E7, E5, MoveType.PAWN_HOP));
+        board.makeMove(BoardMoves.of(G2, G4, MoveType.PAWN_HOP));
+        assertThat(board.getKingStatus()).isEqualTo(KingStatus.OK);
+        board.makeMove(BoardMoves.of(D8, H4, MoveType.NORMAL_MOVE));
+
+        assertThat(board.isKingCheck(Side.WHITE)).isTrue();
+        assertThat(board.getKingStatus()).isEqualTo(KingStatus.CHECKMATE);
+        assertThat(board.generateLegalMoves(new int[ChessBoard.MAX_MOVES])).isEqualTo(0);
+    }
+
+    static long perft(ChessBoard board, int depth) {
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long hash = board.getHash();
+            board.makeMove(moves[i]);
+            assertThat(board.getHash()).isEqualTo(board.computeHash());
+            nodes += perft(board, depth - 1);
+            board.unmakeMove();
+            assertThat(board.getHash()).isEqualTo(hash);
+        }
+
+        return nodes;
+    }
+}
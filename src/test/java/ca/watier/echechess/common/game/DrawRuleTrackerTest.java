@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.DrawReason;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import org.junit.Test;
+
+import static ca.watier.echechess.common.enums.CasePosition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DrawRuleTrackerTest {
+
+    @Test
+    public void threefoldAndFivefoldRepetitionTest() {
+        ChessBoard board = new ChessBoard();
+        board.setupStandardPosition();
+        DrawRuleTracker tracker = new DrawRuleTracker(board);
+
+        int[] knightDance = {
+                BoardMoves.of(G1, F3, MoveType.NORMAL_MOVE), BoardMoves.of(G8, F6, MoveType.NORMAL_MOVE),
+                BoardMoves.of(F3, G1, MoveType.NORMAL_MOVE), BoardMoves.of(F6, G8, MoveType.NORMAL_MOVE)
+        };
+
+        DrawReason reason = DrawReason.NONE;
+        for (int cycle = 1; cycle <= 4; cycle++) {
+            for (int move : knightDance) {
+                board.makeMove(move);
+                reason = tracker.onMove(board);
+            }
+
+            assertThat(tracker.getRepetitionCount()).isEqualTo(cycle + 1);
+            if (cycle == 2) {
+                assertThat(reason).isEqualTo(DrawReason.THREEFOLD_REPETITION);
+                assertThat(reason.getEndGameToken()).isEqualTo(PgnEndGameToken.DRAWN);
+                assertThat(reason.isAutomatic()).isFalse();
+            }
+        }
+
+        assertThat(reason).isEqualTo(DrawReason.FIVEFOLD_REPETITION);
+
+        board.makeMove(BoardMoves.of(E2, E4, MoveType.PAWN_HOP));
+        assertThat(tracker.onMove(board)).isEqualTo(DrawReason.NONE);
+        assertThat(tracker.getRepetitionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void moveRulesTest() {
+        DrawRuleTracker tracker = new DrawRuleTracker(0L);
+
+        for (int ply = 1; ply < DrawRuleTracker.FIFTY_MOVE_RULE_PLIES; ply++) {
+            assertThat(tracker.onMove(ply, MoveType.NORMAL_MOVE, Pieces.W_KNIGHT)).isEqualTo(DrawReason.NONE);
+        }
+
+        assertThat(tracker.onMove(-1L, MoveType.NORMAL_MOVE, Pieces.B_ROOK)).isEqualTo(DrawReason.FIFTY_MOVE_RULE);
+
+        for (int ply = DrawRuleTracker.FIFTY_MOVE_RULE_PLIES; ply < DrawRuleTracker.SEVENTY_FIVE_MOVE_RULE_PLIES; ply++) {
+            tracker.onMove(ply, MoveType.NORMAL_MOVE, Pieces.W_KNIGHT);
+        }
+
+        assertThat(tracker.getDrawReason()).isEqualTo(DrawReason.SEVENTY_FIVE_MOVE_RULE);
+        assertThat(tracker.onMove(42L, MoveType.NORMAL_MOVE, Pieces.B_PAWN)).isEqualTo(DrawReason.NONE);
+        assertThat(tracker.getHalfMoveClock()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.game;
+
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.responses.GameScoreResponse;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameScoreTrackerTest {
+
+    @Test
+    public void captureAndPromotionTest() {
+        GameScoreTracker tracker = new GameScoreTracker();
+
+        GameScoreResponse afterCapture = tracker.onCapture(Pieces.B_KNIGHT);
+        assertThat(afterCapture).isEqualTo(new GameScoreResponse((short) 39, (short) 36));
+        assertThat(afterCapture).isSameAs(GameScoreResponse.getResponse((short) 39, (short) 36));
+
+        tracker.onCapture(Pieces.W_PAWN);
+        GameScoreResponse afterPromotion = tracker.onPromotion(Pieces.B_PAWN, Pieces.B_QUEEN);
+
+        assertThat(tracker.getWhitePlayerPoint()).isEqualTo((short) 38);
+        assertThat(tracker.getBlackPlayerPoint()).isEqualTo((short) 44);
+        assertThat(afterPromotion).isEqualTo(new GameScoreResponse((short) 38, (short) 44));
+    }
+
+    @Test
+    public void fromPiecesTest() {
+        GameScoreTracker tracker = GameScoreTracker.fromPieces(Arrays.asList(Pieces.W_KING, Pieces.W_ROOK, Pieces.B_KING, Pieces.B_PAWN));
+
+        assertThat(tracker.getResponse()).isSameAs(GameScoreResponse.getResponse((short) 5, (short) 1));
+
+        ChessBoard board = new ChessBoard();
+        board.setupStandardPosition();
+        assertThat(GameScoreTracker.fromBoard(board).getResponse()).isEqualTo(new GameScoreTracker().getResponse());
+    }
+}
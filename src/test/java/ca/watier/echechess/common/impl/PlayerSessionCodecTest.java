@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.impl;
+
+import ca.watier.echechess.common.sessions.Player;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class PlayerSessionCodecTest {
+
+    private static Player newPlayer(int games) {
+        return newPlayer(new Player(), games);
+    }
+
+    private static Player newPlayer(Player player, int games) {
+        for (int i = 0; i < games; i++) {
+            player.addCreatedGame(UUID.randomUUID());
+            player.addJoinedGame(UUID.randomUUID());
+        }
+        player.addUiSession(UUID.randomUUID());
+
+        return player;
+    }
+
+    private static void assertSamePlayer(Player actual, Player expected) {
+        assertThat(actual.getCreatedGameList()).isEqualTo(expected.getCreatedGameList());
+        assertThat(actual.getJoinedGameList()).isEqualTo(expected.getJoinedGameList());
+        assertThat(actual.getUiSessionList()).isEqualTo(expected.getUiSessionList());
+        assertThat(actual.getMaxEntries()).isEqualTo(expected.getMaxEntries());
+    }
+
+    @Test
+    public void roundTrip() {
+        PlayerSessionCodec codec = new PlayerSessionCodec();
+        Player empty = new Player();
+        Player player = newPlayer(30);
+
+        byte[] emptyBytes = codec.encode(empty);
+        assertThat(emptyBytes.length).isEqualTo(1 + 5 + 3);
+        assertSamePlayer(codec.decode(emptyBytes), empty);
+
+        byte[] bytes = codec.encode(player);
+        assertThat(bytes.length).isEqualTo(1 + 5 + 1 + 30 * 16 + 1 + 30 * 16 + 1 + 16);
+        assertSamePlayer(codec.decode(bytes), player);
+    }
+
+    @Test
+    public void roundTripWithRetention() {
+        PlayerSessionCodec codec = new PlayerSessionCodec();
+        JavaSerializationSessionCodec<Player> javaCodec = new JavaSerializationSessionCodec<>(Player.class);
+        Player player = newPlayer(new Player(100), 60);
+
+        Player decoded = codec.decode(codec.encode(player));
+        assertSamePlayer(decoded, player);
+        assertThat(decoded.getCreatedGameList()).hasSize(60);
+        assertSamePlayer(javaCodec.decode(javaCodec.encode(player)), player);
+
+        for (int i = 0; i < 50; i++) {
+            decoded.addCreatedGame(UUID.randomUUID());
+        }
+        assertThat(decoded.getCreatedGameList()).hasSize(100);
+    }
+
+    @Test
+    public void javaSerializationUsesTheExternalForm() {
+        JavaSerializationSessionCodec<Player> javaCodec = new JavaSerializationSessionCodec<>(Player.class);
+        Player player = newPlayer(10);
+
+        assertSamePlayer(javaCodec.decode(javaCodec.encode(player)), player);
+    }
+
+    @Test
+    public void javaSerializationRejectsOtherClasses() {
+        JavaSerializationSessionCodec<Unexpected> unexpectedCodec = new JavaSerializationSessionCodec<>(Unexpected.class);
+        JavaSerializationSessionCodec<Player> javaCodec = new JavaSerializationSessionCodec<>(Player.class);
+        byte[] bytes = unexpectedCodec.encode(new Unexpected());
+        Unexpected.READ.set(false);
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> javaCodec.decode(bytes));
+        assertThat(Unexpected.READ.get()).isFalse();
+
+        unexpectedCodec.decode(bytes);
+        assertThat(Unexpected.READ.get()).isTrue();
+    }
+
+    @Test
+    public void compactAgainstJavaSerialization() {
+        PlayerSessionCodec codec = new PlayerSessionCodec();
+        JavaSerializationSessionCodec<Player> javaCodec = new JavaSerializationSessionCodec<>(Player.class);
+        Player player = newPlayer(20);
+
+        int compactSize = codec.encode(player).length;
+        int javaSize = javaCodec.encode(player).length;
+
+        assertThat(compactSize).isLessThan(javaSize);
+    }
+
+    @Test
+    public void invalidBytes() {
+        PlayerSessionCodec codec = new PlayerSessionCodec();
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> codec.decode(new byte[]{9, 0, 0, 0}));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> codec.decode(new byte[]{1, 5}));
+    }
+
+    private static class Unexpected implements Serializable {
+        private static final AtomicBoolean READ = new AtomicBoolean();
+        private static final long serialVersionUID = 1L;
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            READ.set(true);
+        }
+    }
+}
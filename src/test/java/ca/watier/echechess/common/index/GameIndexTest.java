@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.game.ChessBoard;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class GameIndexTest {
+
+    @Test
+    public void find() throws Exception {
+        try (GameIndexBuilder builder = new GameIndexBuilder()) {
+            assertFind(builder, GameIndex::new);
+        }
+    }
+
+    /**
+     * Small runs and chunks, the postings are merged from many spilled runs and the values are split between chunks
+     */
+    @Test
+    public void findWithSpilledRunsAndSmallChunks() throws Exception {
+        try (GameIndexBuilder builder = new GameIndexBuilder(3)) {
+            assertFind(builder, path -> new GameIndex(path, 4));
+        }
+    }
+
+    @Test
+    public void invalidMovesAreIgnored() throws Exception {
+        try (GameIndexBuilder builder = new GameIndexBuilder()) {
+            assertThat(builder.addGame(1, Arrays.asList("e4", "", "Nf3"))).isEqualTo(1);
+            assertThat(builder.addGame(2, Arrays.asList("d4", "garbage", "c4"))).isEqualTo(1);
+            assertThat(builder.addGame(3, Arrays.asList("e4", "e5"))).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void truncatedIndex() throws Exception {
+        Path path = Files.createTempFile("index", ".bin");
+
+        try (GameIndexBuilder builder = new GameIndexBuilder()) {
+            builder.addGame(1, Arrays.asList("e4", "e5"));
+            builder.write(path);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+
+            assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> new GameIndex(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void assertFind(GameIndexBuilder builder, IndexOpener opener) throws Exception {
+        builder.addGame(1000, Arrays.asList("e4", "e5", "Nf3", "Nc6"));
+        builder.addGame(20, Arrays.asList("Nf3", "Nc6", "e4", "e5", "Bb5"));
+        builder.addGame(300000, Arrays.asList("d4", "d5", "c4", "dxc4"));
+        builder.addGame(5, Arrays.asList("e4", "d5", "exd5"));
+
+        Path path = Files.createTempFile("index", ".bin");
+
+        try {
+            builder.write(path);
+
+            try (GameIndex index = opener.open(path)) {
+                ChessBoard board = new ChessBoard();
+                board.setupStandardPosition();
+                assertThat(index.findByPosition(board)).containsExactly(5, 20, 1000, 300000);
+                assertThat(index.countByPosition(board.getHash())).isEqualTo(4);
+
+                board.makeMove(board.findLegalMove(CasePosition.E2, CasePosition.E4, null));
+                board.makeMove(board.findLegalMove(CasePosition.E7, CasePosition.E5, null));
+                board.makeMove(board.findLegalMove(CasePosition.G1, CasePosition.F3, null));
+                board.makeMove(board.findLegalMove(CasePosition.B8, CasePosition.C6, null));
+                assertThat(index.findByPosition(board)).containsExactly(20, 1000); //Transposition
+
+                assertThat(index.findByPosition(42L)).isEmpty();
+                assertThat(index.findByMaterial(38, 39)).containsExactly(300000);
+                assertThat(index.findByMaterial(39, 38)).containsExactly(5);
+                assertThat(GameIndex.intersect(index.findByMaterial(39, 39), index.findByPosition(board))).containsExactly(20, 1000);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private interface IndexOpener {
+        GameIndex open(Path path) throws IOException;
+    }
+}
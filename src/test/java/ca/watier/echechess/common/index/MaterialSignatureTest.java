@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.index;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MaterialSignatureTest {
+
+    @Test
+    public void signature() {
+        ChessBoard board = new ChessBoard();
+        board.setupStandardPosition();
+        long signature = MaterialSignature.of(board);
+
+        assertThat(MaterialSignature.getCount(signature, Pieces.W_PAWN)).isEqualTo(8);
+        assertThat(MaterialSignature.getCount(signature, Pieces.B_QUEEN)).isEqualTo(1);
+        assertThat(MaterialSignature.getPoints(signature, Side.WHITE)).isEqualTo(board.getWhiteMaterial());
+        assertThat(signature & MaterialSignature.GUARD_BITS).isEqualTo(0L);
+
+        FenUtils.parse("8/1P6/8/8/8/8/k6K/8 w - - 0 1", board);
+        signature = MaterialSignature.of(board);
+        board.makeMove(board.findLegalMove(CasePosition.B7, CasePosition.B8, Pieces.W_KNIGHT));
+        assertThat(MaterialSignature.afterMove(signature, board)).isEqualTo(MaterialSignature.of(board));
+    }
+
+    @Test
+    public void filter() {
+        GameIndexBuilder builder = new GameIndexBuilder();
+        builder.addGame(0, Arrays.asList("e4", "d5", "exd5", "Qxd5", "Nc3"));
+        long[] first = builder.getLastSignatures();
+        builder.addGame(1, Arrays.asList("d4", "d5"));
+        long[] second = builder.getLastSignatures();
+
+        assertThat(first).hasSize(6);
+
+        MaterialFilter noWhitePawnLost = MaterialFilter.any().withCount(Pieces.W_PAWN, 8);
+        assertThat(noWhitePawnLost.count(first)).isEqualTo(4);
+        assertThat(noWhitePawnLost.firstMatch(first, 0, first.length)).isEqualTo(0);
+
+        MaterialFilter pawnsDown = MaterialFilter.any().withRange(Pieces.W_PAWN, 0, 7).withRange(Pieces.B_PAWN, 0, 7);
+        assertThat(pawnsDown.count(first)).isEqualTo(2);
+        assertThat(pawnsDown.firstMatch(first, 0, first.length)).isEqualTo(4);
+        assertThat(pawnsDown.anyMatch(second)).isFalse();
+
+        int[] result = new int[2];
+        assertThat(pawnsDown.filterGames(new long[][]{first, second}, result)).isEqualTo(1);
+        assertThat(result[0]).isEqualTo(0);
+
+        assertThat(MaterialFilter.any().count(second)).isEqualTo(3);
+        assertThat(MaterialFilter.exact(second[0]).count(first)).isEqualTo(3);
+    }
+}
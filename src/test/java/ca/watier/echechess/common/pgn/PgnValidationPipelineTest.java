@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.pojos.PgnValidationResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PgnValidationPipelineTest {
+    private static final List<String> VALID_GAME = Arrays.asList(
+            "e4", "e5", "Nf3", "Nc6", "Bb5", "a6", "Ba4", "Nf6", "O-O", "Be7", "Re1", "b5", "Bb3", "d6", "c3", "O-O",
+            "h3", "Nb8", "d4", "Nbd7", "c4", "c6", "cxb5", "axb5", "Nc3", "Bb7", "Bg5", "b4", "Nb1", "h6", "Bh4", "c5",
+            "dxe5", "Nxe4", "Bxe7", "Qxe7", "exd6", "Qf6", "Nbd2", "Nxd6", "Nc4", "Nxc4", "Bxc4", "Nb6", "Ne5", "Rae8",
+            "Bxf7+", "Rxf7", "Nxf7", "Rxe1+", "Qxe1", "Kxf7", "Qe3", "Qg5", "Qxg5", "hxg5", "b3", "Ke6", "a3", "Kd6",
+            "axb4", "cxb4", "Ra5", "Nd5", "f3", "Bc8", "Kf2", "Bf5", "Ra7", "g6", "Ra6+", "Kc5", "Ke1", "Nf4", "g3",
+            "Nxh3", "Kd2", "Kb5", "Rd6", "Kc5", "Ra6", "Nf2", "g4", "Bd3", "Re6");
+    private static final List<String> PROMOTION_GAME = Arrays.asList(
+            "e4", "d5", "exd5", "c6", "dxc6", "Nf6", "cxb7", "Nbd7", "bxa8=Q", "e5", "Qxa7", "Bb4", "c3", "O-O", "cxb4");
+
+    @Test
+    public void validateAllTest() throws Exception {
+        List<List<String>> games = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            games.add(VALID_GAME);
+            games.add(PROMOTION_GAME);
+            games.add(Arrays.asList("e4", "e5", "Ke3"));
+            games.add(Arrays.asList("Nf3", "d5", "Nc3", "e5", "Ne4", "f5", "Ng5", "h6"));
+        }
+
+        try (PgnValidationPipeline pipeline = new PgnValidationPipeline(4)) {
+            List<PgnValidationResult> results = pipeline.validateAll(games);
+
+            assertThat(results).hasSize(200);
+            assertThat(results.get(0).isValid()).isTrue();
+            assertThat(results.get(0).getPlyCount()).isEqualTo(VALID_GAME.size());
+            assertThat(results.get(1).isValid()).isTrue();
+
+            PgnValidationResult illegal = results.get(2);
+            assertThat(illegal.getGameId()).isEqualTo(2L);
+            assertThat(illegal.getIllegalPly()).isEqualTo(2);
+            assertThat(illegal.getIllegalMove()).isEqualTo("Ke3");
+
+            PgnValidationResult ambiguous = results.get(3);
+            assertThat(ambiguous.getIllegalPly()).isEqualTo(6);
+            assertThat(ambiguous.getReason()).isEqualTo("Ambiguous move Ng5");
+
+            assertThat(pipeline.getValidatedGames()).isEqualTo(200L);
+            assertThat(pipeline.getInvalidGames()).isEqualTo(100L);
+            assertThat(pipeline.getErrorRate()).isEqualTo(0.5);
+            assertThat(pipeline.getValidatedPlies()).isEqualTo(50L * (VALID_GAME.size() + PROMOTION_GAME.size() + 2 + 6));
+        }
+    }
+
+    @Test
+    public void unparsableMoveTest() {
+        try (PgnValidationPipeline pipeline = new PgnValidationPipeline(1)) {
+            PgnValidationResult result = pipeline.validate(7, Arrays.asList("e4", "z9", "Nf3"));
+
+            assertThat(result.isValid()).isFalse();
+            assertThat(result.getIllegalPly()).isEqualTo(1);
+        }
+    }
+}
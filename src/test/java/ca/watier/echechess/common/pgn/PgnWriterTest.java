@@ -0,0 +1,94 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.pojos.MoveHistory;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ca.watier.echechess.common.enums.CasePosition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PgnWriterTest {
+
+    @Test
+    public void writeGameTest() throws Exception {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Scholar's \"mate\"");
+        tags.put("White", "white");
+
+        List<MoveHistory> moves = Arrays.asList(
+                new MoveHistory(E2, E4, Side.WHITE), new MoveHistory(E7, E5, Side.BLACK),
+                new MoveHistory(F1, C4, Side.WHITE), new MoveHistory(B8, C6, Side.BLACK),
+                new MoveHistory(D1, H5, Side.WHITE), new MoveHistory(G8, F6, Side.BLACK),
+                new MoveHistory(H5, F7, Side.WHITE)
+        );
+
+        StringWriter stringWriter = new StringWriter();
+        try (PgnWriter pgnWriter = new PgnWriter(stringWriter)) {
+            pgnWriter.writeGame(tags, moves, PgnEndGameToken.WHITE_WIN);
+            pgnWriter.writeGame(new LinkedHashMap<>(), moves.subList(0, 2), PgnEndGameToken.UNKNOWN);
+            assertThat(pgnWriter.getGameCount()).isEqualTo(2L);
+        }
+
+        assertThat(stringWriter.toString()).isEqualTo(
+                "[Event \"Scholar's \\\"mate\\\"\"]\n" +
+                        "[White \"white\"]\n" +
+                        "[Result \"1-0\"]\n" +
+                        "\n" +
+                        "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n" +
+                        "\n" +
+                        "[Result \"*\"]\n" +
+                        "\n" +
+                        "1. e4 e5 *\n");
+    }
+
+    @Test
+    public void lineWrappingAndChannelTest() throws Exception {
+        List<MoveHistory> moves = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            moves.add(new MoveHistory(G1, F3, Side.WHITE));
+            moves.add(new MoveHistory(G8, F6, Side.BLACK));
+            moves.add(new MoveHistory(F3, G1, Side.WHITE));
+            moves.add(new MoveHistory(F6, G8, Side.BLACK));
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (PgnWriter pgnWriter = new PgnWriter(null, Channels.newChannel(outputStream), 100, 40)) {
+            pgnWriter.writeGame(new LinkedHashMap<>(), moves, PgnEndGameToken.DRAWN);
+        }
+
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[2]).startsWith("1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1");
+        assertThat(lines[lines.length - 1]).endsWith("Ng8 1/2-1/2");
+
+        for (String line : lines) {
+            assertThat(line.length()).isLessThanOrEqualTo(40);
+        }
+    }
+}
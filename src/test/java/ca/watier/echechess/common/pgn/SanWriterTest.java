@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.pgn;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static ca.watier.echechess.common.enums.CasePosition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SanWriterTest {
+    private ChessBoard board;
+    private SanWriter sanWriter;
+
+    @Before
+    public void setUp() {
+        board = new ChessBoard();
+        sanWriter = new SanWriter();
+    }
+
+    @Test
+    public void simpleMovesTest() {
+        board.setupStandardPosition();
+
+        assertThat(san(E2, E4, MoveType.PAWN_HOP)).isEqualTo("e4");
+        assertThat(san(G1, F3, MoveType.NORMAL_MOVE)).isEqualTo("Nf3");
+
+        FenUtils.parse("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", board);
+        long hash = board.getHash();
+        assertThat(san(E4, D5, MoveType.CAPTURE)).isEqualTo("exd5");
+        assertThat(board.getHash()).isEqualTo(hash);
+    }
+
+    @Test
+    public void disambiguationTest() {
+        FenUtils.parse("4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1", board);
+        assertThat(san(B1, D2, MoveType.NORMAL_MOVE)).isEqualTo("Nbd2");
+
+        FenUtils.parse("4k3/8/R7/8/8/8/8/R3K3 w - - 0 1", board);
+        assertThat(san(A1, A3, MoveType.NORMAL_MOVE)).isEqualTo("R1a3");
+
+        FenUtils.parse("8/2k5/8/8/4Q2Q/8/K7/7Q w - - 0 1", board);
+        assertThat(san(H4, E1, MoveType.NORMAL_MOVE)).isEqualTo("Qh4e1");
+
+        //The other knight is pinned, no disambiguation
+        FenUtils.parse("4k3/4r3/8/8/8/2N5/4N3/4K3 w - - 0 1", board);
+        assertThat(san(C3, D5, MoveType.NORMAL_MOVE)).isEqualTo("Nd5");
+    }
+
+    @Test
+    public void specialMovesTest() {
+        FenUtils.parse("r3k3/1P6/8/8/8/8/8/4K2R w Kq - 0 1", board);
+        assertThat(san(E1, G1, MoveType.CASTLING)).isEqualTo("O-O");
+        assertThat(sanWriter.toSan(board, BoardMoves.ofPromotion(B7.ordinal(), A8.ordinal(), Pieces.W_QUEEN))).isEqualTo("bxa8=Q+");
+
+        FenUtils.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2", board);
+        assertThat(san(E5, D6, MoveType.EN_PASSANT)).isEqualTo("exd6");
+
+        FenUtils.parse("rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq - 0 2", board);
+        assertThat(san(D8, H4, MoveType.NORMAL_MOVE)).isEqualTo("Qh4#");
+    }
+
+    private String san(CasePosition from, CasePosition to, MoveType moveType) {
+        return sanWriter.toSan(board, BoardMoves.of(from, to, moveType));
+    }
+}
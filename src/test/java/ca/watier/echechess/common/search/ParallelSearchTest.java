@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.search;
+
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.SearchResult;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelSearchTest {
+    private static final String MIDDLE_GAME = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+
+    @Test
+    public void singleThreadIsDeterministic() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(MIDDLE_GAME, board);
+
+        try (ParallelSearch first = new ParallelSearch(1, 4); ParallelSearch second = new ParallelSearch(1, 4)) {
+            SearchResult firstResult = first.search(board, 4, 0);
+            SearchResult secondResult = second.search(board, 4, 0);
+
+            assertThat(firstResult.getBestMove()).isEqualTo(secondResult.getBestMove());
+            assertThat(firstResult.getScore()).isEqualTo(secondResult.getScore());
+            assertThat(firstResult.getNodes()).isEqualTo(secondResult.getNodes());
+        }
+    }
+
+    @Test
+    public void helpersShareTheTable() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(MIDDLE_GAME, board);
+        long hash = board.getHash();
+
+        try (ParallelSearch search = new ParallelSearch(4, 4)) {
+            SearchResult result = search.search(board, 5, 0);
+
+            assertThat(search.getThreadCount()).isEqualTo(4);
+            assertThat(result.getDepth()).isEqualTo(5);
+            assertThat(board.isLegalMove(result.getBestMove())).isTrue();
+            assertThat(board.getHash()).isEqualTo(hash);
+            assertThat(search.getTable().probe(hash)).isNotEqualTo(TranspositionTable.NO_ENTRY);
+
+            FenUtils.parse("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1", board);
+            assertThat(search.search(board, 6, 2000).getScore()).isEqualTo(SearchEngine.MATE - 1);
+        }
+    }
+
+    @Test
+    public void singleThreadIsDeterministicAfterClear() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(MIDDLE_GAME, board);
+
+        try (ParallelSearch search = new ParallelSearch(1, 4)) {
+            SearchResult firstResult = search.search(board, 5, 0);
+            search.clear();
+            SearchResult secondResult = search.search(board, 5, 0);
+
+            assertThat(firstResult.getBestMove()).isEqualTo(secondResult.getBestMove());
+            assertThat(firstResult.getNodes()).isEqualTo(secondResult.getNodes());
+        }
+    }
+
+    @Test
+    public void countsTheNodesOfAllThreads() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(MIDDLE_GAME, board);
+
+        try (ParallelSearch search = new ParallelSearch(4, 16)) {
+            SearchResult result = search.search(board, SearchEngine.MAX_PLY, 200);
+
+            assertThat(board.isLegalMove(result.getBestMove())).isTrue();
+            assertThat(result.getNodes()).isPositive().isEqualTo(search.getThreadNodes());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.search;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.SearchResult;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchEngineTest {
+
+    private static ChessBoard getBoard(String fen) {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(fen, board);
+        return board;
+    }
+
+    @Test
+    public void mateInOne() {
+        ChessBoard board = getBoard("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+        SearchResult result = new SearchEngine().search(board, 4, 0);
+
+        assertThat(result.getScore()).isEqualTo(SearchEngine.MATE - 1);
+        board.makeMove(result.getBestMove());
+        assertThat(board.hasLegalMove()).isFalse();
+        assertThat(board.isKingCheck(board.getSideToMove())).isTrue();
+    }
+
+    @Test
+    public void backRankMate() {
+        ChessBoard board = getBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        assertThat(new SearchEngine().search(board, 3, 0).getScore()).isEqualTo(SearchEngine.MATE - 1);
+
+        board = getBoard("r1b1k2r/ppppnppp/2n2q2/2b5/3NP3/2P1B3/PP3PPP/RN1QKB1R w KQkq - 0 1");
+        SearchResult result = new SearchEngine().search(board, 4, 0);
+        assertThat(result.getDepth()).isEqualTo(4);
+        assertThat(result.getPrincipalVariation()).isNotEmpty();
+    }
+
+    @Test
+    public void winMaterial() {
+        ChessBoard board = getBoard("4k3/8/8/3q4/8/8/3R4/3K4 w - - 0 1");
+        long hash = board.getHash();
+        SearchResult result = new SearchEngine().search(board, 4, 0);
+
+        assertThat(result.getBestMove()).isEqualTo(board.findLegalMove(CasePosition.D2, CasePosition.D5, null));
+        assertThat(result.getScore()).isGreaterThan(400);
+        assertThat(board.getHash()).isEqualTo(hash);
+        assertThat(board.getPly()).isEqualTo(0);
+    }
+
+    @Test
+    public void noLegalMove() {
+        SearchResult result = new SearchEngine().search(getBoard("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1"), 4, 0);
+        assertThat(result.getBestMove()).isEqualTo(BoardMoves.NO_MOVE);
+        assertThat(result.getScore()).isEqualTo(0); //Stalemate
+    }
+
+    @Test
+    public void timeBudget() {
+        ChessBoard board = new ChessBoard();
+        board.setupStandardPosition();
+
+        long start = System.nanoTime();
+        SearchResult result = new SearchEngine().search(board, SearchEngine.MAX_PLY, 300);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsed).isLessThan(2000L);
+        assertThat(result.getDepth()).isGreaterThanOrEqualTo(1);
+        assertThat(board.isLegalMove(result.getBestMove())).isTrue();
+        assertThat(result.getNodesPerSecond()).isPositive();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.sessions;
+
+import ca.watier.echechess.common.utils.CacheConstants;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class OffHeapPlayerStoreTest {
+
+    @Test
+    public void putGetAndView() {
+        OffHeapPlayerStore store = new OffHeapPlayerStore(16, CacheConstants.CACHE_UI_SESSION_EXPIRY);
+        UUID created = UUID.randomUUID();
+        UUID joined = UUID.randomUUID();
+        UUID uiSession = UUID.randomUUID();
+
+        Player player = new Player(64);
+        player.addCreatedGame(created);
+        player.addJoinedGame(joined);
+        player.addJoinedGame(created);
+        player.addUiSession(uiSession);
+        store.put("session", player);
+
+        Player copy = store.get("session");
+        assertThat(copy.getCreatedGameList()).containsExactly(created);
+        assertThat(copy.getJoinedGameList()).containsExactly(joined, created);
+        assertThat(copy.getUiSessionList()).containsExactly(uiSession);
+        assertThat(copy.getMaxEntries()).isEqualTo(64);
+        assertThat(store.get("other")).isNull();
+
+        PlayerView view = new PlayerView();
+        assertThat(store.view("session", view)).isTrue();
+        assertThat(view.getJoinedGameCount()).isEqualTo(2);
+        assertThat(view.getMaxEntries()).isEqualTo(64);
+        assertThat(view.getJoinedGame(1)).isEqualTo(created);
+        assertThat(view.hasCreated(created)).isTrue();
+        assertThat(view.hasCreated(joined)).isFalse();
+        assertThat(view.hasUiSession(uiSession)).isTrue();
+
+        assertThat(store.remove("session")).isTrue();
+        assertThat(store.view("session", view)).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void timeToIdle() {
+        AtomicLong now = new AtomicLong(1000);
+        OffHeapPlayerStore store = new OffHeapPlayerStore(4, 256,
+                Expirations.timeToIdleExpiration(new Duration(5, TimeUnit.MINUTES)), now::get);
+
+        store.put("a", new Player());
+        store.put("b", new Player());
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(4));
+        assertThat(store.get("a")).isNotNull(); //Access, "a" expires 5 minutes later
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        assertThat(store.contains("a")).isTrue();
+        assertThat(store.contains("b")).isFalse();
+        assertThat(store.evictExpired()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(5));
+        assertThat(store.get("a")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void fullStore() {
+        AtomicLong now = new AtomicLong(0);
+        OffHeapPlayerStore store = new OffHeapPlayerStore(100, 256, CacheConstants.CACHE_UI_SESSION_EXPIRY, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            store.put("session-" + i, new Player());
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            assertThat(store.remove("session-" + i)).isTrue();
+        }
+
+        for (int i = 1; i < 100; i += 2) {
+            assertThat(store.contains("session-" + i)).isTrue();
+        }
+
+        for (int i = 100; i < 150; i++) {
+            store.put("session-" + i, new Player());
+        }
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> store.put("full", new Player()));
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        store.put("full", new Player()); //The expired sessions are evicted
+        assertThat(store.size()).isEqualTo(1);
+
+        Player tooBig = new Player();
+        for (int i = 0; i <= store.getMaxUuids(); i++) {
+            tooBig.addCreatedGame(UUID.randomUUID());
+        }
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> store.put("big", tooBig));
+    }
+
+    @Test
+    public void slotSizeOfTheRetention() {
+        OffHeapPlayerStore store = new OffHeapPlayerStore(4, OffHeapPlayerStore.getSlotSize(200), CacheConstants.CACHE_UI_SESSION_EXPIRY);
+        Player player = new Player(200);
+
+        for (int i = 0; i < 250; i++) {
+            player.addCreatedGame(UUID.randomUUID());
+            player.addJoinedGame(UUID.randomUUID());
+            player.addUiSession(UUID.randomUUID());
+        }
+
+        store.put("session", player);
+        assertThat(store.getMaxUuids()).isEqualTo(600);
+        assertThat(store.get("session").getJoinedGameList()).isEqualTo(player.getJoinedGameList());
+
+        //The unbounded players don't fit in the default slots past their capacity
+        OffHeapPlayerStore defaultStore = new OffHeapPlayerStore(4, CacheConstants.CACHE_UI_SESSION_EXPIRY);
+        Player unbounded = new Player();
+        for (int i = 0; i < defaultStore.getMaxUuids(); i++) {
+            unbounded.addJoinedGame(UUID.randomUUID());
+        }
+
+        assertThat(defaultStore.getMaxUuids()).isEqualTo(122);
+        defaultStore.put("session", unbounded);
+
+        unbounded.addJoinedGame(UUID.randomUUID());
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> defaultStore.put("session", unbounded));
+    }
+}
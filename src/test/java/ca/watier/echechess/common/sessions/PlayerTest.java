@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.sessions;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlayerTest {
+
+    @Test
+    public void membership() {
+        Player player = new Player();
+        UUID game = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        player.addCreatedGame(game);
+        player.addJoinedGame(game);
+        player.addJoinedGame(game);
+        player.addUiSession(other);
+
+        assertThat(player.hasCreated(game)).isTrue();
+        assertThat(player.hasJoined(game)).isTrue();
+        assertThat(player.hasJoined(other)).isFalse();
+        assertThat(player.hasUiSession(other)).isTrue();
+        assertThat(player.getJoinedGameList()).containsExactly(game);
+    }
+
+    @Test
+    public void retention() {
+        Player player = new Player(3);
+        UUID[] games = new UUID[5];
+
+        for (int i = 0; i < games.length; i++) {
+            games[i] = UUID.randomUUID();
+            player.addCreatedGame(games[i]);
+        }
+
+        assertThat(player.getCreatedGameList()).containsExactly(games[2], games[3], games[4]);
+        assertThat(player.hasCreated(games[1])).isFalse();
+        assertThat(player.hasCreated(games[4])).isTrue();
+    }
+}
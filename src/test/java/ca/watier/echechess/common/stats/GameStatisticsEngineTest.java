@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.stats;
+
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.PgnEndGameToken;
+import ca.watier.echechess.common.interfaces.GameStatistic;
+import ca.watier.echechess.common.pojos.ArchivedGame;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameStatisticsEngineTest {
+
+    @Test
+    public void compute() {
+        List<ArchivedGame> games = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            games.add(new ArchivedGame(3 * i, Arrays.asList("e4", "e5", "Qh5", "Nc6", "Bc4", "Nf6", "Qxf7#"), PgnEndGameToken.WHITE_WIN));
+            games.add(new ArchivedGame(3 * i + 1, Arrays.asList("d4", "d5", "c4", "dxc4", "e4", "O-O"), PgnEndGameToken.BLACK_WIN));
+            games.add(new ArchivedGame(3 * i + 2, Arrays.asList("e4", "e5", "Qh5", "Nc6", "Qxf7+"), PgnEndGameToken.DRAWN));
+        }
+
+        List<GameStatistic<?>> prototypes = Arrays.asList(new OpeningStatistic(), new GameLengthStatistic(), new MoveTypeStatistic(), new KingStatusStatistic());
+
+        try (GameStatisticsEngine engine = new GameStatisticsEngine(4, 8)) {
+            assertStatistics(engine.compute(games, prototypes));
+            assertStatistics(engine.compute(games.iterator(), prototypes, 7)); //Streamed, in chunks
+        }
+
+        assertThat(((GameLengthStatistic) prototypes.get(1)).getGameCount()).isEqualTo(0);
+    }
+
+    private static void assertStatistics(List<GameStatistic<?>> statistics) {
+        OpeningStatistic openings = (OpeningStatistic) statistics.get(0);
+        assertThat(openings.getGameCount("e4 e5 Qh5 Nc6")).isEqualTo(200);
+        assertThat(openings.getWhiteScore("e4 e5 Qh5 Nc6")).isEqualTo(0.75d);
+        assertThat(openings.getCount("d4 d5 c4 dxc4", PgnEndGameToken.BLACK_WIN)).isEqualTo(100);
+
+        GameLengthStatistic length = (GameLengthStatistic) statistics.get(1);
+        assertThat(length.getGameCount()).isEqualTo(300);
+        assertThat(length.getMinPlies()).isEqualTo(5);
+        assertThat(length.getMaxPlies()).isEqualTo(7);
+        assertThat(length.getTotalPlies()).isEqualTo(1700); //The illegal castling stops the second game at 5 plies
+
+        MoveTypeStatistic moveTypes = (MoveTypeStatistic) statistics.get(2);
+        assertThat(moveTypes.getCount(MoveType.CAPTURE)).isEqualTo(300);
+        assertThat(moveTypes.getCount(MoveType.PAWN_HOP)).isEqualTo(800);
+
+        KingStatusStatistic kingStatus = (KingStatusStatistic) statistics.get(3);
+        assertThat(kingStatus.getCount(KingStatus.CHECKMATE)).isEqualTo(100);
+        assertThat(kingStatus.getCount(KingStatus.CHECK)).isEqualTo(100);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.tablebase;
+
+import ca.watier.echechess.common.enums.KingStatus;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.TablebaseWdl;
+import ca.watier.echechess.common.game.ChessBoard;
+import ca.watier.echechess.common.pojos.TablebaseResult;
+import ca.watier.echechess.common.utils.FenUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class TablebaseGeneratorTest {
+
+    private static TablebaseResult probe(LocalTablebase tablebase, String fen) {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(fen, board);
+        return tablebase.probe(board);
+    }
+
+    @Test
+    public void kingAndPawn() {
+        TablebaseGenerator generator = new TablebaseGenerator();
+        generator.generate(Pieces.W_KING, Pieces.W_PAWN, Pieces.B_KING);
+        LocalTablebase tablebase = generator.toTablebase();
+
+        assertThat(tablebase.getTableCount()).isEqualTo(5);
+        assertThat(tablebase.getMaxPieces()).isEqualTo(3);
+
+        assertThat(probe(tablebase, "4k3/8/4K3/4P3/8/8/8/8 w - - 0 1").getWdl()).isEqualTo(TablebaseWdl.WIN);
+        assertThat(probe(tablebase, "4k3/8/4K3/4P3/8/8/8/8 b - - 0 1").getWdl()).isEqualTo(TablebaseWdl.LOSS);
+        assertThat(probe(tablebase, "8/8/8/8/8/8/3kP3/7K b - - 0 1").getWdl()).isEqualTo(TablebaseWdl.DRAW); //Kxe2
+        assertThat(probe(tablebase, "k7/P7/K7/8/8/8/8/8 w - - 0 1").getWdl()).isEqualTo(TablebaseWdl.DRAW); //Stalemate
+        assertThat(probe(tablebase, "4k3/8/4K3/4P3/8/8/8/8 w - - 0 1").getDtz()).isEqualTo(3); //The pawn is blocked by the king, e6 is played after a king move
+        assertThat(probe(tablebase, "8/8/8/8/8/8/8/k1K5 w - - 0 1")).isEqualTo(TablebaseResult.DRAW);
+        assertThat(probe(tablebase, "8/8/8/8/8/8/8/kNK5 w - - 0 1").getWdl()).isEqualTo(TablebaseWdl.DRAW);
+        assertThat(probe(tablebase, "8/8/8/8/8/8/8/kRRK4 w - - 0 1")).isNull();
+    }
+
+    @Test
+    public void queen() throws Exception {
+        TablebaseGenerator generator = new TablebaseGenerator();
+        TablebaseTable table = generator.generate(Pieces.W_KING, Pieces.W_QUEEN, Pieces.B_KING);
+        Path directory = Files.createTempDirectory("tablebase");
+
+        try {
+            Path file = table.write(directory);
+            assertThat(file.getFileName().toString()).isEqualTo("KQvK.etb");
+
+            LocalTablebase tablebase = LocalTablebase.open(directory);
+            TablebaseResult mateInOne = probe(tablebase, "k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+            assertThat(mateInOne.getWdl()).isEqualTo(TablebaseWdl.WIN);
+            assertThat(mateInOne.getDtz()).isEqualTo(1);
+
+            TablebaseResult mated = probe(tablebase, "k5Q1/8/1K6/8/8/8/8/8 b - - 0 1");
+            assertThat(mated.getWdl()).isEqualTo(TablebaseWdl.LOSS);
+            assertThat(mated.getDtz()).isEqualTo(0);
+
+            assertThat(probe(tablebase, "8/8/8/8/8/8/8/kQ2K3 b - - 0 1").getWdl()).isEqualTo(TablebaseWdl.DRAW); //Kxb1
+            assertThat(probe(tablebase, "8/8/8/3k4/8/8/8/Q3K3 w - - 0 1").getDtz()).isBetween(2, 20);
+
+            ChessBoard board = new ChessBoard();
+            FenUtils.parse("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1", board);
+            int move = tablebase.getBestMove(board);
+            board.makeMove(move);
+            assertThat(board.getKingStatus()).isEqualTo(KingStatus.CHECKMATE);
+        } finally {
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void corruptHeader() throws Exception {
+        TablebaseTable table = new TablebaseGenerator().generate(Pieces.W_KING, Pieces.W_QUEEN, Pieces.B_KING);
+        Path directory = Files.createTempDirectory("tablebase");
+
+        try {
+            Path file = table.write(directory);
+            assertThat(TablebaseTable.read(file).getMaterial()).containsExactly(Pieces.W_KING, Pieces.W_QUEEN, Pieces.B_KING);
+
+            assertCorrupt(file, 4, ByteBuffer.allocate(4).putInt(-1));
+            assertCorrupt(file, 4, ByteBuffer.allocate(4).putInt(100));
+            assertCorrupt(file, 9, ByteBuffer.allocate(1).put((byte) -1));
+            assertCorrupt(file, 9, ByteBuffer.allocate(1).put((byte) Pieces.values().length));
+        } finally {
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void assertCorrupt(Path file, int position, ByteBuffer value) throws Exception {
+        Path corrupt = file.resolveSibling("corrupt.etb");
+        Files.copy(file, corrupt, StandardCopyOption.REPLACE_EXISTING);
+
+        try (FileChannel channel = FileChannel.open(corrupt, StandardOpenOption.WRITE)) {
+            value.flip();
+            channel.write(value, position);
+        }
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> TablebaseTable.read(corrupt));
+    }
+
+    @Test
+    public void queenAgainstRook() {
+        TablebaseGenerator generator = new TablebaseGenerator();
+        TablebaseTable table = generator.generate(Pieces.W_KING, Pieces.W_QUEEN, Pieces.B_KING, Pieces.B_ROOK);
+        LocalTablebase tablebase = generator.toTablebase();
+
+        assertThat(table.getName()).isEqualTo("KQvKR");
+        assertThat(tablebase.getTableCount()).isEqualTo(3); //KQvK and KvKR
+        assertThat(tablebase.getMaxPieces()).isEqualTo(4);
+
+        TablebaseResult freeRook = probe(tablebase, "8/8/8/3k4/8/8/8/KQ5r w - - 0 1"); //Qxh1
+        assertThat(freeRook.getWdl()).isEqualTo(TablebaseWdl.WIN);
+        assertThat(freeRook.getDtz()).isEqualTo(1);
+
+        TablebaseResult mirrored = probe(tablebase, "8/8/8/4k3/8/8/8/r5QK w - - 0 1");
+        assertThat(mirrored.getWdl()).isEqualTo(TablebaseWdl.WIN);
+        assertThat(mirrored.getDtz()).isEqualTo(1);
+
+        assertThat(probe(tablebase, "1k6/8/8/8/3K3Q/8/8/r7 b - - 0 1").getWdl()).isEqualTo(TablebaseWdl.WIN); //Ra4+ and Rxh4
+        assertThat(probe(tablebase, "4r3/8/8/4Q3/4K3/8/8/k7 b - - 0 1").getWdl()).isEqualTo(TablebaseWdl.DRAW); //Rxe5 Kxe5
+        assertThat(probe(tablebase, "4k3/8/8/8/8/8/3r4/4K2Q w - - 0 1").getWdl()).isEqualTo(TablebaseWdl.WIN); //Kxd2
+    }
+}
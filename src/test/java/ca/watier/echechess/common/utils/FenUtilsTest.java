@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.enums.CasePosition;
+import ca.watier.echechess.common.enums.MoveType;
+import ca.watier.echechess.common.enums.Pieces;
+import ca.watier.echechess.common.enums.Side;
+import ca.watier.echechess.common.game.BoardMoves;
+import ca.watier.echechess.common.game.ChessBoard;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class FenUtilsTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void standardPositionTest() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse(FenUtils.STANDARD_POSITION, board);
+
+        ChessBoard standardBoard = new ChessBoard();
+        standardBoard.setupStandardPosition();
+
+        assertThat(board.getHash()).isEqualTo(standardBoard.getHash());
+        assertThat(FenUtils.toFen(standardBoard)).isEqualTo(FenUtils.STANDARD_POSITION);
+    }
+
+    @Test
+    public void roundTripTest() {
+        ChessBoard board = new ChessBoard();
+        StringBuilder builder = new StringBuilder();
+
+        for (String fen : new String[]{KIWIPETE, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 12 40", "4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 2"}) {
+            FenUtils.parse(fen, board);
+            builder.setLength(0);
+            assertThat(FenUtils.write(board, builder).toString()).isEqualTo(fen);
+        }
+
+        assertThat(board.getEnPassantSquare()).isEqualTo(CasePosition.E6.ordinal());
+        assertThat(board.isLegalMove(BoardMoves.of(CasePosition.D5, CasePosition.E6, MoveType.EN_PASSANT))).isTrue();
+    }
+
+    @Test
+    public void parseWithoutClocksAndUselessEnPassantTest() {
+        ChessBoard board = new ChessBoard();
+        FenUtils.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3", board);
+
+        assertThat(board.getSideToMove()).isEqualTo(Side.BLACK);
+        assertThat(board.getPiece(CasePosition.E4)).isEqualTo(Pieces.W_PAWN);
+        assertThat(board.getEnPassantSquare()).isEqualTo(ChessBoard.NO_SQUARE);
+        assertThat(board.getFullMoveNumber()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseByteBufferTest() {
+        byte[] bytes = ("  " + KIWIPETE + "\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ChessBoard board = new ChessBoard();
+
+        FenUtils.parse(buffer, board);
+
+        assertThat(FenUtils.toFen(board)).isEqualTo(KIWIPETE);
+        assertThat(buffer.position()).isEqualTo(bytes.length - 1);
+    }
+
+    @Test
+    public void invalidFenTest() {
+        ChessBoard board = new ChessBoard();
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e3 0 1", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("rnbqkbnr/pppp1ppp/8/4p3/8/8/PPPPPPPP/RNBQKBNR b KQkq e6 0 1", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("P3k3/8/8/8/8/8/8/4K3 w - - 0 1", board));
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> FenUtils.parse("4k3/8/8/8/8/8/8/p3K3 b - - 0 1", board));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyPairPoolTest {
+    private static final String CURVE = "secp256r1";
+
+    private static void awaitAvailable(KeyPairPool pool, int expected) throws InterruptedException {
+        for (int i = 0; i < 1000 && pool.getAvailableEc(CURVE) < expected; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void prefillAndRefill() throws Exception {
+        try (KeyPairPool pool = new KeyPairPool(4, 1, 1)) {
+            pool.prefillEc(CURVE);
+            awaitAvailable(pool, 4);
+            assertThat(pool.getAvailableEc(CURVE)).isEqualTo(4);
+
+            KeyPair first = pool.takeEcKeyPair(CURVE);
+            KeyPair second = pool.takeEcKeyPair(CURVE);
+            assertThat(first).isNotSameAs(second);
+            assertThat(first.getPublic()).isNotEqualTo(second.getPublic());
+            assertThat(pool.getHits()).isEqualTo(2);
+            assertThat(pool.getMisses()).isZero();
+
+            pool.takeEcKeyPair(CURVE); //1 remaining, the low water mark
+            awaitAvailable(pool, 4);
+            assertThat(pool.getAvailableEc(CURVE)).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void emptyPoolGeneratesOnTheCallingThread() {
+        try (KeyPairPool pool = new KeyPairPool(2, 0, 1)) {
+            KeyPair keyPair = pool.takeRsaKeyPair((short) 1024);
+
+            assertThat(((RSAPublicKey) keyPair.getPublic()).getModulus().bitLength()).isEqualTo(1024);
+            assertThat(pool.getMisses()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.pojos.KeystoreBatchResult;
+import ca.watier.echechess.common.utils.KeystoreGenerator.KeystorePasswordHolder;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.KeyStore;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeystoreBatchTest {
+
+    private static KeystorePasswordHolder newHolder(int index) {
+        try {
+            KeyStore keyStore = KeyStore.getInstance("JKS");
+            keyStore.load(null, null);
+            return new KeystorePasswordHolder("password-" + index, keyStore);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void parallelBatch() throws Exception {
+        Path directory = Files.createTempDirectory("keystores");
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger lastProgress = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            KeystoreBatchResult result = KeystoreGenerator.createKeystores(32, () -> newHolder(created.getAndIncrement()), directory, (completed, total) -> {
+                assertThat(total).isEqualTo(32);
+                lastProgress.accumulateAndGet(completed, Math::max);
+            }, pool);
+
+            assertThat(result.getKeystores()).hasSize(32);
+            assertThat(result.getFiles()).hasSize(32);
+            assertThat(lastProgress.get()).isEqualTo(32);
+            assertThat(result.getKeystoresPerSecond()).isPositive();
+
+            Path file = result.getFiles().get(5);
+            assertThat(file.getFileName().toString()).isEqualTo("keystore-5.p12");
+
+            KeyStore pkcs12 = KeyStore.getInstance("PKCS12");
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                pkcs12.load(inputStream, result.getKeystores().get(5).getPassword().toCharArray());
+            }
+            assertThat(pkcs12.size()).isZero();
+
+            if (Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                assertThat(Files.getPosixFilePermissions(file)).containsOnly(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+            }
+            try (DirectoryStream<Path> temporaryFiles = Files.newDirectoryStream(directory, "*.tmp")) {
+                assertThat(temporaryFiles.iterator().hasNext()).isFalse();
+            }
+        } finally {
+            pool.shutdown();
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void inMemoryBatch() {
+        KeystoreBatchResult result = KeystoreGenerator.createKeystores(3, () -> newHolder(0), null, null, ForkJoinPool.commonPool());
+
+        assertThat(result.getKeystores()).hasSize(3);
+        assertThat(result.getFiles()).isEmpty();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.utils.KeystoreGenerator.KeystorePasswordHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeystoreCacheTest {
+    private Path directory;
+
+    private static Supplier<KeystorePasswordHolder> generator(AtomicInteger calls) {
+        return () -> {
+            try {
+                KeyStore keyStore = KeyStore.getInstance("JKS");
+                keyStore.load(null, null);
+                return new KeystorePasswordHolder("password-" + calls.incrementAndGet(), keyStore);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("keystore-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void reuseBetweenInstances() {
+        AtomicInteger calls = new AtomicInteger();
+
+        KeystorePasswordHolder first = new KeystoreCache(directory).get("EC|secp384r1|CN=test|36", generator(calls));
+        assertThat(first.getKeyStore().getType()).isEqualTo("PKCS12");
+        KeystorePasswordHolder second = new KeystoreCache(directory).get("EC|secp384r1|CN=test|36", generator(calls));
+        KeystorePasswordHolder other = new KeystoreCache(directory).get("EC|secp384r1|CN=other|36", generator(calls));
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(second.getPassword()).isEqualTo(first.getPassword());
+        assertThat(second.getKeyStore().getType()).isEqualTo("PKCS12");
+        assertThat(other.getPassword()).isEqualTo("password-2");
+    }
+
+    @Test
+    public void alteredFilesAreRegenerated() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        KeystoreCache cache = new KeystoreCache(directory);
+        cache.get("RSA|2048|CN=test|12", generator(calls));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.p12")) {
+            for (Path file : files) {
+                byte[] content = Files.readAllBytes(file);
+                content[content.length - 1] ^= 1;
+                Files.write(file, content);
+            }
+        }
+
+        KeystorePasswordHolder regenerated = cache.get("RSA|2048|CN=test|12", generator(calls));
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(regenerated.getPassword()).isEqualTo("password-2");
+        assertThat(cache.get("RSA|2048|CN=test|12", generator(calls)).getPassword()).isEqualTo("password-2");
+
+        cache.clear();
+        cache.get("RSA|2048|CN=test|12", generator(calls));
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void cachingFailureReturnsTheGeneratedKeystore() throws Exception {
+        KeystorePasswordHolder notLoaded = new KeystorePasswordHolder("password", KeyStore.getInstance("JKS"));
+
+        assertThat(new KeystoreCache(directory).get("RSA|2048|CN=test|12", () -> notLoaded)).isSameAs(notLoaded);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            assertThat(files.iterator().hasNext()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2014 - 2018 Yannick Watier
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package ca.watier.echechess.common.utils;
+
+import ca.watier.echechess.common.enums.SecureRandomStrategy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SecureRandomStrategyTest {
+
+    @After
+    public void restoreDefault() {
+        KeystoreGenerator.setSecureRandomStrategy(SecureRandomStrategy.DRBG);
+    }
+
+    @Test
+    public void threadLocalInstances() throws Exception {
+        KeystoreGenerator.setSecureRandomStrategy(SecureRandomStrategy.DRBG);
+        SecureRandom current = KeystoreGenerator.getSecureRandom();
+
+        assertThat(KeystoreGenerator.getSecureRandomStrategy()).isEqualTo(SecureRandomStrategy.DRBG);
+        assertThat(current.getAlgorithm()).isEqualTo("DRBG");
+        assertThat(KeystoreGenerator.getSecureRandom()).isSameAs(current);
+
+        AtomicReference<SecureRandom> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(KeystoreGenerator.getSecureRandom()));
+        thread.start();
+        thread.join();
+
+        assertThat(other.get()).isNotNull();
+        assertThat(other.get()).isNotSameAs(current);
+    }
+
+    @Test
+    public void strategies() {
+        for (SecureRandomStrategy strategy : SecureRandomStrategy.values()) {
+            KeystoreGenerator.setSecureRandomStrategy(strategy);
+            SecureRandom random = KeystoreGenerator.getSecureRandom();
+
+            if (KeystoreGenerator.getSecureRandomStrategy() != SecureRandomStrategy.DEFAULT) {
+                assertThat(random.getAlgorithm()).isEqualTo(strategy.getAlgorithm());
+            }
+
+            byte[] bytes = new byte[32];
+            random.nextBytes(bytes);
+            assertThat(bytes).isNotEqualTo(new byte[32]);
+        }
+    }
+}
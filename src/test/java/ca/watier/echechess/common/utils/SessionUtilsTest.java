@@ -16,6 +16,7 @@
 
 package ca.watier.echechess.common.utils;
 
+import ca.watier.echechess.common.sessions.OffHeapPlayerStore;
 import ca.watier.echechess.common.sessions.Player;
 import org.junit.Assert;
 import org.junit.Test;
@@ -41,4 +42,18 @@ public class SessionUtilsTest {
                 SessionUtils.getPlayer(httpSessionWithoutPlayer)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getPlayerFromStore() {
+        OffHeapPlayerStore store = new OffHeapPlayerStore(4, CacheConstants.CACHE_UI_SESSION_EXPIRY);
+        HttpSession httpSessionWithoutPlayer = new MockHttpSession();
+        HttpSession httpSessionWithPlayer = new MockHttpSession();
+        store.put(httpSessionWithPlayer.getId(), new Player());
+
+        Assert.assertNotNull(SessionUtils.getPlayer(httpSessionWithPlayer, store));
+
+        assertThatExceptionOfType(AssertionError.class).isThrownBy(() ->
+                SessionUtils.getPlayer(httpSessionWithoutPlayer, store)
+        );
+    }
+}